@@ -0,0 +1,76 @@
+package com.example.android.readfast;
+
+import java.util.Random;
+
+/**
+ * This class samples indices in proportion to their weights in constant time with Walker's alias method.
+ */
+public class AliasTable {
+
+    private final double[] probability; //chance of keeping an index instead of taking its alias
+    private final int[] alias; //index taken instead of every index when it is not kept
+    private final boolean empty; //whether every weight is 0, in which case nothing can be sampled
+
+    /**
+     * Constructs an AliasTable
+     * @param weights are the non-negative weights of the indices, which do not have to add up to 1
+     */
+    public AliasTable(double[] weights) {
+        int n = weights.length;
+        probability = new double[n];
+        alias = new int[n];
+        double total = 0;
+        for (double weight : weights) {
+            total += Math.max(0, weight);
+        }
+        empty = total <= 0;
+        if (empty) return;
+
+        //scales the weights so their mean is 1, then pairs every index below 1 with one above it
+        double[] scaled = new double[n];
+        int[] small = new int[n];
+        int[] large = new int[n];
+        int smallCount = 0;
+        int largeCount = 0;
+        for (int i = 0; i < n; i++) {
+            scaled[i] = Math.max(0, weights[i]) * n / total;
+            if (scaled[i] < 1) small[smallCount++] = i;
+            else large[largeCount++] = i;
+        }
+        while (smallCount > 0 && largeCount > 0) {
+            int less = small[--smallCount];
+            int more = large[--largeCount];
+            probability[less] = scaled[less];
+            alias[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1;
+            if (scaled[more] < 1) small[smallCount++] = more;
+            else large[largeCount++] = more;
+        }
+        //whatever is left is 1 up to rounding errors
+        while (largeCount > 0) {
+            probability[large[--largeCount]] = 1;
+        }
+        while (smallCount > 0) {
+            probability[small[--smallCount]] = 1;
+        }
+    }
+
+    /**
+     * Checks whether every weight is 0
+     * @return true if nothing can be sampled
+     */
+    public boolean isEmpty() {
+        return empty;
+    }
+
+    /**
+     * Samples an index in proportion to its weight
+     * @param random is the source of randomness
+     * @return the index, or -1 if every weight is 0
+     */
+    public int sample(Random random) {
+        if (empty) return -1;
+        int i = random.nextInt(probability.length);
+        return random.nextDouble() < probability[i] ? i : alias[i];
+    }
+}
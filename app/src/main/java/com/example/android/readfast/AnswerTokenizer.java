@@ -0,0 +1,212 @@
+package com.example.android.readfast;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * This class splits the user's answer into normalized tokens while it is being typed,
+ * re-tokenizing only the tokens each edit touches.
+ */
+public class AnswerTokenizer {
+
+    private static final int INITIAL_CAPACITY = 16; //number of tokens the arrays start with
+
+    private int[] starts = new int[INITIAL_CAPACITY]; //offset of the first character of every token
+    private int[] ends = new int[INITIAL_CAPACITY]; //offset after the last character of every token
+    private String[] tokens = new String[INITIAL_CAPACITY]; //normalized token, empty if it has no letters
+    private int count; //number of tokens, including the ones without letters
+    private int emptyCount; //number of tokens without letters
+
+    private int[] scratchStarts = new int[INITIAL_CAPACITY]; //start offsets of the tokens of the current edit
+    private int[] scratchEnds = new int[INITIAL_CAPACITY]; //end offsets of the tokens of the current edit
+    private String[] scratchTokens = new String[INITIAL_CAPACITY]; //tokens of the current edit
+    private char[] buffer = new char[INITIAL_CAPACITY]; //letters of the token being read
+
+    /**
+     * Updates the tokens after count characters starting at start replaced before characters
+     * Call this from TextWatcher.onTextChanged with the same arguments
+     * @param text is the text after the edit
+     * @param start is the offset of the edit
+     * @param before is the number of characters that were replaced
+     * @param count is the number of characters that replaced them
+     */
+    public void onTextChanged(CharSequence text, int start, int before, int count) {
+        int delta = count - before;
+        //tokens touching the replaced range, including the ones right next to it that may be joined to new characters
+        int first = firstEndingAtOrAfter(start);
+        int last = lastStartingAtOrBefore(start + before);
+        int scanStart = start;
+        int scanEnd = start + count;
+        if (first <= last) {
+            scanStart = Math.min(scanStart, starts[first]);
+            scanEnd = Math.max(scanEnd, ends[last] + delta);
+        } else {
+            last = first - 1;
+        }
+
+        int added = scan(text, scanStart, scanEnd);
+        int removed = last - first + 1;
+        for (int i = first; i <= last; i++) {
+            if (tokens[i].isEmpty()) emptyCount--;
+        }
+        ensureCapacity(this.count - removed + added);
+        //moves the tokens after the edit into place and shifts them by the length change
+        int tail = this.count - last - 1;
+        System.arraycopy(starts, last + 1, starts, first + added, tail);
+        System.arraycopy(ends, last + 1, ends, first + added, tail);
+        System.arraycopy(tokens, last + 1, tokens, first + added, tail);
+        if (delta != 0) {
+            for (int i = first + added; i < first + added + tail; i++) {
+                starts[i] += delta;
+                ends[i] += delta;
+            }
+        }
+        System.arraycopy(scratchStarts, 0, starts, first, added);
+        System.arraycopy(scratchEnds, 0, ends, first, added);
+        System.arraycopy(scratchTokens, 0, tokens, first, added);
+        for (int i = 0; i < added; i++) {
+            if (scratchTokens[i].isEmpty()) emptyCount++;
+            scratchTokens[i] = null;
+        }
+        int newCount = this.count - removed + added;
+        Arrays.fill(tokens, newCount, Math.max(newCount, this.count), null);
+        this.count = newCount;
+    }
+
+    /**
+     * Gets the number of tokens that contain letters
+     * @return the number of tokens
+     */
+    public int size() {
+        return count - emptyCount;
+    }
+
+    /**
+     * Gets every token that contains letters in the order they were typed
+     * @return a new ArrayList of the tokens
+     */
+    public ArrayList<String> getTokens() {
+        ArrayList<String> result = new ArrayList<>(size());
+        for (int i = 0; i < count; i++) {
+            if (!tokens[i].isEmpty()) result.add(tokens[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Forgets every token, such as after the text was replaced without notifying the tokenizer
+     */
+    public void clear() {
+        Arrays.fill(tokens, 0, count, null);
+        count = 0;
+        emptyCount = 0;
+    }
+
+    /**
+     * Tokenizes a whole text at once with the same rules, such as an element of the answer key
+     * @param text is the text
+     * @param out receives every token that contains letters
+     */
+    public static void tokenize(CharSequence text, List<String> out) {
+        char[] letters = new char[Math.min(text.length(), 64)];
+        int length = -1; //-1 while between tokens
+        for (int i = 0; i <= text.length(); i++) {
+            char c = i < text.length() ? text.charAt(i) : ' ';
+            if (Character.isWhitespace(c)) {
+                if (length > 0) out.add(new String(letters, 0, length));
+                length = -1;
+            }
+            else {
+                if (length < 0) length = 0;
+                if (Character.isLetter(c)) {
+                    if (length == letters.length) letters = Arrays.copyOf(letters, length * 2 + 1);
+                    letters[length++] = Character.toUpperCase(c);
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads the tokens of a range that starts and ends between tokens into the scratch arrays
+     * @param text is the text
+     * @param from is the offset the range starts at
+     * @param to is the offset the range ends at
+     * @return the number of tokens read
+     */
+    private int scan(CharSequence text, int from, int to) {
+        int found = 0;
+        int tokenStart = -1; //-1 while between tokens
+        int length = 0;
+        for (int i = from; i <= to; i++) {
+            char c = i < to ? text.charAt(i) : ' ';
+            if (Character.isWhitespace(c)) {
+                if (tokenStart < 0) continue;
+                if (found == scratchStarts.length) growScratch();
+                scratchStarts[found] = tokenStart;
+                scratchEnds[found] = i;
+                scratchTokens[found] = length == 0 ? "" : new String(buffer, 0, length);
+                found++;
+                tokenStart = -1;
+            }
+            else {
+                if (tokenStart < 0) {
+                    tokenStart = i;
+                    length = 0;
+                }
+                if (Character.isLetter(c)) {
+                    if (length == buffer.length) buffer = Arrays.copyOf(buffer, length * 2);
+                    buffer[length++] = Character.toUpperCase(c);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Finds the first token that ends at or after an offset
+     * @param offset is the offset
+     * @return the index of the token, or count if there is none
+     */
+    private int firstEndingAtOrAfter(int offset) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (ends[mid] < offset) low = mid + 1;
+            else high = mid;
+        }
+        return low;
+    }
+
+    /**
+     * Finds the last token that starts at or before an offset
+     * @param offset is the offset
+     * @return the index of the token, or -1 if there is none
+     */
+    private int lastStartingAtOrBefore(int offset) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (starts[mid] <= offset) low = mid + 1;
+            else high = mid;
+        }
+        return low - 1;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity <= starts.length) return;
+        int newLength = Math.max(capacity, starts.length * 2);
+        starts = Arrays.copyOf(starts, newLength);
+        ends = Arrays.copyOf(ends, newLength);
+        tokens = Arrays.copyOf(tokens, newLength);
+    }
+
+    private void growScratch() {
+        int newLength = scratchStarts.length * 2;
+        scratchStarts = Arrays.copyOf(scratchStarts, newLength);
+        scratchEnds = Arrays.copyOf(scratchEnds, newLength);
+        scratchTokens = Arrays.copyOf(scratchTokens, newLength);
+    }
+}
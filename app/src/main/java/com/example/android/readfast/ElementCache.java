@@ -0,0 +1,86 @@
+package com.example.android.readfast;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * This class is the process wide cache of the words and sentences lists and their search indexes,
+ * with a version stamp per list that changes whenever its store does.
+ */
+public class ElementCache {
+
+    private final ElementStore[] stores = new ElementStore[2]; //cached store of the words list and the sentences list
+    private final ElementSearchIndex[] searchIndexes = new ElementSearchIndex[2]; //cached search index of each list
+    private final AtomicLongArray versions = new AtomicLongArray(2); //version stamp of each list, bumped while the store is locked so it is never locked itself
+
+    /**
+     * Gets the cached store of a list
+     * @param wsState is whether to get the words or the sentences list (false = words, true = sentences)
+     * @return the ElementStore, or null if it has not been opened in this process
+     */
+    public synchronized ElementStore getStore(boolean wsState) {
+        return stores[index(wsState)];
+    }
+
+    /**
+     * Caches the store of a list and starts following its changes
+     * @param wsState is whether the store contains words or sentences (false = words, true = sentences)
+     * @param store is the ElementStore
+     */
+    public void putStore(final boolean wsState, ElementStore store) {
+        synchronized (this) {
+            stores[index(wsState)] = store;
+        }
+        bumpVersion(wsState);
+        store.addChangeListener(new ElementStore.ChangeListener() {
+            @Override
+            public void onElementAdded(int slot, String element) {
+                bumpVersion(wsState);
+            }
+
+            @Override
+            public void onElementRemoved(int slot, String element) {
+                bumpVersion(wsState);
+            }
+
+            @Override
+            public void onElementsCleared() {
+                bumpVersion(wsState);
+            }
+        });
+    }
+
+    /**
+     * Gets the cached search index of a list
+     * @param wsState is whether to get the words or the sentences list (false = words, true = sentences)
+     * @return the ElementSearchIndex, or null if it has not been built in this process
+     */
+    public synchronized ElementSearchIndex getSearchIndex(boolean wsState) {
+        return searchIndexes[index(wsState)];
+    }
+
+    /**
+     * Caches the search index of a list, which must already be registered with the list's store
+     * @param wsState is whether the index contains words or sentences (false = words, true = sentences)
+     * @param searchIndex is the ElementSearchIndex
+     */
+    public synchronized void putSearchIndex(boolean wsState, ElementSearchIndex searchIndex) {
+        searchIndexes[index(wsState)] = searchIndex;
+    }
+
+    /**
+     * Gets the version stamp of a list, which changes whenever the list changes
+     * @param wsState is whether to get the words or the sentences list (false = words, true = sentences)
+     * @return the version stamp
+     */
+    public long getVersion(boolean wsState) {
+        return versions.get(index(wsState));
+    }
+
+    private void bumpVersion(boolean wsState) {
+        versions.incrementAndGet(index(wsState));
+    }
+
+    private static int index(boolean wsState) {
+        return wsState ? 1 : 0;
+    }
+}
@@ -0,0 +1,258 @@
+package com.example.android.readfast;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+
+/**
+ * This class is a persistent shuffled deck of the slots of an element list. Elements are drawn
+ * from the deck without repeating until every element has been drawn once, after which the deck
+ * starts over. The permutation is shuffled lazily as elements are drawn, so drawing k elements
+ * costs O(k), and it is repaired in place when elements are added or removed.
+ * The deck is stored in a memory mapped file: a header (magic number, size, cursor and capacity)
+ * followed by the permutation of slots and the position of every slot within the permutation.
+ * Slots in the permutation before the cursor have been drawn, slots after it have not.
+ */
+public class ElementDeck {
+
+    private static final int MAGIC = 0x52464431; //"RFD1", marks a file as a deck file
+    private static final int HEADER_SIZE = 16; //size in bytes of the magic number, size, cursor and capacity
+    private static final int MIN_CAPACITY = 64; //smallest number of slots a deck file has room for
+    private static final int NOT_IN_DECK = -1; //position of a slot that is not in the deck
+
+    private final File file; //file the deck is stored in
+    private final Random random; //source of randomness for shuffling
+    private MappedByteBuffer buffer; //mapped contents of the file
+    private int size; //number of slots in the deck
+    private int cursor; //number of slots already drawn
+    private int capacity; //number of slots the file has room for
+
+    /**
+     * Constructs an ElementDeck backed by a file
+     * @param file is the deck file
+     */
+    private ElementDeck(File file) {
+        this.file = file;
+        random = new Random();
+    }
+
+    /**
+     * Opens a deck file, creating an empty deck if the file does not exist or is not a deck file
+     * @param f is the file
+     * @return the ElementDeck
+     * @throws IOException if the file cannot be read or written
+     */
+    public static ElementDeck open(File f) throws IOException {
+        IoThreadCheck.check();
+        ElementDeck deck = new ElementDeck(f);
+        if (f.length() >= HEADER_SIZE) {
+            deck.map(0);
+            if (deck.buffer.getInt(0) == MAGIC) {
+                deck.size = deck.buffer.getInt(4);
+                deck.cursor = deck.buffer.getInt(8);
+                deck.capacity = deck.buffer.getInt(12);
+                return deck;
+            }
+        }
+        deck.resize(MIN_CAPACITY);
+        return deck;
+    }
+
+    /**
+     * Gets the number of slots in the deck
+     * @return the number of slots
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether a slot is in the deck
+     * @param slot is the slot
+     * @return true if the slot is in the deck
+     */
+    public boolean contains(int slot) {
+        return slot < capacity && getPos(slot) != NOT_IN_DECK;
+    }
+
+    /**
+     * Adds a slot to the deck at a random position among the slots not yet drawn
+     * @param slot is the slot
+     */
+    public void insert(int slot) {
+        if (contains(slot)) return;
+        ensureCapacity(Math.max(size, slot) + 1);
+        setPerm(size, slot);
+        size++;
+        swap(size - 1, cursor + random.nextInt(size - cursor));
+        writeHeader();
+    }
+
+    /**
+     * Removes a slot from the deck, keeping the drawn and undrawn slots apart
+     * @param slot is the slot
+     */
+    public void remove(int slot) {
+        if (!contains(slot)) return;
+        int pos = getPos(slot);
+        if (pos < cursor) {
+            //move the slot to the end of the drawn slots, then swap it with the last slot of the deck
+            swap(pos, cursor - 1);
+            pos = cursor - 1;
+            cursor--;
+        }
+        swap(pos, size - 1);
+        setPos(slot, NOT_IN_DECK);
+        size--;
+        writeHeader();
+    }
+
+    /**
+     * Draws slots that have not been drawn since the deck last started over
+     * If the deck runs out part way through, it starts over without repeating the slots drawn by this call
+     * @param k is the number of slots to draw
+     * @return the drawn slots, at most size() of them
+     */
+    public int[] draw(int k) {
+        int[] drawn = new int[Math.min(k, size)];
+        for (int i = 0; i < drawn.length; i++) {
+            if (cursor == size) {
+                //start over, moving the slots drawn by this call to the front so they count as drawn
+                for (int j = 0; j < i; j++) {
+                    swap(j, size - i + j);
+                }
+                cursor = i;
+            }
+            swap(cursor, cursor + random.nextInt(size - cursor));
+            drawn[i] = getPerm(cursor);
+            cursor++;
+        }
+        writeHeader();
+        return drawn;
+    }
+
+    /**
+     * Replaces the contents of the deck with a new set of slots, none of them drawn
+     * @param slots are the slots
+     * @param count is the number of slots to take from the start of the array
+     */
+    public void reset(int[] slots, int count) {
+        clear();
+        for (int i = 0; i < count; i++) {
+            insert(slots[i]);
+        }
+    }
+
+    /**
+     * Removes every slot from the deck
+     */
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            setPos(getPerm(i), NOT_IN_DECK);
+        }
+        size = 0;
+        cursor = 0;
+        writeHeader();
+    }
+
+    /**
+     * Swaps two positions within the permutation and updates the positions of their slots
+     * @param i is the first position
+     * @param j is the second position
+     */
+    private void swap(int i, int j) {
+        if (i == j) {
+            setPos(getPerm(i), i);
+            return;
+        }
+        int a = getPerm(i);
+        int b = getPerm(j);
+        setPerm(i, b);
+        setPerm(j, a);
+        setPos(b, i);
+        setPos(a, j);
+    }
+
+    /**
+     * Grows the deck file if it does not have room for a number of slots
+     * @param needed is the number of slots needed
+     */
+    private void ensureCapacity(int needed) {
+        if (needed <= capacity) return;
+        try {
+            resize(Math.max(needed, capacity * 2));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not grow deck file", e);
+        }
+    }
+
+    /**
+     * Rewrites the deck file with room for a new number of slots, keeping its contents
+     * @param newCapacity is the new number of slots
+     * @throws IOException if the file cannot be written
+     */
+    private void resize(int newCapacity) throws IOException {
+        IoThreadCheck.check();
+        int[] perm = new int[size];
+        int[] pos = new int[newCapacity];
+        for (int i = 0; i < size; i++) {
+            perm[i] = getPerm(i);
+        }
+        for (int slot = 0; slot < newCapacity; slot++) {
+            pos[slot] = slot < capacity ? getPos(slot) : NOT_IN_DECK;
+        }
+        capacity = newCapacity;
+        map(HEADER_SIZE + 8L * capacity);
+        for (int i = 0; i < size; i++) {
+            setPerm(i, perm[i]);
+        }
+        for (int slot = 0; slot < capacity; slot++) {
+            setPos(slot, pos[slot]);
+        }
+        writeHeader();
+    }
+
+    /**
+     * Maps the deck file into memory
+     * @param length is the length the file is resized to, or 0 to keep its current length
+     * @throws IOException if the file cannot be mapped
+     */
+    private void map(long length) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            if (length > 0) raf.setLength(length);
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Writes the size, cursor and capacity to the header of the deck file
+     */
+    private void writeHeader() {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, size);
+        buffer.putInt(8, cursor);
+        buffer.putInt(12, capacity);
+    }
+
+    private int getPerm(int i) {
+        return buffer.getInt(HEADER_SIZE + i * 4);
+    }
+
+    private void setPerm(int i, int slot) {
+        buffer.putInt(HEADER_SIZE + i * 4, slot);
+    }
+
+    private int getPos(int slot) {
+        return buffer.getInt(HEADER_SIZE + (capacity + slot) * 4);
+    }
+
+    private void setPos(int slot, int pos) {
+        buffer.putInt(HEADER_SIZE + (capacity + slot) * 4, pos);
+    }
+}
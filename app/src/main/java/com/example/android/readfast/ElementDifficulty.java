@@ -0,0 +1,400 @@
+package com.example.android.readfast;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+/**
+ * This class keeps a difficulty level for every slot of an element list in a memory mapped file
+ * and draws slots from a difficulty band in O(k).
+ */
+public class ElementDifficulty {
+
+    /**
+     * This constant is the number of difficulty levels
+     */
+    public static final int LEVELS = 16;
+    /**
+     * This constant is the number of difficulty bands the player can choose from, from easiest to hardest
+     */
+    public static final int BANDS = 3;
+
+    private static final int MAGIC = 0x52464631; //"RFF1", marks a file as a difficulty file
+    private static final int LETTERS = 26; //number of letters counted, A to Z
+    private static final int HEADER_SIZE = 16 + LETTERS * 4; //size in bytes of the magic number, size, capacity, letter total and letter counts
+    private static final int MIN_CAPACITY = 64; //smallest number of slots a difficulty file has room for
+    private static final int NO_LEVEL = 0; //stored byte of a slot without an element, other slots store their level + 1
+    private static final int LEVELS_PER_DOUBLING = 4; //levels between an element and one with twice its points
+    private static final double WORD_BASE_POINTS = 4; //points of a word at level 0
+    private static final double SENTENCE_BASE_POINTS = 32; //points of a sentence at level 0
+    private static final double AVERAGE_LETTER_BITS = 4.2; //information of an average letter of English text, rarer letters add points
+    private static final int MIN_LETTER_TOTAL = 1000; //number of letters in the list below which rarity is not scored, since the counts are too noisy
+    private static final double NEIGHBOR_WEIGHT = 0.25; //weight of a level one away from the target relative to the target level, multiplied again for every level further
+
+    private final File file; //file the levels are stored in
+    private final Random random; //source of randomness for drawing
+    private MappedByteBuffer buffer; //mapped contents of the file
+    private int size; //number of slots with a level
+    private int capacity; //number of slots the file has room for
+    private final int[] letterCounts = new int[LETTERS]; //number of times every letter appears in the list
+    private long letterTotal; //number of letters in the list
+
+    private final int[][] buckets = new int[LEVELS][]; //slots of every level, in no particular order
+    private final int[] bucketSizes = new int[LEVELS]; //number of slots of every level
+    private int[] bucketPositions; //position of every slot within the bucket of its level
+    private AliasTable aliasTable; //alias table of the levels for aliasTarget, null if the buckets changed since it was built
+    private int aliasTarget = -1; //target level aliasTable was built for
+
+    /**
+     * Constructs an ElementDifficulty backed by a file
+     * @param file is the difficulty file
+     */
+    private ElementDifficulty(File file) {
+        this.file = file;
+        random = new Random();
+        for (int level = 0; level < LEVELS; level++) {
+            buckets[level] = new int[16];
+        }
+    }
+
+    /**
+     * Opens a difficulty file, creating an empty one if the file does not exist or is not a difficulty file
+     * @param f is the file
+     * @return the ElementDifficulty
+     * @throws IOException if the file cannot be read or written
+     */
+    public static ElementDifficulty open(File f) throws IOException {
+        IoThreadCheck.check();
+        ElementDifficulty difficulty = new ElementDifficulty(f);
+        if (f.length() >= HEADER_SIZE) {
+            difficulty.map(0);
+            if (difficulty.buffer.getInt(0) == MAGIC) {
+                difficulty.readFile();
+                return difficulty;
+            }
+        }
+        difficulty.resize(MIN_CAPACITY);
+        return difficulty;
+    }
+
+    /**
+     * Scores the difficulty of an element
+     * @param element is the normalized element
+     * @param letterCounts are the number of times every letter appears in the list
+     * @param letterTotal is the number of letters in the list
+     * @return the level, from 0 to LEVELS - 1
+     */
+    public static int score(String element, int[] letterCounts, long letterTotal) {
+        int letters = 0;
+        int syllables = 0;
+        double rarity = 0;
+        boolean sentence = false;
+        int groups = 0; //vowel groups of the current word
+        char last = ' '; //last letter of the current word, ' ' if it has none yet
+        char beforeLast = ' '; //letter before it
+        for (int i = 0; i <= element.length(); i++) {
+            char c = i < element.length() ? Character.toUpperCase(element.charAt(i)) : ' ';
+            if (Character.isWhitespace(c)) {
+                if (i < element.length()) sentence = true;
+                //a final silent E, as in "MAKE", does not make a syllable, but every word has at least one
+                if (last == 'E' && groups > 1 && !isVowel(beforeLast)) groups--;
+                if (last != ' ') syllables += Math.max(1, groups);
+                groups = 0;
+                last = ' ';
+                beforeLast = ' ';
+                continue;
+            }
+            if (!Character.isLetter(c)) continue;
+            letters++;
+            if (isVowel(c) && !isVowel(last)) groups++;
+            beforeLast = last;
+            last = c;
+            if (c >= 'A' && c <= 'Z' && letterTotal >= MIN_LETTER_TOTAL) {
+                double bits = -Math.log((letterCounts[c - 'A'] + 1.0) / (letterTotal + LETTERS)) / Math.log(2);
+                rarity += Math.max(0, bits - AVERAGE_LETTER_BITS);
+            }
+        }
+        double points = letters + syllables + rarity;
+        double base = sentence ? SENTENCE_BASE_POINTS : WORD_BASE_POINTS;
+        long level = Math.round(LEVELS_PER_DOUBLING * Math.log(Math.max(1, points) / base) / Math.log(2));
+        return (int) Math.max(0, Math.min(LEVELS - 1, level));
+    }
+
+    /**
+     * Gets the position in the difficulty distribution of the list that a band targets
+     * @param band is the band, from 1 for the easiest to BANDS for the hardest
+     * @return the percentile of the band's middle, from 0 to 1
+     */
+    public static double getBandPercentile(int band) {
+        return (2.0 * Math.max(1, Math.min(BANDS, band)) - 1) / (2 * BANDS);
+    }
+
+    /**
+     * Gets the number of slots with a level
+     * @return the number of slots
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Checks whether a slot has a level
+     * @param slot is the slot
+     * @return true if the slot has a level
+     */
+    public boolean contains(int slot) {
+        return slot >= 0 && slot < capacity && getStored(slot) != NO_LEVEL;
+    }
+
+    /**
+     * Gets the level of a slot
+     * @param slot is the slot
+     * @return the level, or -1 if the slot has no level
+     */
+    public int getLevel(int slot) {
+        return contains(slot) ? getStored(slot) - 1 : -1;
+    }
+
+    /**
+     * Scores an element with the current letter counts and adds its slot to the bucket of its level
+     * @param slot is the slot of the element
+     * @param element is the normalized element
+     */
+    public void insert(int slot, String element) {
+        if (contains(slot)) return;
+        int level = score(element, letterCounts, letterTotal);
+        countLetters(element, 1);
+        ensureCapacity(slot + 1);
+        setStored(slot, level + 1);
+        addToBucket(slot, level);
+        size++;
+        writeHeader();
+    }
+
+    /**
+     * Removes the slot of an element from the bucket of its level
+     * @param slot is the slot of the element
+     * @param element is the normalized element, whose letters are no longer counted
+     */
+    public void remove(int slot, String element) {
+        if (!contains(slot)) return;
+        removeFromBucket(slot, getStored(slot) - 1);
+        setStored(slot, NO_LEVEL);
+        countLetters(element, -1);
+        size--;
+        writeHeader();
+    }
+
+    /**
+     * Removes every slot and forgets the letter counts
+     */
+    public void clear() {
+        for (int level = 0; level < LEVELS; level++) {
+            for (int i = 0; i < bucketSizes[level]; i++) {
+                setStored(buckets[level][i], NO_LEVEL);
+            }
+            bucketSizes[level] = 0;
+        }
+        size = 0;
+        letterTotal = 0;
+        for (int i = 0; i < LETTERS; i++) {
+            letterCounts[i] = 0;
+        }
+        aliasTable = null;
+        writeHeader();
+    }
+
+    /**
+     * Finds the level at a percentile of the difficulty distribution of the list
+     * @param percentile is the percentile, from 0 to 1
+     * @return the level, or 0 if the list is empty
+     */
+    public int getLevelAtPercentile(double percentile) {
+        long target = Math.max(1, (long) Math.ceil(Math.max(0, Math.min(1, percentile)) * size));
+        long seen = 0;
+        for (int level = 0; level < LEVELS; level++) {
+            seen += bucketSizes[level];
+            if (seen >= target) return level;
+        }
+        return 0;
+    }
+
+    /**
+     * Draws distinct slots around a target level, in proportion to the number of elements of every level
+     * weighted down the further the level is from the target
+     * @param k is the number of slots to draw
+     * @param target is the target level
+     * @return the drawn slots, at most size() of them
+     */
+    public int[] draw(int k, int target) {
+        int[] drawn = new int[Math.min(k, size)];
+        if (drawn.length == 0) return drawn;
+        if (aliasTable == null || aliasTarget != target) {
+            double[] weights = new double[LEVELS];
+            for (int level = 0; level < LEVELS; level++) {
+                weights[level] = bucketSizes[level] * Math.pow(NEIGHBOR_WEIGHT, Math.abs(level - target));
+            }
+            aliasTable = new AliasTable(weights);
+            aliasTarget = target;
+        }
+        Set<Integer> seen = new HashSet<>();
+        int count = 0;
+        //repeats are rare unless the round needs most of the elements near the target, so give up on sampling after a few
+        for (int attempt = 0; count < drawn.length && attempt < 4 * drawn.length + 16; attempt++) {
+            int level = aliasTable.sample(random);
+            int slot = buckets[level][random.nextInt(bucketSizes[level])];
+            if (seen.add(slot)) drawn[count++] = slot;
+        }
+        //fills the rest with the closest levels in order
+        for (int distance = 0; count < drawn.length && distance < LEVELS; distance++) {
+            count = fill(drawn, count, seen, target - distance);
+            if (distance > 0) count = fill(drawn, count, seen, target + distance);
+        }
+        return drawn;
+    }
+
+    /**
+     * Adds the slots of a level that were not drawn yet until enough slots are drawn
+     * @param drawn are the drawn slots
+     * @param count is the number of slots drawn so far
+     * @param seen contains the slots drawn so far
+     * @param level is the level, which may be out of range
+     * @return the new number of slots drawn
+     */
+    private int fill(int[] drawn, int count, Set<Integer> seen, int level) {
+        if (level < 0 || level >= LEVELS) return count;
+        for (int i = 0; count < drawn.length && i < bucketSizes[level]; i++) {
+            if (seen.add(buckets[level][i])) drawn[count++] = buckets[level][i];
+        }
+        return count;
+    }
+
+    private static boolean isVowel(char c) {
+        return "AEIOUY".indexOf(c) >= 0;
+    }
+
+    private void countLetters(String element, int delta) {
+        for (int i = 0; i < element.length(); i++) {
+            char c = Character.toUpperCase(element.charAt(i));
+            if (c < 'A' || c > 'Z') continue;
+            letterCounts[c - 'A'] += delta;
+            letterTotal += delta;
+        }
+    }
+
+    private void addToBucket(int slot, int level) {
+        if (bucketSizes[level] == buckets[level].length) {
+            int[] grown = new int[buckets[level].length * 2];
+            System.arraycopy(buckets[level], 0, grown, 0, bucketSizes[level]);
+            buckets[level] = grown;
+        }
+        bucketPositions[slot] = bucketSizes[level];
+        buckets[level][bucketSizes[level]++] = slot;
+        aliasTable = null;
+    }
+
+    /**
+     * Removes a slot from its bucket by moving the last slot of the bucket into its place
+     */
+    private void removeFromBucket(int slot, int level) {
+        int pos = bucketPositions[slot];
+        int moved = buckets[level][--bucketSizes[level]];
+        buckets[level][pos] = moved;
+        bucketPositions[moved] = pos;
+        aliasTable = null;
+    }
+
+    /**
+     * Reads the header and rebuilds the buckets from the stored levels
+     */
+    private void readFile() {
+        capacity = buffer.getInt(8);
+        letterTotal = buffer.getInt(12) & 0xffffffffL;
+        for (int i = 0; i < LETTERS; i++) {
+            letterCounts[i] = buffer.getInt(16 + i * 4);
+        }
+        bucketPositions = new int[capacity];
+        for (int slot = 0; slot < capacity; slot++) {
+            int stored = getStored(slot);
+            if (stored == NO_LEVEL) continue;
+            addToBucket(slot, stored - 1);
+            size++;
+        }
+    }
+
+    /**
+     * Grows the difficulty file if it does not have room for a number of slots
+     * @param needed is the number of slots needed
+     */
+    private void ensureCapacity(int needed) {
+        if (needed <= capacity) return;
+        try {
+            resize(Math.max(needed, capacity * 2));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not grow difficulty file", e);
+        }
+    }
+
+    /**
+     * Rewrites the difficulty file with room for a new number of slots, keeping its contents
+     * @param newCapacity is the new number of slots
+     * @throws IOException if the file cannot be written
+     */
+    private void resize(int newCapacity) throws IOException {
+        IoThreadCheck.check();
+        byte[] levels = new byte[newCapacity];
+        for (int slot = 0; slot < capacity; slot++) {
+            levels[slot] = (byte) getStored(slot);
+        }
+        int[] positions = new int[newCapacity];
+        if (bucketPositions != null) System.arraycopy(bucketPositions, 0, positions, 0, capacity);
+        bucketPositions = positions;
+        capacity = newCapacity;
+        map(HEADER_SIZE + (long) capacity);
+        for (int slot = 0; slot < capacity; slot++) {
+            buffer.put(HEADER_SIZE + slot, levels[slot]);
+        }
+        writeHeader();
+    }
+
+    /**
+     * Maps the difficulty file into memory
+     * @param length is the length the file is resized to, or 0 to keep its current length
+     * @throws IOException if the file cannot be mapped
+     */
+    private void map(long length) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            if (length > 0) raf.setLength(length);
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Writes the size, capacity and letter counts to the header of the difficulty file
+     */
+    private void writeHeader() {
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, size);
+        buffer.putInt(8, capacity);
+        buffer.putInt(12, (int) letterTotal);
+        for (int i = 0; i < LETTERS; i++) {
+            buffer.putInt(16 + i * 4, letterCounts[i]);
+        }
+    }
+
+    private int getStored(int slot) {
+        return buffer.get(HEADER_SIZE + slot) & 0xff;
+    }
+
+    private void setStored(int slot, int stored) {
+        buffer.put(HEADER_SIZE + slot, (byte) stored);
+    }
+}
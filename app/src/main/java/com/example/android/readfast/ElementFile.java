@@ -0,0 +1,153 @@
+package com.example.android.readfast;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.List;
+
+/**
+ * This class reads a compact binary element file through a MappedByteBuffer, so any single element
+ * can be fetched in constant time without loading the whole list into memory.
+ * The file consists of a header (magic number, version and element count), a table of count + 1
+ * offsets and the UTF-8 bytes of every element packed one after another. Element i is stored
+ * between offsets i and i + 1.
+ */
+public class ElementFile {
+
+    private static final int MAGIC = 0x52464c31; //"RFL1", marks a file as an element file
+    private static final int VERSION = 1; //version of the file format
+    private static final int HEADER_SIZE = 12; //size in bytes of the magic number, version and element count
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private final ByteBuffer buffer; //mapped contents of the file
+    private final int count; //number of elements in the file
+    private final int dataStart; //position of the first element's bytes
+
+    /**
+     * Constructs an ElementFile from the mapped contents of a file
+     * @param buffer is the mapped file
+     * @throws IOException if the file is not an element file
+     */
+    private ElementFile(ByteBuffer buffer) throws IOException {
+        this.buffer = buffer;
+        if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION) {
+            throw new IOException("Not an element file");
+        }
+        count = buffer.getInt(8);
+        dataStart = HEADER_SIZE + (count + 1) * 4;
+    }
+
+    /**
+     * Maps an element file into memory
+     * @param f is the file
+     * @return the ElementFile
+     * @throws IOException if the file cannot be read or is not an element file
+     */
+    public static ElementFile open(File f) throws IOException {
+        IoThreadCheck.check();
+        FileInputStream in = new FileInputStream(f);
+        try {
+            FileChannel channel = in.getChannel();
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            return new ElementFile(buffer);
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Writes a List of elements to a file in the element file format
+     * @param f is the file
+     * @param elements is the List of elements
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(File f, List<String> elements) throws IOException {
+        IoThreadCheck.check();
+        //the offsets are computed from the encoded lengths first, so the elements are never all encoded at once
+        int count = elements.size();
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(f)));
+        try {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(count);
+            int offset = 0;
+            out.writeInt(offset);
+            for (int i = 0; i < count; i++) {
+                offset += encodedLength(elements.get(i));
+                out.writeInt(offset);
+            }
+            for (int i = 0; i < count; i++) {
+                out.write(elements.get(i).getBytes(UTF_8));
+            }
+        } finally {
+            out.close();
+        }
+    }
+
+    /**
+     * Gets the number of elements in the file
+     * @return the number of elements
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Gets a single element
+     * @param i is the index of the element
+     * @return the element
+     */
+    public String get(int i) {
+        if (i < 0 || i >= count) throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + count);
+        int start = buffer.getInt(HEADER_SIZE + i * 4);
+        int end = buffer.getInt(HEADER_SIZE + (i + 1) * 4);
+        byte[] bytes = new byte[end - start];
+        ByteBuffer element = buffer.duplicate();
+        element.position(dataStart + start);
+        element.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    /**
+     * Checks whether an element is empty without decoding it
+     * @param i is the index of the element
+     * @return true if the element is an empty String
+     */
+    public boolean isEmpty(int i) {
+        if (i < 0 || i >= count) throw new IndexOutOfBoundsException("Index: " + i + ", Size: " + count);
+        return buffer.getInt(HEADER_SIZE + i * 4) == buffer.getInt(HEADER_SIZE + (i + 1) * 4);
+    }
+
+    /**
+     * Computes the number of bytes a String takes up in UTF-8 without encoding it
+     * Unpaired surrogates are counted as the single replacement byte String.getBytes() writes for them
+     * @param s is the String
+     * @return the length in bytes
+     */
+    private static int encodedLength(String s) {
+        int length = 0;
+        for (int i = 0; i < s.length(); i++) {
+            char c = s.charAt(i);
+            if (c < 0x80) {
+                length++;
+            } else if (c < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < s.length() && Character.isLowSurrogate(s.charAt(i + 1))) {
+                length += 4;
+                i++;
+            } else if (c >= Character.MIN_SURROGATE && c <= Character.MAX_SURROGATE) {
+                length++;
+            } else {
+                length += 3;
+            }
+        }
+        return length;
+    }
+}
@@ -0,0 +1,141 @@
+package com.example.android.readfast;
+
+import android.content.ContentResolver;
+import android.net.Uri;
+import android.os.AsyncTask;
+import android.os.ParcelFileDescriptor;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+
+/**
+ * This AsyncTask imports the text entered in the ElementListDialog or a plain text file chosen by the user
+ * into an ElementStore off of the UI thread, reporting its progress along the way
+ * The text goes through an ElementImporter, so a whole book is imported in constant memory and segmented
+ * on every core; cancelling the task stops the import at the next chunk and keeps the elements added before that
+ */
+public class ElementImportTask extends AsyncTask<Void, Integer, ElementImportTask.Result> implements ElementImporter.Progress {
+
+    /**
+     * This interface provides functionality for when the import makes progress and when it finishes
+     */
+    public interface ImportListener {
+        void onImportProgress(int percent);
+        void onImportFinished(int added, boolean failed, boolean cancelled);
+    }
+
+    /**
+     * This class contains the outcome of an import
+     */
+    public static class Result {
+        public final int added; //number of new elements added before the import finished or failed
+        public final boolean failed; //whether the file could not be read to its end
+
+        Result(int added, boolean failed) {
+            this.added = added;
+            this.failed = failed;
+        }
+    }
+
+    private final ElementImporter importer; //splits the text and adds the elements to the store
+    private final String text; //text to be imported, null if a file is imported
+    private final ContentResolver resolver; //opens the file to be imported, null if text is imported
+    private final Uri uri; //file to be imported, null if text is imported
+    private final ImportListener listener; //listener notified of progress
+    private int lastPercent = -1; //last percentage published, so every percentage is only published once
+
+    /**
+     * Constructs an ElementImportTask that imports text
+     * @param store is the ElementStore the elements are added to
+     * @param wsState is whether the text is split into words or sentences (false = words, true = sentences)
+     * @param text is the text
+     * @param listener is the ImportListener
+     */
+    public ElementImportTask(ElementStore store, boolean wsState, String text, ImportListener listener) {
+        this(store, wsState, text, null, null, listener);
+    }
+
+    /**
+     * Constructs an ElementImportTask that imports a UTF-8 plain text file
+     * @param store is the ElementStore the elements are added to
+     * @param wsState is whether the text is split into words or sentences (false = words, true = sentences)
+     * @param resolver is the ContentResolver that opens the file
+     * @param uri is the content Uri of the file
+     * @param listener is the ImportListener
+     */
+    public ElementImportTask(ElementStore store, boolean wsState, ContentResolver resolver, Uri uri, ImportListener listener) {
+        this(store, wsState, null, resolver, uri, listener);
+    }
+
+    private ElementImportTask(ElementStore store, boolean wsState, String text, ContentResolver resolver, Uri uri, ImportListener listener) {
+        importer = new ElementImporter(store, wsState, ElementRepository.getSegmentExecutor(), ElementRepository.getSegmentThreads());
+        this.text = text;
+        this.resolver = resolver;
+        this.uri = uri;
+        this.listener = listener;
+    }
+
+    /**
+     * Splits the text and adds the elements to the store
+     * @param params is not used
+     * @return the Result, which keeps the elements added before a read error
+     */
+    @Override
+    protected Result doInBackground(Void... params) {
+        if(text != null) return new Result(importer.importText(text, this), false);
+        try {
+            ParcelFileDescriptor descriptor = resolver.openFileDescriptor(uri, "r");
+            if(descriptor == null) return new Result(0, true);
+            FileInputStream in = new FileInputStream(descriptor.getFileDescriptor());
+            try {
+                return new Result(importer.importChannel(in.getChannel(), descriptor.getStatSize(), this), false);
+            } finally {
+                in.close();
+                descriptor.close();
+            }
+        } catch (IOException | SecurityException e) {
+            e.printStackTrace();
+            return new Result(importer.getAdded(), true);
+        }
+    }
+
+    /**
+     * Publishes the progress of the importer whenever it reaches a new percentage
+     * @param percent is the percentage of the text read
+     */
+    @Override
+    public void onProgress(int percent) {
+        if(percent == lastPercent) return;
+        lastPercent = percent;
+        publishProgress(percent);
+    }
+
+    /**
+     * Passes progress updates on to the listener
+     * @param values contains the percentage done as its first item
+     */
+    @Override
+    protected void onProgressUpdate(Integer... values) {
+        listener.onImportProgress(values[0]);
+    }
+
+    /**
+     * Notifies the listener that the import is done
+     * @param result is the Result
+     */
+    @Override
+    protected void onPostExecute(Result result) {
+        listener.onImportProgress(100);
+        listener.onImportFinished(result.added, result.failed, false);
+    }
+
+    /**
+     * Notifies the listener that the import was cancelled, with the elements that were added before it stopped
+     * @param result is the Result, or null if the task was cancelled before it ran
+     */
+    @Override
+    protected void onCancelled(Result result) {
+        if(result == null) listener.onImportFinished(0, false, true);
+        else listener.onImportFinished(result.added, result.failed, true);
+    }
+}
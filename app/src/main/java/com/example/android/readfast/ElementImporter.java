@@ -0,0 +1,295 @@
+package com.example.android.readfast;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+
+/**
+ * This class imports text of any length into an ElementStore in constant memory, segmenting it in
+ * parallel windows when given an ExecutorService.
+ * Elements are added to the store as the text is read, BATCH_SIZE at a time, so a cancelled import
+ * keeps the elements added before it stopped.
+ */
+public class ElementImporter implements ElementSegmenter.ElementSink {
+
+    /**
+     * This interface lets the caller follow and cancel an import
+     */
+    public interface Progress {
+        boolean isCancelled();
+        void onProgress(int percent);
+    }
+
+    /**
+     * This constant is the number of bytes or characters read at a time
+     */
+    public static final int CHUNK_SIZE = 1 << 16;
+    /**
+     * This constant is the number of elements added to the store at a time
+     */
+    public static final int BATCH_SIZE = 4096;
+
+    private final ElementStore store; //store the elements are added to
+    private final boolean wsState; //whether the text is split into words or sentences (false = words, true = sentences)
+    private final ElementSegmenter segmenter; //splits the text into elements, or the text between pieces when importing in parallel
+    private final List<String> batch = new ArrayList<>(BATCH_SIZE); //elements waiting to be added to the store
+    private int added; //number of new elements added to the store
+    private final ExecutorService executor; //segments the pieces of a window, null if the import is sequential
+    private final int parallelism; //number of pieces a window is cut into
+    private final char[] window; //text collected to be cut into pieces, null if the import is sequential
+    private int windowLength; //number of characters in the window
+
+    /**
+     * Constructs an ElementImporter that segments the text on the calling thread
+     * @param store is the ElementStore the elements are added to
+     * @param wsState is whether the text is split into words or sentences (false = words, true = sentences)
+     */
+    public ElementImporter(ElementStore store, boolean wsState) {
+        this(store, wsState, null, 1);
+    }
+
+    /**
+     * Constructs an ElementImporter that segments and normalizes the text in parallel
+     * @param store is the ElementStore the elements are added to
+     * @param wsState is whether the text is split into words or sentences (false = words, true = sentences)
+     * @param executor is the ExecutorService the pieces are segmented on, or null to segment on the calling thread
+     * @param parallelism is the number of pieces every window of parallelism chunks is cut into, usually the number of threads of the executor
+     */
+    public ElementImporter(ElementStore store, boolean wsState, ExecutorService executor, int parallelism) {
+        this.store = store;
+        this.wsState = wsState;
+        segmenter = new ElementSegmenter(wsState, this);
+        this.executor = parallelism > 1 ? executor : null;
+        this.parallelism = Math.max(1, parallelism);
+        window = this.executor == null ? null : new char[this.parallelism * CHUNK_SIZE];
+    }
+
+    /**
+     * Imports text that is already in memory, such as the text entered in the ElementListDialog
+     * @param text is the text
+     * @param progress is the Progress
+     * @return the number of new elements added
+     */
+    public int importText(CharSequence text, Progress progress) {
+        String s = text.toString();
+        char[] chunk = new char[Math.min(CHUNK_SIZE, s.length())];
+        for (int start = 0; start < s.length(); start += chunk.length) {
+            if (progress.isCancelled()) return finish(false);
+            int end = Math.min(s.length(), start + chunk.length);
+            s.getChars(start, end, chunk, 0);
+            feed(chunk, 0, end - start);
+            progress.onProgress((int) ((long) end * 100 / s.length()));
+        }
+        return finish(true);
+    }
+
+    /**
+     * Imports UTF-8 text from a channel, such as a file, replacing malformed bytes
+     * @param channel is the ReadableByteChannel, which is not closed
+     * @param size is the number of bytes in the channel, or a negative number if it is unknown
+     * @param progress is the Progress
+     * @return the number of new elements added
+     * @throws IOException if the channel cannot be read
+     */
+    public int importChannel(ReadableByteChannel channel, long size, Progress progress) throws IOException {
+        IoThreadCheck.check();
+        CharsetDecoder decoder = Charset.forName("UTF-8").newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer bytes = ByteBuffer.allocate(CHUNK_SIZE);
+        CharBuffer chars = CharBuffer.allocate(CHUNK_SIZE);
+        long read = 0;
+        int n;
+        while ((n = channel.read(bytes)) >= 0) {
+            if (progress.isCancelled()) return finish(false);
+            read += n;
+            bytes.flip();
+            decoder.decode(bytes, chars, false);
+            feed(chars);
+            bytes.compact(); //keeps the bytes of a character split between two chunks
+            if (size > 0) progress.onProgress((int) (Math.min(read, size) * 100 / size));
+        }
+        bytes.flip();
+        decoder.decode(bytes, chars, true);
+        decoder.flush(chars);
+        feed(chars);
+        return finish(true);
+    }
+
+    /**
+     * Collects an element into the current batch, adding the batch to the store once it is full
+     * @param element is the element
+     */
+    @Override
+    public void onElement(String element) {
+        batch.add(element);
+        if (batch.size() >= BATCH_SIZE) flush();
+    }
+
+    /**
+     * Gets the number of new elements added to the store so far
+     * @return the number of elements
+     */
+    public int getAdded() {
+        return added;
+    }
+
+    private void feed(CharBuffer chars) {
+        chars.flip();
+        feed(chars.array(), chars.arrayOffset() + chars.position(), chars.remaining());
+        chars.clear();
+    }
+
+    /**
+     * Segments the next chunk of the text, or collects it into the window when importing in parallel
+     * @param chars contains the chunk
+     * @param offset is the index of the first character of the chunk
+     * @param length is the number of characters in the chunk
+     */
+    private void feed(char[] chars, int offset, int length) {
+        if (window == null) {
+            segmenter.feed(chars, offset, length);
+            return;
+        }
+        while (length > 0) {
+            int n = Math.min(length, window.length - windowLength);
+            System.arraycopy(chars, offset, window, windowLength, n);
+            windowLength += n;
+            offset += n;
+            length -= n;
+            if (windowLength == window.length) segmentWindow(false);
+        }
+    }
+
+    /**
+     * Ends the import, adding the elements that are left
+     * @param complete is whether the whole text was read, in which case the last element is kept
+     * @return the number of new elements added
+     */
+    private int finish(boolean complete) {
+        if (complete) {
+            if (window != null) segmentWindow(true);
+            segmenter.finish();
+        }
+        flush();
+        return added;
+    }
+
+    /**
+     * Segments the window in pieces on the executor and passes their elements on in order
+     * The text before the first boundary continues the element the segmenter was reading, so it is
+     * segmented on the calling thread; the text after the last boundary stays in the window for the next
+     * one, unless it is the end of the text
+     * @param last is whether the window ends the text
+     */
+    private void segmentWindow(boolean last) {
+        int first = nextBoundary(window, 0, windowLength);
+        if (first < 0) {
+            segmenter.feed(window, 0, windowLength);
+            windowLength = 0;
+            return;
+        }
+        segmenter.feed(window, 0, first);
+        int pieceLength = Math.max(1, (windowLength - first) / parallelism);
+        List<Future<Set<String>>> pieces = new ArrayList<>(parallelism + 1);
+        int start = first;
+        while (start < windowLength) {
+            int end = nextBoundary(window, Math.min(windowLength, start + pieceLength), windowLength);
+            if (end < 0) {
+                if (!last) break;
+                end = windowLength;
+            }
+            pieces.add(executor.submit(new PieceTask(window, start, end - start, wsState)));
+            start = end;
+        }
+        //the pieces are merged in order, so the store is written in the same batches as by a sequential import
+        for (Future<Set<String>> piece : pieces) {
+            for (String element : await(piece)) {
+                onElement(element);
+            }
+        }
+        windowLength -= start;
+        System.arraycopy(window, start, window, 0, windowLength);
+    }
+
+    /**
+     * Finds the first index at which the segmenter would start over as if the text began there
+     * @param chars contains the text
+     * @param from is the index the search starts at
+     * @param to is the index the search ends at
+     * @return the index after the whitespace that ends a word or the blank line that ends a sentence, or -1 if there is none
+     */
+    private int nextBoundary(char[] chars, int from, int to) {
+        int newlines = 0;
+        for (int i = from; i < to; i++) {
+            char c = chars[i];
+            if (!Character.isWhitespace(c)) newlines = 0;
+            else if (!wsState) return i + 1;
+            else if (c == '\n' && ++newlines == 2) return i + 1;
+        }
+        return -1;
+    }
+
+    private static Set<String> await(Future<Set<String>> piece) {
+        try {
+            return piece.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Import interrupted", e);
+        }
+    }
+
+    /**
+     * This Callable segments a piece of a window into a set of normalized elements without duplicates
+     */
+    private static class PieceTask implements Callable<Set<String>>, ElementSegmenter.ElementSink {
+
+        private final char[] chars; //window the piece is in, which is not changed until the piece is segmented
+        private final int offset; //index of the first character of the piece
+        private final int length; //number of characters in the piece
+        private final boolean wsState; //whether the text is split into words or sentences (false = words, true = sentences)
+        private final Set<String> elements = new LinkedHashSet<>(); //normalized elements in the order they first appear
+
+        PieceTask(char[] chars, int offset, int length, boolean wsState) {
+            this.chars = chars;
+            this.offset = offset;
+            this.length = length;
+            this.wsState = wsState;
+        }
+
+        @Override
+        public Set<String> call() {
+            ElementSegmenter pieceSegmenter = new ElementSegmenter(wsState, this);
+            pieceSegmenter.feed(chars, offset, length);
+            pieceSegmenter.finish();
+            return elements;
+        }
+
+        @Override
+        public void onElement(String element) {
+            String normalized = ElementStore.normalize(element);
+            if (!normalized.isEmpty()) elements.add(normalized);
+        }
+    }
+
+    private void flush() {
+        if (batch.isEmpty()) return;
+        added += store.addAll(batch);
+        batch.clear();
+    }
+}
@@ -1,6 +1,8 @@
 package com.example.android.readfast;
 
 import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
 import android.support.v7.widget.RecyclerView;
 import android.view.LayoutInflater;
 import android.view.View;
@@ -9,16 +11,30 @@ import android.widget.CheckBox;
 import android.widget.CompoundButton;
 import android.widget.TextView;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 /**
  * This class functions as an adapter to populate the RecyclerView with Views and provides
  * access and functionality to the Views
+ * Elements are read through an ElementPager a page at a time, so the adapter never holds the whole list,
+ * and the check boxes show the slots selected in an ElementSelection
+ * New slots are diffed against the shown ones on a background thread, so an edit only notifies the
+ * RecyclerView about the rows that actually changed
  */
 public class ElementListAdapter extends RecyclerView.Adapter<ElementListAdapter.ElementListAdapterViewHolder> {
 
-    private List<String> elements;
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L; //starting value of the FNV-1a hash used for stable ids
+    private static final long FNV_PRIME = 0x100000001b3L; //multiplier of the FNV-1a hash used for stable ids
+    private static final int MAX_UPDATES = 1000; //most range changes dispatched before the whole list is replaced instead
+    private static final Object REBIND = new Object(); //payload that rebinds rows in place, without a change animation
+
+    private static final ExecutorService diffExecutor = Executors.newSingleThreadExecutor(); //thread that reads and diffs new slots
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper()); //posts finished diffs to the UI thread
+
+    private ElementPager pager; //pages of the elements, null until set
+    private ElementSelection selection; //selected elements, null until set
+    private int refreshGeneration; //incremented on every refresh() so that only the latest diff is applied
     private final ListItemListener listener;
 
     /**
@@ -27,14 +43,22 @@ public class ElementListAdapter extends RecyclerView.Adapter<ElementListAdapter.
      */
     public ElementListAdapter(ListItemListener listener) {
         this.listener = listener;
+        setHasStableIds(true);
+    }
+
+    /**
+     * This interface provides the slots to be shown, it is called on a background thread
+     */
+    public interface SlotSource {
+        int[] getSlots();
     }
 
     /**
      * This interface defines methods for when the ListItem is clicked, long clicked and or checkboxed
      */
     public interface ListItemListener {
-        void onListItemLongClick(String word, View v);
-        void onListItemCheckedChanged(String word, boolean add);
+        void onListItemLongClick(String word, int position, View v);
+        void onListItemCheckedChanged(int position, boolean add);
     }
 
     /**
@@ -43,6 +67,7 @@ public class ElementListAdapter extends RecyclerView.Adapter<ElementListAdapter.
     public class ElementListAdapterViewHolder extends RecyclerView.ViewHolder implements View.OnLongClickListener {
         public final TextView elementTextView; //TextView that will contain the element
         public final CheckBox elementCheckBox; //Checkbox for selecting multiple elements at once
+        private boolean binding; //whether the check box is being set by onBindViewHolder rather than the user
 
         /**
          * Constructs an ElementListAdapterViewHolder in View v
@@ -57,8 +82,8 @@ public class ElementListAdapter extends RecyclerView.Adapter<ElementListAdapter.
             elementCheckBox.setOnCheckedChangeListener(new CompoundButton.OnCheckedChangeListener() {
                 @Override
                 public void onCheckedChanged(CompoundButton compoundButton, boolean b) {
-                    String str = elementTextView.getText().toString();
-                    listener.onListItemCheckedChanged(str, b);
+                    int position = getAdapterPosition();
+                    if (!binding && position != RecyclerView.NO_POSITION) listener.onListItemCheckedChanged(position, b);
                 }
             }); //sets onCheckedChangedListener to this ViewHolder
             v.setOnLongClickListener(this); //sets OnLongClickListener to this ViewHolder
@@ -71,8 +96,10 @@ public class ElementListAdapter extends RecyclerView.Adapter<ElementListAdapter.
          */
         @Override
         public boolean onLongClick(View view) {
+            int position = getAdapterPosition();
+            if (position == RecyclerView.NO_POSITION) return false;
             String text = elementTextView.getText().toString();
-            listener.onListItemLongClick(text, view);
+            listener.onListItemLongClick(text, position, view);
             return true;
         }
     }
@@ -98,31 +125,106 @@ public class ElementListAdapter extends RecyclerView.Adapter<ElementListAdapter.
      */
     @Override
     public int getItemCount() {
-        if (elements == null) return 0;
-        return elements.size();
+        return pager == null ? 0 : pager.size();
+    }
+
+    /**
+     * Gets a stable id for an element by hashing it, elements are unique so the id follows the element
+     * @param position is the position of the element
+     * @return the 64 bit FNV-1a hash of the element
+     */
+    @Override
+    public long getItemId(int position) {
+        String element = pager.get(position);
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < element.length(); i++) {
+            hash ^= element.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        return hash;
     }
 
     /**
      * Overrides onBindViewHolder
-     * Sets the TextView of a ViewHolder to the element at the same position
+     * Sets the TextView of a ViewHolder to the element at the same position and checks its
+     * CheckBox if the element is selected
      * @param holder
      * @param position
      */
     @Override
     public void onBindViewHolder(ElementListAdapterViewHolder holder, int position) {
-        String element = elements.get(position);
+        String element = pager.get(position);
         holder.elementTextView.setText(element);
+        holder.binding = true;
+        holder.elementCheckBox.setChecked(selection != null && selection.isSelected(pager.getSlot(position)));
+        holder.binding = false;
     }
 
     /**
-     * Sets the elements based on List of strings
-     * @param elementList is the List
+     * Sets the ElementPager the elements are read from
+     * refresh() must be called whenever the elements change
+     * @param pager is the ElementPager
      */
-    public void setElements(List<String> elementList){
-        if (elementList != null) {
-            elements = new ArrayList<>();
-            elements.addAll(elementList);
-        }
+    public void setPager(ElementPager pager) {
+        this.pager = pager;
+        notifyDataSetChanged();
+    }
+
+    /**
+     * Sets the ElementSelection the check boxes are shown from
+     * @param selection is the ElementSelection
+     */
+    public void setSelection(ElementSelection selection) {
+        this.selection = selection;
         notifyDataSetChanged();
     }
+
+    /**
+     * Reads new slots from a SlotSource and diffs them against the shown slots on a background thread,
+     * then shows them and notifies the RecyclerView of the rows inserted and removed
+     * Rows whose slot was reused by another element are rebound in place
+     * Reordered slots or very large changes replace the whole list instead
+     * @param source is the SlotSource, called on a background thread
+     */
+    public void refresh(final SlotSource source) {
+        if (pager == null) return;
+        final int generation = ++refreshGeneration;
+        final int[] oldSlots = pager.getSlots();
+        final int[] oldVersions = pager.getVersions();
+        diffExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                final int[] newSlots = source.getSlots();
+                final int[] newVersions = pager.readVersions(newSlots);
+                final SlotDiff diff = SlotDiff.calculate(oldSlots, oldVersions, newSlots, newVersions);
+                mainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation != refreshGeneration) return; //a newer refresh was started
+                        pager.setSlots(newSlots, newVersions);
+                        if (diff.isReordered() || diff.getUpdateCount() > MAX_UPDATES) {
+                            notifyDataSetChanged();
+                            return;
+                        }
+                        diff.dispatchTo(new SlotDiff.Callback() {
+                            @Override
+                            public void onInserted(int position, int count) {
+                                notifyItemRangeInserted(position, count);
+                            }
+
+                            @Override
+                            public void onRemoved(int position, int count) {
+                                notifyItemRangeRemoved(position, count);
+                            }
+
+                            @Override
+                            public void onChanged(int position, int count) {
+                                notifyItemRangeChanged(position, count, REBIND);
+                            }
+                        });
+                    }
+                });
+            }
+        });
+    }
 }
\ No newline at end of file
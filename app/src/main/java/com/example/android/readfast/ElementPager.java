@@ -0,0 +1,181 @@
+package com.example.android.readfast;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This class pages the elements of an ElementStore for the element list editor. Elements are read
+ * from the store in fixed-size pages by position; the pages around the last requested position are
+ * prefetched on a background thread and pages far away from it are evicted, so scrolling through a
+ * very large list only ever keeps a few pages in memory.
+ * The pager shows a snapshot of slots and their versions, such as every slot of the store or the results
+ * of a search, which ElementListAdapter replaces after diffing it against the new slots in the background.
+ * A page that has not been prefetched yet is read on the calling thread, which only costs reading
+ * PAGE_SIZE elements from the mapped element file.
+ */
+public class ElementPager {
+
+    /**
+     * Number of elements in a page
+     */
+    public static final int PAGE_SIZE = 64;
+
+    private static final int PREFETCH_PAGES = 2; //number of pages prefetched on either side of the requested page
+    private static final int KEEP_PAGES = PREFETCH_PAGES + 2; //pages further than this from the requested page are evicted
+
+    private static final ExecutorService pageExecutor = Executors.newSingleThreadExecutor(); //thread that prefetches pages
+
+    private final ElementStore store; //store the elements are read from
+    private final Map<Integer, String[]> pages; //cached pages by page number
+    private final Set<Integer> loading; //pages queued for prefetching
+    private int[] slots; //slots of the elements shown, in the order they are shown, never modified
+    private int[] slotVersions; //versions of the slots shown, never modified
+    private int version; //incremented on setSlots() so that pages read before it are discarded
+
+    /**
+     * Constructs an ElementPager over an ElementStore, which shows no elements until setSlots() is called
+     * @param store is the ElementStore
+     */
+    public ElementPager(ElementStore store) {
+        this.store = store;
+        pages = new HashMap<>();
+        loading = new HashSet<>();
+        slots = new int[0];
+        slotVersions = new int[0];
+    }
+
+    /**
+     * Gets the number of elements, which only changes when the slots are set
+     * @return the number of elements
+     */
+    public synchronized int size() {
+        return slots.length;
+    }
+
+    /**
+     * Gets the element at a position, reading its page if it is not cached and prefetching the pages around it
+     * @param position is the position of the element
+     * @return the element, or an empty String if the store has changed and the position no longer exists
+     */
+    public String get(int position) {
+        int page = position / PAGE_SIZE;
+        String[] elements;
+        int currentVersion;
+        int[] currentSlots;
+        synchronized (this) {
+            elements = pages.get(page);
+            currentVersion = version;
+            currentSlots = slots;
+        }
+        if (elements == null) {
+            elements = readPage(page, currentSlots);
+            putPage(page, elements, currentVersion);
+        }
+        prefetch(page);
+        int i = position - page * PAGE_SIZE;
+        return i < elements.length ? elements[i] : "";
+    }
+
+    /**
+     * Gets the slot of the element at a position
+     * @param position is the position of the element
+     * @return the slot
+     */
+    public synchronized int getSlot(int position) {
+        return slots[position];
+    }
+
+    /**
+     * Gets the slots of every element shown
+     * @return the slots, in the order they are shown, which must not be modified
+     */
+    public synchronized int[] getSlots() {
+        return slots;
+    }
+
+    /**
+     * Gets the versions of the slots shown
+     * @return the versions, in the same order as getSlots(), which must not be modified
+     */
+    public synchronized int[] getVersions() {
+        return slotVersions;
+    }
+
+    /**
+     * Reads the current versions of some slots from the store
+     * @param newSlots are the slots
+     * @return the versions, in the same order
+     */
+    public int[] readVersions(int[] newSlots) {
+        return store.getVersions(newSlots);
+    }
+
+    /**
+     * Replaces the slots of the elements shown and discards every cached page
+     * @param newSlots are the slots, in the order they are shown, which must not be modified afterwards
+     * @param newVersions are the versions of the slots, which must not be modified afterwards
+     */
+    public synchronized void setSlots(int[] newSlots, int[] newVersions) {
+        slots = newSlots;
+        slotVersions = newVersions;
+        pages.clear();
+        loading.clear();
+        version++;
+    }
+
+    /**
+     * Evicts the pages far away from a page and queues the pages around it that are not cached yet
+     * @param page is the page that was requested
+     */
+    private synchronized void prefetch(int page) {
+        for (Iterator<Integer> it = pages.keySet().iterator(); it.hasNext(); ) {
+            if (Math.abs(it.next() - page) > KEEP_PAGES) it.remove();
+        }
+        for (Iterator<Integer> it = loading.iterator(); it.hasNext(); ) {
+            if (Math.abs(it.next() - page) > KEEP_PAGES) it.remove();
+        }
+        int lastPage = (slots.length - 1) / PAGE_SIZE;
+        for (int p = Math.max(0, page - PREFETCH_PAGES); p <= Math.min(lastPage, page + PREFETCH_PAGES); p++) {
+            if (pages.containsKey(p) || !loading.add(p)) continue;
+            final int prefetchPage = p;
+            final int prefetchVersion = version;
+            final int[] prefetchSlots = slots;
+            pageExecutor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    synchronized (ElementPager.this) {
+                        //skip pages that were evicted or invalidated while queued
+                        if (prefetchVersion != version || !loading.contains(prefetchPage)) return;
+                    }
+                    putPage(prefetchPage, readPage(prefetchPage, prefetchSlots), prefetchVersion);
+                }
+            });
+        }
+    }
+
+    /**
+     * Reads the elements of a page from the store
+     * @param page is the page number
+     * @param pageSlots are the slots the page is read through
+     * @return the elements of the page
+     */
+    private String[] readPage(int page, int[] pageSlots) {
+        return store.getElementsOfSlots(pageSlots, page * PAGE_SIZE, PAGE_SIZE);
+    }
+
+    /**
+     * Caches a page unless the pager was invalidated since the page was read
+     * @param page is the page number
+     * @param elements are the elements of the page
+     * @param pageVersion is the version of the pager when the page was read
+     */
+    private synchronized void putPage(int page, String[] elements, int pageVersion) {
+        loading.remove(page);
+        if (pageVersion == version) pages.put(page, elements);
+    }
+}
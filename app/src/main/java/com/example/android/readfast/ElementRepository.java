@@ -0,0 +1,201 @@
+package com.example.android.readfast;
+
+import android.content.Context;
+import android.os.Handler;
+import android.os.Looper;
+
+import java.io.File;
+import java.util.BitSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * This class is the single way the Activities reach the element lists. Every operation that touches
+ * the file system runs on a dedicated I/O thread and delivers its result to a Callback on the main
+ * thread, so loading and editing element lists never blocks the UI.
+ * Opened lists are kept in the ElementCache of the Application, so a list is only read from disk
+ * the first time it is used in a process.
+ */
+public class ElementRepository {
+
+    /**
+     * This interface receives the result of an operation on the main thread
+     * @param <T> is the type of the result
+     */
+    public interface Callback<T> {
+        void onResult(T result);
+    }
+
+    private static final String ELEMENT_LIST_DIR = "element_lists"; //directory containing the element lists
+    private static final String WORDS_LIST = "words_list"; //base name of the words list
+    private static final String SENTENCES_LIST = "sentences_list"; //base name of the sentences list
+
+    private static final ExecutorService ioExecutor = Executors.newSingleThreadExecutor(); //thread every file operation runs on
+    private static final int SEGMENT_THREADS = Runtime.getRuntime().availableProcessors(); //number of threads imports are segmented on
+    private static final ExecutorService segmentExecutor = Executors.newFixedThreadPool(SEGMENT_THREADS); //threads that segment imported text, they never touch files
+    private static final Handler mainHandler = new Handler(Looper.getMainLooper()); //delivers results to the main thread
+
+    private final Context context; //application context used to find the element list directory
+    private final ElementCache cache; //process wide cache of opened element lists
+    private final boolean wsState; //whether the repository reads the words or the sentences list (false = words, true = sentences)
+
+    /**
+     * Constructs an ElementRepository for the words or the sentences list
+     * @param context is a Context, only its application context is kept
+     * @param wsState is whether to use the words or the sentences list (false = words, true = sentences)
+     */
+    public ElementRepository(Context context, boolean wsState) {
+        this.context = context.getApplicationContext();
+        cache = ((ReadFastApplication) this.context).getElementCache();
+        this.wsState = wsState;
+    }
+
+    /**
+     * Gets the executor that segments and normalizes imported text in parallel for an ElementImporter
+     * @return the segmenting ExecutorService
+     */
+    public static ExecutorService getSegmentExecutor() {
+        return segmentExecutor;
+    }
+
+    /**
+     * Gets the number of threads of the segmenting executor
+     * @return the number of threads
+     */
+    public static int getSegmentThreads() {
+        return SEGMENT_THREADS;
+    }
+
+    /**
+     * Gets the executor every file operation runs on, for AsyncTasks that use the element lists
+     * @return the I/O Executor
+     */
+    public static Executor getIoExecutor() {
+        return ioExecutor;
+    }
+
+    /**
+     * Gets the version stamp of the element list, which changes whenever the list changes
+     * @return the version stamp
+     */
+    public long getVersion() {
+        return cache.getVersion(wsState);
+    }
+
+    /**
+     * Gets the cached search index of the element list
+     * @return the ElementSearchIndex, or null if it has not been built in this process
+     */
+    public ElementSearchIndex getSearchIndex() {
+        return cache.getSearchIndex(wsState);
+    }
+
+    /**
+     * Caches the search index of the element list, which must already be registered with its store
+     * @param searchIndex is the ElementSearchIndex
+     */
+    public void putSearchIndex(ElementSearchIndex searchIndex) {
+        cache.putSearchIndex(wsState, searchIndex);
+    }
+
+    /**
+     * Opens the ElementStore of the element list, or gets it from the cache without any disk access
+     * @param callback receives the ElementStore
+     */
+    public void load(final Callback<ElementStore> callback) {
+        ElementStore cached = cache.getStore(wsState);
+        if (cached != null) {
+            //deliver on the next loop like an opened store would be, so callers see the same ordering
+            deliver(callback, cached);
+            return;
+        }
+        ioExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                deliver(callback, getStore());
+            }
+        });
+    }
+
+    /**
+     * Removes a single element
+     * @param element is the element to be removed
+     * @param callback receives true if the element was removed, may be null
+     */
+    public void remove(final String element, final Callback<Boolean> callback) {
+        ioExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                deliver(callback, getStore().remove(element));
+            }
+        });
+    }
+
+    /**
+     * Removes every element in a set of slots in one pass
+     * @param slots has the bit of every slot to be emptied set
+     * @param callback receives the number of elements removed, may be null
+     */
+    public void removeAll(final BitSet slots, final Callback<Integer> callback) {
+        ioExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                deliver(callback, getStore().removeAll(slots));
+            }
+        });
+    }
+
+    /**
+     * Removes every element and empties the element file
+     * @param callback is notified once the list is empty, may be null
+     */
+    public void clear(final Callback<Void> callback) {
+        ioExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                getStore().clear();
+                deliver(callback, null);
+            }
+        });
+    }
+
+    /**
+     * Gets the ElementStore from the cache, opening and caching it the first time in this process
+     * This method must only be run on the I/O thread
+     * @return the ElementStore
+     */
+    private ElementStore getStore() {
+        ElementStore store = cache.getStore(wsState);
+        if (store == null) {
+            store = ElementStore.open(getElementListPath());
+            cache.putStore(wsState, store);
+        }
+        return store;
+    }
+
+    /**
+     * Gets the path of the element list without a file extension, creating its directory if needed
+     * This method must only be run on the I/O thread
+     * @return the path
+     */
+    private File getElementListPath() {
+        File dir = context.getDir(ELEMENT_LIST_DIR, Context.MODE_PRIVATE);
+        return new File(dir, wsState ? SENTENCES_LIST : WORDS_LIST);
+    }
+
+    /**
+     * Passes a result to a Callback on the main thread
+     * @param callback is the Callback, or null if nobody is waiting for the result
+     * @param result is the result
+     */
+    private static <T> void deliver(final Callback<T> callback, final T result) {
+        if (callback == null) return;
+        mainHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                callback.onResult(result);
+            }
+        });
+    }
+}
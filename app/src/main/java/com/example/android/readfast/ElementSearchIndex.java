@@ -0,0 +1,377 @@
+package com.example.android.readfast;
+
+import java.util.Arrays;
+
+/**
+ * This class is an in-memory search index over the slots of an ElementStore, kept up to date as the
+ * store's ChangeListener. Words are found by prefix in a trie and sentences by substring in a trigram index.
+ */
+public class ElementSearchIndex implements ElementStore.ChangeListener {
+
+    /**
+     * Shortest query that can be searched in a sentence index
+     */
+    public static final int MIN_SENTENCE_QUERY = 3;
+
+    private static final int ROOT = 0; //trie node of the empty prefix
+    private static final int NONE = -1; //trie link or slot that does not exist
+    private static final long NO_TRIGRAM = -1; //key of an unused entry in the trigram table, trigrams only use the low 48 bits
+
+    private final ElementStore store; //store the index is built from, used to check sentence candidates
+    private final boolean wsState; //whether the index contains words or sentences (false = words, true = sentences)
+
+    //prefix trie of words, every node is an index into these arrays and children are kept in alphabetical order
+    private char[] labels; //character leading to every node
+    private int[] firstChild; //first child of every node
+    private int[] nextSibling; //next sibling of every node
+    private int[] nodeSlots; //slot of the word ending at every node, NONE if no word ends there
+    private int nodeCount; //number of trie nodes
+
+    //trigram inverted index of sentences, an open addressing hash table from trigram to postings
+    private long[] trigrams; //trigram of every table entry, NO_TRIGRAM if unused
+    private Postings[] postings; //slots of the sentences containing the trigram of every table entry
+    private int trigramCount; //number of used table entries
+
+    /**
+     * This class is a growable array of slots that only appends
+     * Removed slots are kept aside and subtracted in one pass when the postings are next searched, so adding
+     * or removing a slot costs constant time even during bulk imports and deletes
+     */
+    private static class Postings {
+        int[] slots = new int[4]; //the slots, sorted and without removed slots only while normalized
+        int size; //number of slots
+        int[] removed = new int[0]; //slots removed since the postings were last normalized
+        int removedCount; //number of removed slots
+        boolean normalized = true; //whether slots is sorted and contains no removed slots
+
+        void add(int slot) {
+            if (size == slots.length) slots = Arrays.copyOf(slots, size * 2);
+            if (size > 0 && slots[size - 1] >= slot) normalized = false;
+            slots[size++] = slot;
+        }
+
+        void remove(int slot) {
+            if (removedCount == removed.length) removed = Arrays.copyOf(removed, Math.max(4, removedCount * 2));
+            removed[removedCount++] = slot;
+            normalized = false;
+            if (removedCount * 2 > size) normalize(); //keeps the memory of removed slots bounded
+        }
+
+        /**
+         * Gets the number of slots once the removed ones are subtracted
+         */
+        int count() {
+            return size - removedCount;
+        }
+
+        /**
+         * Sorts the slots and subtracts the removed ones
+         * A slot is removed once for every time it was added, so a reused slot that was added again is kept
+         */
+        void normalize() {
+            if (normalized) return;
+            Arrays.sort(slots, 0, size);
+            Arrays.sort(removed, 0, removedCount);
+            int kept = 0;
+            int r = 0;
+            for (int i = 0; i < size; i++) {
+                while (r < removedCount && removed[r] < slots[i]) r++;
+                if (r < removedCount && removed[r] == slots[i]) r++;
+                else slots[kept++] = slots[i];
+            }
+            size = kept;
+            removedCount = 0;
+            if (removed.length > 4) removed = new int[0];
+            normalized = true;
+        }
+    }
+
+    /**
+     * Constructs an empty ElementSearchIndex, which is filled by registering it with store.addChangeListener()
+     * @param store is the ElementStore the index is built from
+     * @param wsState is whether the index contains words or sentences (false = words, true = sentences)
+     */
+    public ElementSearchIndex(ElementStore store, boolean wsState) {
+        this.store = store;
+        this.wsState = wsState;
+        onElementsCleared();
+    }
+
+    /**
+     * Finds the slots of every element matching a query
+     * Words match if they start with the query, sentences match if they contain it
+     * @param query is the normalized query
+     * @return the matching slots, or null if the query is empty or too short to be searched
+     */
+    public int[] search(String query) {
+        return search(query, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Finds the slots of the first elements matching a query, stopping once enough are found
+     * @param query is the normalized query
+     * @param limit is the largest number of slots returned
+     * @return the matching slots, or null if the query is empty or too short to be searched
+     */
+    public int[] search(String query, int limit) {
+        if (query.isEmpty() || (wsState && query.length() < MIN_SENTENCE_QUERY)) return null;
+        if (!wsState) return searchWords(query, limit);
+        int[] candidates = findCandidates(query);
+        //a query of a single trigram matches exactly, longer ones are checked outside of this index's lock
+        //because the store calls into the index while holding its own lock
+        if (query.length() == MIN_SENTENCE_QUERY) return candidates.length > limit ? Arrays.copyOf(candidates, limit) : candidates;
+        int count = 0;
+        //candidates are read a page at a time, so a common query stops reading once enough sentences match
+        for (int start = 0; start < candidates.length && count < limit; start += ElementPager.PAGE_SIZE) {
+            String[] texts = store.getElementsOfSlots(candidates, start, ElementPager.PAGE_SIZE);
+            for (int i = 0; i < texts.length && count < limit; i++) {
+                if (texts[i].contains(query)) candidates[count++] = candidates[start + i];
+            }
+        }
+        return Arrays.copyOf(candidates, count);
+    }
+
+    /**
+     * Adds an element to the index
+     * @param slot is the slot of the element
+     * @param element is the normalized element
+     */
+    @Override
+    public synchronized void onElementAdded(int slot, String element) {
+        if (!wsState) {
+            int node = ROOT;
+            for (int i = 0; i < element.length(); i++) {
+                node = child(node, element.charAt(i), true);
+            }
+            nodeSlots[node] = slot;
+            return;
+        }
+        for (long trigram : distinctTrigrams(element)) {
+            int entry = findTrigram(trigram, true);
+            if (postings[entry] == null) postings[entry] = new Postings();
+            postings[entry].add(slot);
+        }
+    }
+
+    /**
+     * Removes an element from the index
+     * @param slot is the slot of the element
+     * @param element is the normalized element
+     */
+    @Override
+    public synchronized void onElementRemoved(int slot, String element) {
+        if (!wsState) {
+            //the nodes of the word are left in place, they are reused if the word or a longer one is added
+            int node = ROOT;
+            for (int i = 0; i < element.length() && node != NONE; i++) {
+                node = child(node, element.charAt(i), false);
+            }
+            if (node != NONE && nodeSlots[node] == slot) nodeSlots[node] = NONE;
+            return;
+        }
+        //trigrams left without any slots keep their entry, since removing from a linear probing table breaks its chains
+        for (long trigram : distinctTrigrams(element)) {
+            int entry = findTrigram(trigram, false);
+            if (entry != NONE) postings[entry].remove(slot);
+        }
+    }
+
+    /**
+     * Empties the index
+     */
+    @Override
+    public synchronized void onElementsCleared() {
+        if (!wsState) {
+            labels = new char[64];
+            firstChild = new int[64];
+            nextSibling = new int[64];
+            nodeSlots = new int[64];
+            nodeCount = 0;
+            newNode((char) 0);
+        } else {
+            trigrams = new long[1024];
+            Arrays.fill(trigrams, NO_TRIGRAM);
+            postings = new Postings[1024];
+            trigramCount = 0;
+        }
+    }
+
+    /**
+     * Collects the slots of the first words in the subtree of the query's node, in alphabetical order
+     */
+    private synchronized int[] searchWords(String query, int limit) {
+        int node = ROOT;
+        for (int i = 0; i < query.length() && node != NONE; i++) {
+            node = child(node, query.charAt(i), false);
+        }
+        if (node == NONE) return new int[0];
+        int[] result = new int[16];
+        int count = 0;
+        //depth first traversal with an explicit stack, visiting a node before its children
+        int[] stack = new int[64];
+        int top = 0;
+        stack[top++] = node;
+        while (top > 0 && count < limit) {
+            int n = stack[--top];
+            if (nodeSlots[n] != NONE) {
+                if (count == result.length) result = Arrays.copyOf(result, count * 2);
+                result[count++] = nodeSlots[n];
+            }
+            //the sibling is pushed before the child, so the whole subtree of the child is visited first
+            if (n != node && nextSibling[n] != NONE) {
+                if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+                stack[top++] = nextSibling[n];
+            }
+            if (firstChild[n] != NONE) {
+                if (top == stack.length) stack = Arrays.copyOf(stack, top * 2);
+                stack[top++] = firstChild[n];
+            }
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Intersects the postings of the query's two rarest trigrams
+     * @return the slots of the sentences containing both trigrams
+     */
+    private synchronized int[] findCandidates(String query) {
+        Postings rarest = null;
+        Postings second = null;
+        for (int i = 0; i + 3 <= query.length(); i++) {
+            int entry = findTrigram(trigram(query, i), false);
+            if (entry == NONE) return new int[0];
+            Postings p = postings[entry];
+            if (rarest == null || p.count() < rarest.count()) {
+                second = rarest;
+                rarest = p;
+            } else if (second == null || p.count() < second.count()) {
+                second = p;
+            }
+        }
+        rarest.normalize();
+        if (second != null) second.normalize();
+        int[] result = new int[rarest.size];
+        int count = 0;
+        int j = 0;
+        for (int i = 0; i < rarest.size; i++) {
+            int slot = rarest.slots[i];
+            if (second != null && second != rarest) {
+                while (j < second.size && second.slots[j] < slot) j++;
+                if (j == second.size) break;
+                if (second.slots[j] != slot) continue;
+            }
+            result[count++] = slot;
+        }
+        return Arrays.copyOf(result, count);
+    }
+
+    /**
+     * Finds the entry of a trigram in the trigram table, doubling the table when it becomes half full
+     * @param trigram is the trigram
+     * @param create is whether a missing trigram is given a new entry
+     * @return the entry, or NONE if the trigram is missing and create is false
+     */
+    private int findTrigram(long trigram, boolean create) {
+        if (create && (trigramCount + 1) * 2 > trigrams.length) {
+            long[] oldTrigrams = trigrams;
+            Postings[] oldPostings = postings;
+            trigrams = new long[oldTrigrams.length * 2];
+            Arrays.fill(trigrams, NO_TRIGRAM);
+            postings = new Postings[oldTrigrams.length * 2];
+            for (int i = 0; i < oldTrigrams.length; i++) {
+                if (oldTrigrams[i] == NO_TRIGRAM) continue;
+                int entry = probe(oldTrigrams[i]);
+                trigrams[entry] = oldTrigrams[i];
+                postings[entry] = oldPostings[i];
+            }
+        }
+        int entry = probe(trigram);
+        if (trigrams[entry] == trigram) return entry;
+        if (!create) return NONE;
+        trigrams[entry] = trigram;
+        trigramCount++;
+        return entry;
+    }
+
+    /**
+     * Finds the entry holding a trigram, or the unused entry where it would be inserted
+     */
+    private int probe(long trigram) {
+        int mask = trigrams.length - 1;
+        long h = trigram * 0x9e3779b97f4a7c15L;
+        int i = (int) (h >>> 40) & mask;
+        while (trigrams[i] != NO_TRIGRAM && trigrams[i] != trigram) {
+            i = (i + 1) & mask;
+        }
+        return i;
+    }
+
+    /**
+     * Finds the child of a trie node with the given label, keeping children in alphabetical order
+     * @param node is the parent node
+     * @param label is the label of the child
+     * @param create is whether a missing child is created
+     * @return the child, or NONE if it does not exist and create is false
+     */
+    private int child(int node, char label, boolean create) {
+        int prev = NONE;
+        int c = firstChild[node];
+        while (c != NONE && labels[c] < label) {
+            prev = c;
+            c = nextSibling[c];
+        }
+        if (c != NONE && labels[c] == label) return c;
+        if (!create) return NONE;
+        int created = newNode(label);
+        nextSibling[created] = c;
+        if (prev == NONE) firstChild[node] = created;
+        else nextSibling[prev] = created;
+        return created;
+    }
+
+    /**
+     * Appends a trie node without any links
+     * @param label is the character leading to the node
+     * @return the new node
+     */
+    private int newNode(char label) {
+        if (nodeCount == labels.length) {
+            int capacity = nodeCount * 2;
+            labels = Arrays.copyOf(labels, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+            nodeSlots = Arrays.copyOf(nodeSlots, capacity);
+        }
+        labels[nodeCount] = label;
+        firstChild[nodeCount] = NONE;
+        nextSibling[nodeCount] = NONE;
+        nodeSlots[nodeCount] = NONE;
+        return nodeCount++;
+    }
+
+    /**
+     * Gets every trigram of an element once, so a repeated trigram only adds the element's slot once
+     * @param element is the normalized element
+     * @return the distinct trigrams, sorted
+     */
+    private static long[] distinctTrigrams(String element) {
+        int n = Math.max(0, element.length() - 2);
+        long[] trigrams = new long[n];
+        for (int i = 0; i < n; i++) {
+            trigrams[i] = trigram(element, i);
+        }
+        Arrays.sort(trigrams);
+        int count = 0;
+        for (int i = 0; i < n; i++) {
+            if (count == 0 || trigrams[count - 1] != trigrams[i]) trigrams[count++] = trigrams[i];
+        }
+        return count == n ? trigrams : Arrays.copyOf(trigrams, count);
+    }
+
+    /**
+     * Packs the three characters starting at an index into a single key
+     */
+    private static long trigram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+}
@@ -0,0 +1,154 @@
+package com.example.android.readfast;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * This class splits text into words or sentences while the text is fed to it in chunks.
+ */
+public class ElementSegmenter {
+
+    /**
+     * This interface receives every element as soon as it ends
+     */
+    public interface ElementSink {
+        void onElement(String element);
+    }
+
+    /**
+     * This constant is the length of the longest sentence kept, longer ones do not fit on the screen
+     */
+    public static final int MAX_SENTENCE_LENGTH = 400;
+    /**
+     * This constant is the length of the longest word kept
+     */
+    public static final int MAX_WORD_LENGTH = 64;
+
+    private static final Set<String> ABBREVIATIONS = new HashSet<>(Arrays.asList(
+            "mr", "mrs", "ms", "dr", "prof", "sr", "jr", "st", "mt", "vs", "e.g", "i.e", "cf", "fig",
+            "vol", "ch", "no", "approx", "dept", "gen", "col", "capt", "lt", "sgt", "rev", "hon")); //lower case words that end in a period without ending a sentence
+    private static final String CLOSERS = "\"')]\u201D\u2019\u00BB"; //characters that close a quote or bracket after the end of a sentence
+
+    private static final int READING = 0; //inside an element
+    private static final int TERMINATED = 1; //right after the punctuation that may end a sentence
+    private static final int SPACED = 2; //after whitespace that followed the end of a sentence, waiting for the next character
+
+    private final boolean wsState; //whether the text is split into words or sentences (false = words, true = sentences)
+    private final ElementSink sink; //receives every element
+    private final int maxLength; //length of the longest element kept
+    private final StringBuilder cur = new StringBuilder(); //element being read
+    private boolean tooLong; //whether the element being read is longer than maxLength and is dropped
+    private boolean pendingSpace; //whether whitespace was read since the last character of the element
+    private int newlines; //number of line breaks in the current run of whitespace
+    private int state = READING; //where the segmenter is in relation to the end of a sentence
+    private int lastWordStart; //index in cur at which the last word of the sentence starts
+
+    /**
+     * Constructs an ElementSegmenter
+     * @param wsState is whether the text is split into words or sentences (false = words, true = sentences)
+     * @param sink is the ElementSink that receives the elements
+     */
+    public ElementSegmenter(boolean wsState, ElementSink sink) {
+        this.wsState = wsState;
+        this.sink = sink;
+        maxLength = wsState ? MAX_SENTENCE_LENGTH : MAX_WORD_LENGTH;
+    }
+
+    /**
+     * Segments the next chunk of the text
+     * @param chars contains the chunk
+     * @param offset is the index of the first character of the chunk
+     * @param length is the number of characters in the chunk
+     */
+    public void feed(char[] chars, int offset, int length) {
+        int end = offset + length;
+        for (int i = offset; i < end; i++) {
+            char c = chars[i];
+            if (wsState) feedSentence(c);
+            else feedWord(c);
+        }
+    }
+
+    /**
+     * Ends the text, passing on the element that was being read
+     */
+    public void finish() {
+        emit();
+        state = READING;
+    }
+
+    private void feedWord(char c) {
+        if (Character.isWhitespace(c)) emit();
+        else if (Character.isLetter(c)) append(c);
+    }
+
+    private void feedSentence(char c) {
+        if (c == '\uFEFF') return; //byte order mark
+        if (Character.isWhitespace(c)) {
+            if (c == '\n') newlines++;
+            if (state == TERMINATED) state = isAbbreviation() ? READING : SPACED;
+            pendingSpace = cur.length() > 0;
+            if (newlines >= 2) {
+                emit();
+                state = READING;
+            }
+            return;
+        }
+        newlines = 0;
+        if (state == TERMINATED) {
+            if (isTerminator(c) || CLOSERS.indexOf(c) >= 0) {
+                append(c);
+                return;
+            }
+            state = READING; //punctuation inside a word, such as in "3.14"
+        }
+        else if (state == SPACED) {
+            state = READING;
+            if (!Character.isLowerCase(c)) emit();
+        }
+        if (pendingSpace) {
+            append(' ');
+            lastWordStart = cur.length();
+        }
+        pendingSpace = false;
+        append(c);
+        if (isTerminator(c)) state = TERMINATED;
+    }
+
+    /**
+     * Checks whether the sentence so far ends with an abbreviation or an initial rather than the end of a sentence
+     * @return true if the last word is an abbreviation
+     */
+    private boolean isAbbreviation() {
+        int end = cur.length();
+        if (tooLong || end == 0 || cur.charAt(end - 1) != '.') return false;
+        int start = lastWordStart;
+        while (start < end && !Character.isLetterOrDigit(cur.charAt(start))) start++; //opening quotes and brackets
+        end--; //the period
+        if (end - start == 1 && Character.isUpperCase(cur.charAt(start))) return true; //an initial
+        return end > start && ABBREVIATIONS.contains(cur.substring(start, end).toLowerCase(Locale.US));
+    }
+
+    private static boolean isTerminator(char c) {
+        return c == '.' || c == '!' || c == '?';
+    }
+
+    private void append(char c) {
+        if (cur.length() >= maxLength) tooLong = true;
+        else cur.append(c);
+    }
+
+    /**
+     * Passes the element that was being read on to the sink and starts the next one
+     */
+    private void emit() {
+        if (cur.length() > 0 && !tooLong) sink.onElement(cur.toString());
+        cur.setLength(0);
+        tooLong = false;
+        pendingSpace = false;
+        newlines = 0;
+        lastWordStart = 0;
+    }
+}
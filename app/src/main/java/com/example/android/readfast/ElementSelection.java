@@ -0,0 +1,93 @@
+package com.example.android.readfast;
+
+import java.util.BitSet;
+
+/**
+ * This class keeps track of the elements checked in the element list editor by their slot,
+ * and of the anchor of a range selection.
+ */
+public class ElementSelection {
+
+    private final BitSet slots; //bit set for every selected slot
+    private int count; //number of selected slots
+    private int anchor; //position of the last element checked, or -1 if there is none
+
+    /**
+     * Constructs an empty ElementSelection
+     */
+    public ElementSelection() {
+        slots = new BitSet();
+        anchor = -1;
+    }
+
+    /**
+     * Checks whether a slot is selected
+     * @param slot is the slot
+     * @return true if the slot is selected
+     */
+    public boolean isSelected(int slot) {
+        return slot >= 0 && slots.get(slot);
+    }
+
+    /**
+     * Selects or deselects a single slot
+     * @param slot is the slot
+     * @param selected is whether the slot is selected
+     */
+    public void setSelected(int slot, boolean selected) {
+        if (slot < 0 || slots.get(slot) == selected) return;
+        slots.set(slot, selected);
+        count += selected ? 1 : -1;
+    }
+
+    /**
+     * Selects every slot in an array, such as every element in the list or every search result
+     * @param slotsToSelect are the slots
+     */
+    public void selectAll(int[] slotsToSelect) {
+        for (int slot : slotsToSelect) {
+            setSelected(slot, true);
+        }
+    }
+
+    /**
+     * Deselects every slot
+     */
+    public void clear() {
+        slots.clear();
+        count = 0;
+        anchor = -1;
+    }
+
+    /**
+     * Gets the number of selected slots
+     * @return the number of selected slots
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * Gets a copy of the selected slots
+     * @return a BitSet with the bit of every selected slot set
+     */
+    public BitSet getSlots() {
+        return (BitSet) slots.clone();
+    }
+
+    /**
+     * Gets the position the next range selection starts from
+     * @return the position of the last element checked, or -1 if there is none
+     */
+    public int getAnchor() {
+        return anchor;
+    }
+
+    /**
+     * Sets the position the next range selection starts from
+     * @param position is the position of the element that was checked
+     */
+    public void setAnchor(int position) {
+        anchor = position;
+    }
+}
@@ -0,0 +1,1169 @@
+package com.example.android.readfast;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileReader;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * This class stores the list of elements of one memory mapped element file, with a log of the changes
+ * since its last compaction and numbered slots that are reused after an element is removed.
+ */
+public class ElementStore {
+
+    /**
+     * This interface provides functionality for when elements are added to or removed from the store
+     * Its methods are called while the store is locked, on the thread that changed the store, except for the
+     * elements passed on by addChangeListener(), which are passed without the store's lock
+     */
+    public interface ChangeListener {
+        void onElementAdded(int slot, String element);
+        void onElementRemoved(int slot, String element);
+        void onElementsCleared();
+    }
+
+    private static final String BINARY_SUFFIX = ".bin"; //suffix of the compacted element file
+    private static final String LEGACY_SUFFIX = ".txt"; //suffix of element files in the old text format
+    private static final String LOG_SUFFIX = ".log"; //suffix of the log file containing changes not yet compacted
+    private static final String DECK_SUFFIX = ".deck"; //suffix of the file containing the shuffled deck of slots
+    private static final String DIFFICULTY_SUFFIX = ".difficulty"; //suffix of the file containing the difficulty level of every slot
+    private static final String MISSES_SUFFIX = ".misses"; //suffix of the file containing the miss weight of every slot
+    private static final String COMPACTING_SUFFIX = ".log.old"; //suffix of the log file currently being compacted
+    private static final String TEMP_SUFFIX = ".tmp"; //suffix of the file the compacted element list is written to
+    private static final String CLEARED_SUFFIX = ".cleared.tmp"; //suffix of the file clear() writes the empty list to, apart from a compaction's file
+    private static final char ADD_OP = '+'; //log prefix for an added element
+    private static final char REMOVE_OP = '-'; //log prefix for a removed element
+    private static final int MIN_COMPACTION_SIZE = 64; //minimum number of log entries before a compaction is started
+    private static final int MAX_CHANGES_PER_LOCK = 1024; //most elements addAll() and removeAll() change before letting readers in
+    private static final int MAX_PENDING_CHANGES = 16384; //number of log entries after which a compaction is always started, bounding the changes kept in memory
+    private static final int EMPTY = 0; //hash table entry that has never been used
+    private static final int DELETED = -1; //hash table entry whose element was removed
+
+    private static final Object FILE_LOCK = new Object(); //guards the element file and its logs against concurrent renames
+    private static final ExecutorService compactionExecutor = Executors.newSingleThreadExecutor(); //thread that runs compactions
+
+    private final File elementFile; //file containing the compacted list of elements
+    private final File legacyFile; //text file the list was stored in before the binary format
+    private final File logFile; //file containing the changes made since the last compaction
+    private final File compactingFile; //file containing the changes of a compaction in progress
+    private final Object writeLock = new Object(); //orders changes and their log writes, always taken before the store's lock
+    private ElementFile file; //mapped contents of elementFile, null if there is no element file yet
+    private final Map<Integer, String> changedSlots; //elements of the slots changed since the last compaction, an empty String for an emptied slot
+    private int slotCount; //number of slots, including empty ones
+    private int[] liveSlots; //slots that contain an element, in ascending order
+    private int liveCount; //number of slots that contain an element
+    private int[] table; //hash table of the slots that contain an element, every entry is a slot + 1, EMPTY or DELETED; null until first needed
+    private int[] tableHashes; //hash of the element of every hash table entry
+    private int tableUsed; //number of hash table entries that are not EMPTY
+    private final BitSet freeSlots; //empty slots that can be reused, handed out lowest first
+    private int firstFree; //no slot below this one is free
+    private int[] slotVersions; //number of the change that last put an element into every slot, 0 for slots filled before the store was opened
+    private int addCount; //number of elements added since the store was opened, the version of the last added element
+    private final List<ChangeListener> listeners; //listeners notified of every change
+    private ElementDeck deck; //shuffled deck of the slots of all elements, null if the deck file cannot be opened
+    private ElementDifficulty difficulty; //difficulty levels of the slots of all elements, null if the difficulty file cannot be opened
+    private MissWeights missWeights; //miss weights of the slots of all elements, null if the miss weights file cannot be opened
+    private int logEntries; //number of entries in logFile, guarded by writeLock
+    private int generation; //incremented on clear() so that a compaction in progress knows its snapshot is stale, guarded by writeLock
+    private boolean compactionPending; //whether a compaction is already queued, guarded by writeLock
+
+    /**
+     * Constructs an empty ElementStore for the given element list
+     * @param f is the path of the element list without a file extension
+     */
+    private ElementStore(File f) {
+        elementFile = new File(f.getAbsolutePath() + BINARY_SUFFIX);
+        legacyFile = new File(f.getAbsolutePath() + LEGACY_SUFFIX);
+        logFile = new File(f.getAbsolutePath() + LOG_SUFFIX);
+        compactingFile = new File(f.getAbsolutePath() + COMPACTING_SUFFIX);
+        changedSlots = new HashMap<>();
+        liveSlots = new int[16];
+        slotVersions = new int[16];
+        freeSlots = new BitSet();
+        listeners = new ArrayList<>();
+    }
+
+    /**
+     * Opens the ElementStore of an element list, reading the element file and replaying any logged changes
+     * @param f is the path of the element list without a file extension
+     * @return the ElementStore
+     */
+    public static ElementStore open(File f) {
+        IoThreadCheck.check();
+        ElementStore store = new ElementStore(f);
+        boolean recovered;
+        boolean converted;
+        synchronized (FILE_LOCK) {
+            converted = store.readElementFile();
+            recovered = store.replayLog(store.compactingFile);
+            store.replayLog(store.logFile);
+        }
+        store.findSlots();
+        store.loadDeck(f);
+        store.loadDifficulty(f);
+        store.loadMissWeights(f);
+        //a leftover compacting log means the app stopped in the middle of a compaction, so finish it now
+        if (recovered || converted) store.flush();
+        return store;
+    }
+
+    /**
+     * Normalizes an element the same way it is stored in the element file
+     * @param element is the element
+     * @return the trimmed, upper case element
+     */
+    public static String normalize(String element) {
+        return element.trim().toUpperCase();
+    }
+
+    /**
+     * Adds a single element if it is not already in the store
+     * @param element is the element to be added
+     * @return true if the element was added, false if it was empty or a duplicate
+     */
+    public boolean add(String element) {
+        String normalized = normalize(element);
+        synchronized (writeLock) {
+            ensureTable();
+            String entry;
+            synchronized (this) {
+                if (normalized.isEmpty() || findSlot(normalized) >= 0) return false;
+                int slot = addSlot(normalized);
+                addLiveSlot(slot);
+                entry = addEntry(slot, normalized);
+            }
+            appendToLog(Collections.singletonList(entry));
+            return true;
+        }
+    }
+
+    /**
+     * Adds many elements at once, normalizing and deduplicating them against the store and each other
+     * and logging all of the new elements in one buffered write
+     * The elements are added MAX_CHANGES_PER_LOCK at a time, merging the slots of each chunk into the live
+     * slots at once and releasing the store's lock between chunks, so readers may see part of the elements
+     * added but never wait for the whole collection
+     * @param newElements are the elements to be added
+     * @return the number of elements that were added
+     */
+    public int addAll(Collection<String> newElements) {
+        List<String> added = new ArrayList<>();
+        synchronized (writeLock) {
+            ensureTable();
+            Iterator<String> it = newElements.iterator();
+            int[] slots = new int[MAX_CHANGES_PER_LOCK];
+            while (it.hasNext()) {
+                synchronized (this) {
+                    int count = 0;
+                    for (int i = 0; i < MAX_CHANGES_PER_LOCK && it.hasNext(); i++) {
+                        String normalized = normalize(it.next());
+                        if (normalized.isEmpty() || findSlot(normalized) >= 0) continue;
+                        int slot = addSlot(normalized);
+                        slots[count++] = slot;
+                        added.add(addEntry(slot, normalized));
+                    }
+                    mergeLiveSlots(slots, count);
+                }
+            }
+            appendToLog(added);
+        }
+        return added.size();
+    }
+
+    /**
+     * Removes a single element from the store
+     * @param element is the element to be removed
+     * @return true if the element was removed, false if it was not in the store
+     */
+    public boolean remove(String element) {
+        String normalized = normalize(element);
+        synchronized (writeLock) {
+            ensureTable();
+            int slot;
+            synchronized (this) {
+                slot = findSlot(normalized);
+                if (slot < 0) return false;
+                unindex(normalized, slot);
+                changedSlots.put(slot, "");
+                removeLiveSlot(slot);
+                freeSlot(slot);
+                if (deck != null) deck.remove(slot);
+                if (difficulty != null) difficulty.remove(slot, normalized);
+                if (missWeights != null) missWeights.remove(slot);
+                for (ChangeListener listener : listeners) {
+                    listener.onElementRemoved(slot, normalized);
+                }
+            }
+            appendToLog(Collections.singletonList(REMOVE_OP + String.valueOf(slot)));
+            return true;
+        }
+    }
+
+    /**
+     * Removes every element in a set of slots, logging all of the removals in one buffered write
+     * The slots are emptied MAX_CHANGES_PER_LOCK at a time, each chunk with one pass over the live slots
+     * from its lowest slot on, releasing the store's lock between chunks so readers never wait for the whole set
+     * @param slots has the bit of every slot to be emptied set
+     * @return the number of elements that were removed
+     */
+    public int removeAll(BitSet slots) {
+        List<String> removed = new ArrayList<>();
+        synchronized (writeLock) {
+            int[] chunk = new int[MAX_CHANGES_PER_LOCK];
+            int next = slots.nextSetBit(0);
+            while (next >= 0) {
+                int count = 0;
+                while (next >= 0 && count < chunk.length) {
+                    chunk[count++] = next;
+                    next = slots.nextSetBit(next + 1);
+                }
+                synchronized (this) {
+                    removeSlots(chunk, count, removed);
+                }
+            }
+            appendToLog(removed);
+        }
+        return removed.size();
+    }
+
+    /**
+     * Removes every element from the store and empties the element file
+     * The empty file replaces the element file by a rename rather than being written over it, since a
+     * compaction may still be reading the old file through its mapping
+     */
+    public void clear() {
+        IoThreadCheck.check();
+        synchronized (writeLock) {
+            synchronized (this) {
+                file = null;
+                changedSlots.clear();
+                slotCount = 0;
+                liveCount = 0;
+                table = null;
+                freeSlots.clear();
+                firstFree = 0;
+                if (deck != null) deck.clear();
+                if (difficulty != null) difficulty.clear();
+                if (missWeights != null) missWeights.clear();
+                for (ChangeListener listener : listeners) {
+                    listener.onElementsCleared();
+                }
+            }
+            logEntries = 0;
+            generation++;
+            ElementFile cleared = null;
+            synchronized (FILE_LOCK) {
+                logFile.delete();
+                compactingFile.delete();
+                legacyFile.delete();
+                File temp = new File(elementFile.getAbsolutePath() + CLEARED_SUFFIX);
+                if (writeElementFile(temp, new ArrayList<String>()) && temp.renameTo(elementFile)) {
+                    try {
+                        cleared = ElementFile.open(elementFile);
+                    } catch (IOException e) {
+                        e.printStackTrace();
+                    }
+                } else {
+                    temp.delete();
+                }
+            }
+            synchronized (this) {
+                file = cleared;
+            }
+        }
+    }
+
+    /**
+     * Checks whether an element is in the store
+     * @param element is the element
+     * @return true if the store contains the element
+     */
+    public boolean contains(String element) {
+        String normalized = normalize(element);
+        synchronized (writeLock) {
+            ensureTable();
+            synchronized (this) {
+                return findSlot(normalized) >= 0;
+            }
+        }
+    }
+
+    /**
+     * Gets the number of elements in the store
+     * @return the number of elements
+     */
+    public synchronized int size() {
+        return liveCount;
+    }
+
+    /**
+     * Gets a copy of all the elements in the order of their slots
+     * This reads every element, so large lists should be read a range at a time with getElements(int, int)
+     * @return the List of elements
+     */
+    public synchronized List<String> getElements() {
+        return Arrays.asList(getElements(0, liveCount));
+    }
+
+    /**
+     * Gets a range of the elements in the order of their slots
+     * @param start is the position of the first element
+     * @param count is the number of elements
+     * @return the elements, fewer than count if the range goes past the end of the list
+     */
+    public synchronized String[] getElements(int start, int count) {
+        int end = Math.min(liveCount, start + count);
+        String[] elements = new String[Math.max(0, end - start)];
+        for (int i = 0; i < elements.length; i++) {
+            elements[i] = getSlot(liveSlots[start + i]);
+        }
+        return elements;
+    }
+
+    /**
+     * Draws elements from the deck that have not appeared since the deck last started over
+     * Slots in the deck that turn out to be empty are dropped from it
+     * @param k is the number of elements to draw
+     * @return the drawn elements, fewer than k if the list is smaller
+     */
+    public synchronized List<String> draw(int k) {
+        List<String> drawn = new ArrayList<>(k);
+        if (deck == null) return drawn;
+        for (int slot : deck.draw(k)) {
+            String element = slot < slotCount ? getSlot(slot) : "";
+            if (element.isEmpty()) deck.remove(slot);
+            else drawn.add(element);
+        }
+        return drawn;
+    }
+
+    /**
+     * Draws distinct elements around a difficulty, favoring the level at a percentile of the list's
+     * difficulty distribution and taking fewer elements from levels the further they are from it
+     * Elements drawn this way are not taken from the deck, so they may repeat between rounds
+     * @param k is the number of elements to draw
+     * @param percentile is the position of the target level in the difficulty distribution, from 0 (easiest) to 1 (hardest)
+     * @return the drawn elements, fewer than k if the list is smaller
+     */
+    public synchronized List<String> drawByDifficulty(int k, double percentile) {
+        if (difficulty == null) return draw(k);
+        List<String> drawn = new ArrayList<>(k);
+        for (int slot : difficulty.draw(k, difficulty.getLevelAtPercentile(percentile))) {
+            drawn.add(getSlot(slot));
+        }
+        return drawn;
+    }
+
+    /**
+     * Draws distinct elements in proportion to how often the user missed them recently
+     * If fewer elements have been missed than are needed, the rest are drawn from the deck
+     * @param k is the number of elements to draw
+     * @return the drawn elements, fewer than k if the list is smaller
+     */
+    public synchronized List<String> drawMissed(int k) {
+        if (missWeights == null) return draw(k);
+        List<String> drawn = new ArrayList<>(k);
+        Set<Integer> drawnSlots = new HashSet<>();
+        for (int slot : missWeights.draw(k)) {
+            drawn.add(getSlot(slot));
+            drawnSlots.add(slot);
+        }
+        if (drawn.size() == k || deck == null) return drawn;
+        for (int slot : deck.draw(Math.min(liveCount, k + drawnSlots.size()))) {
+            if (drawn.size() == k) break;
+            String element = slot < slotCount ? getSlot(slot) : "";
+            if (element.isEmpty()) deck.remove(slot);
+            else if (drawnSlots.add(slot)) drawn.add(element);
+        }
+        return drawn;
+    }
+
+    /**
+     * Updates the miss weights of the elements shown in a round, raising the ones the user missed
+     * and lowering the ones the user entered
+     * @param shown are the elements shown in the round
+     * @param missed are the shown elements the user missed
+     */
+    public void recordRound(List<String> shown, Collection<String> missed) {
+        Set<String> missedSet = new HashSet<>(missed);
+        synchronized (writeLock) {
+            ensureTable();
+            synchronized (this) {
+                if (missWeights == null) return;
+                for (String element : shown) {
+                    int slot = findSlot(normalize(element));
+                    if (slot < 0) continue; //removed while the round was played
+                    if (missedSet.contains(element)) missWeights.recordMiss(slot);
+                    else missWeights.recordHit(slot);
+                }
+            }
+        }
+    }
+
+    /**
+     * Gets the miss weight of an element
+     * @param slot is the slot of the element
+     * @return the weight, 0 if the element was not missed recently or weights are not available
+     */
+    public synchronized int getMissWeight(int slot) {
+        return missWeights == null ? 0 : missWeights.getWeight(slot);
+    }
+
+    /**
+     * Gets the difficulty level of an element
+     * @param slot is the slot of the element
+     * @return the level, from 0 to ElementDifficulty.LEVELS - 1, or -1 if the slot is empty or levels are not available
+     */
+    public synchronized int getDifficulty(int slot) {
+        return difficulty == null ? -1 : difficulty.getLevel(slot);
+    }
+
+    /**
+     * Gets the slot of the element at a position
+     * @param position is the position of the element
+     * @return the slot, or -1 if there is no element at the position
+     */
+    public synchronized int getSlotAt(int position) {
+        return position >= 0 && position < liveCount ? liveSlots[position] : -1;
+    }
+
+    /**
+     * Gets the slots of every element in the order of their positions
+     * @return a copy of the slots
+     */
+    public synchronized int[] getSlots() {
+        return Arrays.copyOf(liveSlots, liveCount);
+    }
+
+    /**
+     * Gets the versions of some of the slots, which change whenever a slot is filled with an element, so
+     * that a list showing the slots can tell which ones were emptied and reused by another element
+     * @param slots are the slots
+     * @return the version of every slot, in the same order
+     */
+    public synchronized int[] getVersions(int[] slots) {
+        int[] versions = new int[slots.length];
+        for (int i = 0; i < slots.length; i++) {
+            versions[i] = slots[i] < slotVersions.length ? slotVersions[slots[i]] : 0;
+        }
+        return versions;
+    }
+
+    /**
+     * Gets the elements of some of the slots, such as the results of a search
+     * @param slots are the slots
+     * @param start is the index within slots of the first element
+     * @param count is the number of elements
+     * @return the elements, an empty String for a slot that has since been emptied
+     */
+    public synchronized String[] getElementsOfSlots(int[] slots, int start, int count) {
+        int end = Math.min(slots.length, start + count);
+        String[] elements = new String[Math.max(0, end - start)];
+        for (int i = 0; i < elements.length; i++) {
+            int slot = slots[start + i];
+            elements[i] = slot < slotCount ? getSlot(slot) : "";
+        }
+        return elements;
+    }
+
+    /**
+     * Passes every element in the store to a ChangeListener and then registers it for all later changes,
+     * so that the listener can build up its own copy of the store without missing a change
+     * The elements are passed from a snapshot of the slots outside of the store's lock, so reading the
+     * store is not blocked while the listener builds its copy; holding writeLock keeps the store from
+     * changing until the listener is registered
+     * @param listener is the ChangeListener
+     */
+    public void addChangeListener(ChangeListener listener) {
+        synchronized (writeLock) {
+            SlotSnapshot snapshot;
+            int[] slots;
+            synchronized (this) {
+                snapshot = new SlotSnapshot(file, new HashMap<>(changedSlots), slotCount);
+                slots = Arrays.copyOf(liveSlots, liveCount);
+            }
+            for (int slot : slots) {
+                listener.onElementAdded(slot, snapshot.get(slot));
+            }
+            synchronized (this) {
+                listeners.add(listener);
+            }
+        }
+    }
+
+    /**
+     * Stops notifying a ChangeListener of changes
+     * @param listener is the ChangeListener
+     */
+    public synchronized void removeChangeListener(ChangeListener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Finds the position of an element in the order of their slots
+     * @param element is the element
+     * @return the position, or -1 if the store does not contain the element
+     */
+    public int indexOf(String element) {
+        String normalized = normalize(element);
+        synchronized (writeLock) {
+            ensureTable();
+            synchronized (this) {
+                int slot = findSlot(normalized);
+                return slot < 0 ? -1 : Arrays.binarySearch(liveSlots, 0, liveCount, slot);
+            }
+        }
+    }
+
+    /**
+     * Queues a compaction of the log into the element file on the background compaction thread
+     * without waiting for it
+     */
+    public void compactAsync() {
+        synchronized (writeLock) {
+            if (compactionPending || logEntries == 0) return;
+            compactionPending = true;
+        }
+        compactionExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                compact();
+            }
+        });
+    }
+
+    /**
+     * Compacts the log into the element file on the background compaction thread and waits for it to finish
+     */
+    public void flush() {
+        IoThreadCheck.check();
+        Future<?> compaction = compactionExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+                compact();
+            }
+        });
+        try {
+            compaction.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Waits until every compaction queued so far has finished, without starting one
+     * Compactions of every store run on the same thread, so this also waits for the other stores
+     */
+    public static void awaitCompaction() {
+        Future<?> queued = compactionExecutor.submit(new Runnable() {
+            @Override
+            public void run() {
+            }
+        });
+        try {
+            queued.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * Writes the current elements to the element file and discards the log
+     * The elements are written while neither the store's lock nor writeLock is held, so the store can
+     * still be read and changed while compacting; the store's lock is only taken to copy the changed
+     * slots and to swap in the new mapping
+     * This method must only be run on the compaction thread
+     */
+    private void compact() {
+        SlotSnapshot snapshot;
+        int snapshotGeneration;
+        synchronized (writeLock) {
+            compactionPending = false;
+            synchronized (this) {
+                snapshot = new SlotSnapshot(file, new HashMap<>(changedSlots), slotCount);
+            }
+            snapshotGeneration = generation;
+            synchronized (FILE_LOCK) {
+                //changes made from now on go to a fresh log, the old one is kept until the snapshot is safely written
+                if (logFile.exists() && !compactingFile.exists()) logFile.renameTo(compactingFile);
+                else appendFile(logFile, compactingFile);
+                logEntries = 0;
+            }
+        }
+        File temp = new File(elementFile.getAbsolutePath() + TEMP_SUFFIX);
+        boolean written = writeElementFile(temp, snapshot);
+        synchronized (writeLock) {
+            ElementFile compacted = null;
+            synchronized (FILE_LOCK) {
+                if (written && snapshotGeneration == generation && temp.renameTo(elementFile)) {
+                    compactingFile.delete();
+                    legacyFile.delete();
+                    try {
+                        compacted = ElementFile.open(elementFile);
+                    } catch (IOException e) {
+                        e.printStackTrace(); //the old mapping and changedSlots still hold every element
+                    }
+                } else {
+                    temp.delete();
+                }
+            }
+            if (compacted == null) return;
+            synchronized (this) {
+                file = compacted;
+                //changes now contained in the element file no longer need to be kept in memory
+                for (Map.Entry<Integer, String> change : snapshot.changes.entrySet()) {
+                    if (change.getValue().equals(changedSlots.get(change.getKey()))) changedSlots.remove(change.getKey());
+                }
+            }
+        }
+    }
+
+    /**
+     * Puts an element into the lowest free slot and adds the slot to the deck and to the bucket of its difficulty level
+     * The caller adds the slot to the live slots, so that a batch of slots can be merged into them at once
+     * @param element is the normalized element
+     * @return the slot
+     */
+    private int addSlot(String element) {
+        int slot = freeSlots.nextSetBit(firstFree);
+        if (slot < 0) {
+            slot = slotCount++;
+            firstFree = slotCount;
+        } else {
+            freeSlots.clear(slot);
+            firstFree = slot + 1;
+        }
+        changedSlots.put(slot, element);
+        if (slot >= slotVersions.length) slotVersions = Arrays.copyOf(slotVersions, Math.max(slot + 1, slotVersions.length * 2));
+        slotVersions[slot] = ++addCount;
+        index(element, slot);
+        if (deck != null) deck.insert(slot);
+        if (difficulty != null) difficulty.insert(slot, element);
+        if (missWeights != null) missWeights.remove(slot); //a reused slot starts without misses
+        for (ChangeListener listener : listeners) {
+            listener.onElementAdded(slot, element);
+        }
+        return slot;
+    }
+
+    /**
+     * Empties the live slots among ascending slots, removing them from the live slots in one pass
+     * @param slots are the slots, in ascending order
+     * @param count is the number of slots
+     * @param removed is the List the log entries of the removals are added to
+     */
+    private void removeSlots(int[] slots, int count, List<String> removed) {
+        int first = Arrays.binarySearch(liveSlots, 0, liveCount, slots[0]);
+        if (first < 0) first = -(first + 1);
+        int kept = first;
+        int j = 0;
+        for (int i = first; i < liveCount; i++) {
+            int slot = liveSlots[i];
+            while (j < count && slots[j] < slot) {
+                j++;
+            }
+            if (j == count || slots[j] != slot) {
+                liveSlots[kept++] = slot;
+                continue;
+            }
+            String element = getSlot(slot);
+            if (table != null) unindex(element, slot);
+            changedSlots.put(slot, "");
+            freeSlot(slot);
+            if (deck != null) deck.remove(slot);
+            if (difficulty != null) difficulty.remove(slot, element);
+            if (missWeights != null) missWeights.remove(slot);
+            for (ChangeListener listener : listeners) {
+                listener.onElementRemoved(slot, element);
+            }
+            removed.add(REMOVE_OP + String.valueOf(slot));
+        }
+        liveCount = kept;
+    }
+
+    /**
+     * Makes an emptied slot available to addSlot()
+     * @param slot is the slot
+     */
+    private void freeSlot(int slot) {
+        freeSlots.set(slot);
+        firstFree = Math.min(firstFree, slot);
+    }
+
+    /**
+     * Gets the log entry of an added element
+     * @param slot is the slot of the element
+     * @param element is the normalized element
+     * @return the log entry
+     */
+    private static String addEntry(int slot, String element) {
+        return ADD_OP + String.valueOf(slot) + ' ' + element;
+    }
+
+    /**
+     * Appends log entries to the log and starts a compaction if the log has grown too large
+     * This must be called while holding writeLock but not the store's lock, so readers are not blocked by the write
+     * @param entries are the log entries
+     */
+    private void appendToLog(List<String> entries) {
+        if (entries.isEmpty()) return;
+        IoThreadCheck.check();
+        BufferedWriter writer = null;
+        synchronized (FILE_LOCK) {
+            try {
+                writer = new BufferedWriter(new FileWriter(logFile, true));
+                for (String entry : entries) {
+                    writer.write(entry);
+                    writer.newLine();
+                    logEntries++;
+                }
+            } catch (IOException e) {
+                e.printStackTrace();
+            } finally {
+                closeQuietly(writer);
+            }
+        }
+        if (logEntries > MAX_PENDING_CHANGES || logEntries > Math.max(MIN_COMPACTION_SIZE, size())) compactAsync();
+    }
+
+    /**
+     * Maps the element file, falling back to reading the legacy text file into the changed slots
+     * @return true if the elements were read from the legacy text file and still need to be converted
+     */
+    private boolean readElementFile() {
+        if (elementFile.exists()) {
+            try {
+                file = ElementFile.open(elementFile);
+                slotCount = file.size();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+            return false;
+        }
+        if (!legacyFile.exists()) return false;
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new FileReader(legacyFile));
+            Set<String> seen = new HashSet<>(); //only needed until the legacy file is converted
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String normalized = normalize(line);
+                if (!normalized.isEmpty() && seen.add(normalized)) setSlot(slotCount, normalized);
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            closeQuietly(reader);
+        }
+        return true;
+    }
+
+    /**
+     * Replays the changes within a log file on top of the elements already in the store
+     * @param f is the log file
+     * @return true if the log file existed
+     */
+    private boolean replayLog(File f) {
+        if (!f.exists()) return false;
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new FileReader(f));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.isEmpty()) continue;
+                if (line.charAt(0) == ADD_OP) {
+                    int split = line.indexOf(' ');
+                    setSlot(Integer.parseInt(line.substring(1, split)), line.substring(split + 1));
+                } else if (line.charAt(0) == REMOVE_OP) {
+                    setSlot(Integer.parseInt(line.substring(1)), "");
+                }
+                if (f == logFile) logEntries++;
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            closeQuietly(reader);
+        }
+        return true;
+    }
+
+    /**
+     * Sets the element in a slot while reading the legacy file and logs
+     * The live and free slots are found once everything has been read
+     * @param slot is the slot
+     * @param element is the element, or an empty String if the slot is empty
+     */
+    private void setSlot(int slot, String element) {
+        changedSlots.put(slot, element);
+        slotCount = Math.max(slotCount, slot + 1);
+    }
+
+    /**
+     * Gets the element in a slot, from the changed slots or otherwise from the element file
+     * @param slot is the slot
+     * @return the element, or an empty String if the slot is empty
+     */
+    private String getSlot(int slot) {
+        String changed = changedSlots.get(slot);
+        if (changed != null) return changed;
+        return file == null || slot >= file.size() ? "" : file.get(slot);
+    }
+
+    /**
+     * Checks whether a slot is empty without decoding its element
+     * @param slot is the slot
+     * @return true if the slot is empty
+     */
+    private boolean isSlotEmpty(int slot) {
+        String changed = changedSlots.get(slot);
+        if (changed != null) return changed.isEmpty();
+        return file == null || slot >= file.size() || file.isEmpty(slot);
+    }
+
+    /**
+     * Collects the slots containing an element into the live slots and every empty slot into the
+     * free slots, lowest slots first
+     */
+    private void findSlots() {
+        liveSlots = new int[Math.max(16, slotCount)];
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (isSlotEmpty(slot)) freeSlots.set(slot);
+            else liveSlots[liveCount++] = slot;
+        }
+        firstFree = 0;
+    }
+
+    /**
+     * Inserts a slot into the sorted live slots
+     * @param slot is the slot
+     */
+    private void addLiveSlot(int slot) {
+        if (liveCount == liveSlots.length) liveSlots = Arrays.copyOf(liveSlots, liveCount * 2);
+        int pos = liveCount == 0 || liveSlots[liveCount - 1] < slot ? liveCount : -(Arrays.binarySearch(liveSlots, 0, liveCount, slot) + 1);
+        System.arraycopy(liveSlots, pos, liveSlots, pos + 1, liveCount - pos);
+        liveSlots[pos] = slot;
+        liveCount++;
+    }
+
+    /**
+     * Merges ascending slots that are not live yet into the sorted live slots, moving every live slot at most once
+     * @param slots are the slots, in ascending order
+     * @param count is the number of slots
+     */
+    private void mergeLiveSlots(int[] slots, int count) {
+        if (count == 0) return;
+        if (liveCount + count > liveSlots.length) liveSlots = Arrays.copyOf(liveSlots, Math.max(liveCount + count, liveSlots.length * 2));
+        int i = liveCount - 1;
+        int j = count - 1;
+        //fills the live slots from the back, so no slot is overwritten before it is moved
+        for (int k = liveCount + count - 1; j >= 0; k--) {
+            if (i >= 0 && liveSlots[i] > slots[j]) liveSlots[k] = liveSlots[i--];
+            else liveSlots[k] = slots[j--];
+        }
+        liveCount += count;
+    }
+
+    /**
+     * Removes a slot from the sorted live slots
+     * @param slot is the slot
+     */
+    private void removeLiveSlot(int slot) {
+        int pos = Arrays.binarySearch(liveSlots, 0, liveCount, slot);
+        if (pos < 0) return;
+        System.arraycopy(liveSlots, pos + 1, liveSlots, pos, liveCount - pos - 1);
+        liveCount--;
+    }
+
+    /**
+     * Finds the slot of an element using the hash table, which ensureTable() must have built
+     * @param element is the normalized element
+     * @return the slot, or -1 if the store does not contain the element
+     */
+    private int findSlot(String element) {
+        int hash = hash(element);
+        int mask = table.length - 1;
+        for (int i = hash & mask; table[i] != EMPTY; i = (i + 1) & mask) {
+            if (table[i] != DELETED && tableHashes[i] == hash && getSlot(table[i] - 1).equals(element)) return table[i] - 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Adds the slot of an element that is not yet in the hash table
+     * @param element is the normalized element
+     * @param slot is its slot
+     */
+    private void index(String element, int slot) {
+        if ((tableUsed + 1) * 4 > table.length * 3) growTable();
+        int hash = hash(element);
+        int mask = table.length - 1;
+        int i = hash & mask;
+        while (table[i] > 0) {
+            i = (i + 1) & mask;
+        }
+        if (table[i] == EMPTY) tableUsed++;
+        table[i] = slot + 1;
+        tableHashes[i] = hash;
+    }
+
+    /**
+     * Removes the slot of an element from the hash table
+     * @param element is the normalized element
+     * @param slot is its slot
+     */
+    private void unindex(String element, int slot) {
+        int mask = table.length - 1;
+        for (int i = hash(element) & mask; table[i] != EMPTY; i = (i + 1) & mask) {
+            if (table[i] == slot + 1) {
+                table[i] = DELETED;
+                return;
+            }
+        }
+    }
+
+    /**
+     * Builds the hash table the first time an element is looked up
+     * Building it decodes every element, so that is done from a snapshot of the slots outside of the
+     * store's lock; the caller holds writeLock, so no change can happen before the table is installed
+     */
+    private void ensureTable() {
+        SlotSnapshot snapshot;
+        int[] slots;
+        synchronized (this) {
+            if (table != null) return;
+            snapshot = new SlotSnapshot(file, new HashMap<>(changedSlots), slotCount);
+            slots = Arrays.copyOf(liveSlots, liveCount);
+        }
+        int[] newTable = new int[tableCapacity(slots.length)];
+        int[] newHashes = new int[newTable.length];
+        for (int slot : slots) {
+            insertEntry(newTable, newHashes, slot + 1, hash(snapshot.get(slot)));
+        }
+        synchronized (this) {
+            table = newTable;
+            tableHashes = newHashes;
+            tableUsed = slots.length;
+        }
+    }
+
+    /**
+     * Doubles the hash table once it is three quarters full, dropping its deleted entries
+     * The stored hashes are reused, so no element is decoded; the entries are counted rather than taken
+     * from liveCount, since addAll() only merges its slots into the live slots once it is done
+     */
+    private void growTable() {
+        int entries = 0;
+        for (int entry : table) {
+            if (entry > 0) entries++;
+        }
+        int[] newTable = new int[tableCapacity(entries)];
+        int[] newHashes = new int[newTable.length];
+        for (int i = 0; i < table.length; i++) {
+            if (table[i] > 0) insertEntry(newTable, newHashes, table[i], tableHashes[i]);
+        }
+        table = newTable;
+        tableHashes = newHashes;
+        tableUsed = entries;
+    }
+
+    /**
+     * Gets the capacity of a hash table that is at most half full
+     * @param count is the number of elements
+     * @return the capacity, a power of two
+     */
+    private static int tableCapacity(int count) {
+        int capacity = 16;
+        while (capacity < (count + 1) * 2) {
+            capacity <<= 1;
+        }
+        return capacity;
+    }
+
+    /**
+     * Puts an entry into the first unused position of its probe sequence in a table without deleted entries
+     */
+    private static void insertEntry(int[] table, int[] hashes, int entry, int hash) {
+        int mask = table.length - 1;
+        int i = hash & mask;
+        while (table[i] != EMPTY) {
+            i = (i + 1) & mask;
+        }
+        table[i] = entry;
+        hashes[i] = hash;
+    }
+
+    /**
+     * Spreads the bits of a String's hash code so that the low bits used by the hash table vary
+     */
+    private static int hash(String element) {
+        int h = element.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Opens the deck of this element list, rebuilding it if it does not contain exactly the slots of the elements
+     * @param f is the path of the element list without a file extension
+     */
+    private void loadDeck(File f) {
+        try {
+            deck = ElementDeck.open(new File(f.getAbsolutePath() + DECK_SUFFIX));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        boolean matches = deck.size() == liveCount;
+        for (int i = 0; matches && i < liveCount; i++) {
+            matches = deck.contains(liveSlots[i]);
+        }
+        if (!matches) deck.reset(liveSlots, liveCount);
+    }
+
+    /**
+     * Opens the difficulty levels of this element list, scoring every element again if the file does
+     * not contain exactly the slots of the elements, such as the first time a list is opened
+     * @param f is the path of the element list without a file extension
+     */
+    private void loadDifficulty(File f) {
+        try {
+            difficulty = ElementDifficulty.open(new File(f.getAbsolutePath() + DIFFICULTY_SUFFIX));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        boolean matches = difficulty.size() == liveCount;
+        for (int i = 0; matches && i < liveCount; i++) {
+            matches = difficulty.contains(liveSlots[i]);
+        }
+        if (matches) return;
+        difficulty.clear();
+        for (int i = 0; i < liveCount; i++) {
+            difficulty.insert(liveSlots[i], getSlot(liveSlots[i]));
+        }
+    }
+
+    /**
+     * Opens the miss weights of this element list, dropping the weights of slots that no longer hold an element
+     * @param f is the path of the element list without a file extension
+     */
+    private void loadMissWeights(File f) {
+        try {
+            missWeights = MissWeights.open(new File(f.getAbsolutePath() + MISSES_SUFFIX));
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+        if (missWeights.getTotal() == 0) return;
+        int live = 0;
+        for (int slot = 0; slot < slotCount; slot++) {
+            if (live < liveCount && liveSlots[live] == slot) live++;
+            else missWeights.remove(slot);
+        }
+    }
+
+    /**
+     * Writes a List of elements to a file in the ElementFile format
+     * Empty slots are written as empty elements
+     * @param f is the file
+     * @param elements is the List of elements
+     * @return true if the file was written successfully
+     */
+    private static boolean writeElementFile(File f, List<String> elements) {
+        try {
+            ElementFile.write(f, elements);
+            return true;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    /**
+     * Appends the contents of one file to another and deletes the source file
+     * @param source is the file to be appended
+     * @param dest is the file being appended to
+     */
+    private static void appendFile(File source, File dest) {
+        if (!source.exists()) return;
+        BufferedReader reader = null;
+        BufferedWriter writer = null;
+        try {
+            reader = new BufferedReader(new FileReader(source));
+            writer = new BufferedWriter(new FileWriter(dest, true));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                writer.write(line);
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            closeQuietly(reader);
+            closeQuietly(writer);
+        }
+        source.delete();
+    }
+
+    /**
+     * Closes a reader or writer, ignoring a null value
+     * @param c is the Closeable
+     */
+    private static void closeQuietly(Closeable c) {
+        if (c == null) return;
+        try {
+            c.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * This class is a read-only view of the slots at the start of a compaction, combining the element
+     * file mapped at the time with a copy of the changed slots, so it can be written without the store's lock
+     */
+    private static class SlotSnapshot extends AbstractList<String> {
+        private final ElementFile file; //element file mapped when the snapshot was taken, may be null
+        private final Map<Integer, String> changes; //copy of the changed slots
+        private final int slotCount; //number of slots
+
+        SlotSnapshot(ElementFile file, Map<Integer, String> changes, int slotCount) {
+            this.file = file;
+            this.changes = changes;
+            this.slotCount = slotCount;
+        }
+
+        @Override
+        public String get(int slot) {
+            String changed = changes.get(slot);
+            if (changed != null) return changed;
+            return file == null || slot >= file.size() ? "" : file.get(slot);
+        }
+
+        @Override
+        public int size() {
+            return slotCount;
+        }
+    }
+}
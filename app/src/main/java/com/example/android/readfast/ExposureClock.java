@@ -0,0 +1,119 @@
+package com.example.android.readfast;
+
+/**
+ * This class times how long the elements of a round stay on the screen in whole display frames,
+ * from the vsync timestamps of Choreographer frame callbacks.
+ */
+public class ExposureClock {
+
+    private final long frameIntervalNanos; //time between two display frames
+    private final int exposureFrames; //number of frames the elements stay visible
+    private long startNanos; //vsync time of the frame the elements were shown in
+    private long lastFrameNanos; //vsync time of the last frame passed to onFrame
+    private long endNanos; //vsync time of the frame the elements were hidden in
+    private int droppedFrames; //number of frames without a frame callback since the elements were shown
+    private boolean started; //whether the elements have been shown
+    private boolean ended; //whether the elements have been hidden
+
+    /**
+     * Constructs an ExposureClock
+     * @param exposureMillis is how long the elements should stay visible in milliseconds
+     * @param frameIntervalNanos is the time between two display frames in nanoseconds
+     */
+    public ExposureClock(long exposureMillis, long frameIntervalNanos) {
+        this.frameIntervalNanos = frameIntervalNanos;
+        //rounds to the nearest frame, but always shows the elements for at least one frame
+        exposureFrames = (int) Math.max(1, (exposureMillis * 1000000L + frameIntervalNanos / 2) / frameIntervalNanos);
+    }
+
+    /**
+     * Starts the exposure in the frame the elements are shown in
+     * @param frameTimeNanos is the vsync time of the frame
+     */
+    public void start(long frameTimeNanos) {
+        startNanos = frameTimeNanos;
+        lastFrameNanos = frameTimeNanos;
+        started = true;
+    }
+
+    /**
+     * Advances the exposure to a frame while the elements are visible, counting the frames dropped since the last one
+     * @param frameTimeNanos is the vsync time of the frame
+     * @return true if the elements must be hidden in the frame, which ends the exposure
+     */
+    public boolean onFrame(long frameTimeNanos) {
+        if (!started || ended) return ended;
+        int frames = framesBetween(lastFrameNanos, frameTimeNanos);
+        if (frames > 1) droppedFrames += frames - 1;
+        lastFrameNanos = frameTimeNanos;
+        if (isExpired(frameTimeNanos)) {
+            endNanos = frameTimeNanos;
+            ended = true;
+        }
+        return ended;
+    }
+
+    /**
+     * Checks whether the elements have been shown
+     * @return true if start() was called
+     */
+    public boolean isStarted() {
+        return started;
+    }
+
+    /**
+     * Checks whether the elements must be hidden in a frame
+     * @param frameTimeNanos is the vsync time of the frame
+     * @return true if the exposure is over by the time the frame is displayed
+     */
+    public boolean isExpired(long frameTimeNanos) {
+        return started && framesSince(frameTimeNanos) >= exposureFrames;
+    }
+
+    /**
+     * Gets the time left before the elements are hidden, as it should be shown in a frame
+     * @param frameTimeNanos is the vsync time of the frame
+     * @return the time left in milliseconds, or the whole exposure if the elements have not been shown
+     */
+    public long getRemainingMillis(long frameTimeNanos) {
+        int frames = started ? Math.max(0, exposureFrames - framesSince(frameTimeNanos)) : exposureFrames;
+        return frames * frameIntervalNanos / 1000000L;
+    }
+
+    /**
+     * Gets how long the elements were actually visible, from the frame they were shown in to the frame they were hidden in
+     * @return the visible time in nanoseconds, or 0 if the exposure has not ended
+     */
+    public long getVisibleNanos() {
+        return ended ? endNanos - startNanos : 0;
+    }
+
+    /**
+     * Gets the number of frames dropped while the elements were visible
+     * @return the number of dropped frames
+     */
+    public int getDroppedFrames() {
+        return droppedFrames;
+    }
+
+    /**
+     * Gets the number of frames the elements stay visible
+     * @return the number of frames
+     */
+    public int getExposureFrames() {
+        return exposureFrames;
+    }
+
+    /**
+     * Counts the frames between the start and a frame, rounding vsync jitter to the nearest frame
+     * @param frameTimeNanos is the vsync time of the frame
+     * @return the number of frames
+     */
+    private int framesSince(long frameTimeNanos) {
+        return framesBetween(startNanos, frameTimeNanos);
+    }
+
+    private int framesBetween(long fromNanos, long toNanos) {
+        return (int) ((toNanos - fromNanos + frameIntervalNanos / 2) / frameIntervalNanos);
+    }
+}
@@ -0,0 +1,133 @@
+package com.example.android.readfast;
+
+import java.util.Random;
+
+/**
+ * This class is a Fenwick tree of non-negative integer weights that draws an index in proportion
+ * to its weight in O(log n).
+ */
+public class FenwickTree {
+
+    private long[] tree; //tree[i] is the sum of the weights of the indices (i - lowbit(i), i], 1-based
+    private int[] weights; //weight of every index, 0-based
+    private long total; //sum of every weight
+
+    /**
+     * Constructs a FenwickTree of weights in O(n)
+     * @param initialWeights are the weights of the first indices, which are copied
+     * @param capacity is the number of indices to make room for, at least the number of weights
+     */
+    public FenwickTree(int[] initialWeights, int capacity) {
+        build(initialWeights, Math.max(1, Math.max(capacity, initialWeights.length)));
+    }
+
+    /**
+     * Gets the number of indices the tree has room for
+     * @return the capacity
+     */
+    public int capacity() {
+        return weights.length;
+    }
+
+    /**
+     * Gets the weight of an index
+     * @param index is the index
+     * @return the weight, 0 if the index is past the capacity
+     */
+    public int get(int index) {
+        return index < weights.length ? weights[index] : 0;
+    }
+
+    /**
+     * Sets the weight of an index, growing the tree if needed
+     * @param index is the index
+     * @param weight is the non-negative weight
+     */
+    public void set(int index, int weight) {
+        if (index >= weights.length) {
+            int capacity = weights.length;
+            while (capacity <= index) capacity *= 2;
+            build(weights, capacity);
+        }
+        long delta = (long) Math.max(0, weight) - weights[index];
+        if (delta == 0) return;
+        weights[index] = Math.max(0, weight);
+        total += delta;
+        for (int i = index + 1; i <= weights.length; i += i & -i) {
+            tree[i] += delta;
+        }
+    }
+
+    /**
+     * Gets the sum of every weight
+     * @return the total weight
+     */
+    public long total() {
+        return total;
+    }
+
+    /**
+     * Sums the weights of the indices before an index
+     * @param end is the index after the last one summed
+     * @return the sum of the weights of [0, end)
+     */
+    public long prefixSum(int end) {
+        long sum = 0;
+        for (int i = Math.min(end, weights.length); i > 0; i -= i & -i) {
+            sum += tree[i];
+        }
+        return sum;
+    }
+
+    /**
+     * Finds the index a running sum of the weights falls in by descending the tree
+     * @param target is the running sum, from 0 to total() - 1
+     * @return the smallest index whose prefix sum including it is greater than target, or -1 if target is out of range
+     */
+    public int find(long target) {
+        if (target < 0 || target >= total) return -1;
+        int pos = 0;
+        for (int step = Integer.highestOneBit(weights.length); step > 0; step >>= 1) {
+            int next = pos + step;
+            if (next <= weights.length && tree[next] <= target) {
+                pos = next;
+                target -= tree[next];
+            }
+        }
+        return pos; //the 1-based end of the longest prefix whose sum is at most target is the 0-based index after it
+    }
+
+    /**
+     * Draws an index in proportion to its weight
+     * @param random is the source of randomness
+     * @return the index, or -1 if every weight is 0
+     */
+    public int sample(Random random) {
+        if (total <= 0) return -1;
+        long target = (long) (random.nextDouble() * total);
+        return find(Math.min(target, total - 1));
+    }
+
+    /**
+     * Builds the tree from weights in O(n) by adding every node into its parent
+     * @param source are the weights
+     * @param capacity is the number of indices
+     */
+    private void build(int[] source, int capacity) {
+        int[] newWeights = new int[capacity];
+        long[] newTree = new long[capacity + 1];
+        long sum = 0;
+        for (int i = 0; i < Math.min(source.length, capacity); i++) {
+            newWeights[i] = Math.max(0, source[i]);
+            newTree[i + 1] = newWeights[i];
+            sum += newWeights[i];
+        }
+        for (int i = 1; i <= capacity; i++) {
+            int parent = i + (i & -i);
+            if (parent <= capacity) newTree[parent] += newTree[i];
+        }
+        weights = newWeights;
+        tree = newTree;
+        total = sum;
+    }
+}
@@ -1,51 +1,76 @@
 package com.example.android.readfast;
 
-import android.content.Intent;
 import android.content.SharedPreferences;
-import android.content.res.Resources;
 import android.graphics.Color;
-import android.graphics.Point;
-import android.graphics.Rect;
+import android.graphics.Paint;
 import android.os.Handler;
 import android.support.constraint.ConstraintLayout;
 import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
-import android.util.DisplayMetrics;
+import android.os.SystemClock;
+import android.text.Editable;
+import android.text.TextPaint;
+import android.text.TextWatcher;
 import android.util.TypedValue;
+import android.view.Choreographer;
 import android.view.View;
+import android.view.ViewTreeObserver;
+import android.view.inputmethod.InputMethodManager;
 import android.widget.Button;
 import android.widget.EditText;
 import android.widget.TextView;
 
-import java.io.File;
-import java.io.FileNotFoundException;
+import java.io.IOException;
 import java.util.ArrayList;
-import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Scanner;
 
 /**
  * This Activity contains the main game of the app based off of the
  * preferences and files form SettingsActivity
+ * It hosts a whole practice session: every round, its results and the next round run in this
+ * Activity, reusing its views and the cached element list, so a session of any length needs
+ * neither new Activities nor more memory.
  */
-public class GameActivity extends AppCompatActivity {
+public class GameActivity extends AppCompatActivity implements RoundLayoutTask.RoundLayoutListener, ResultsPanel.ResultsPanelListener {
 
-    private List<String> elementList; //list of all the "elements" (words/sentences) that can appear
+    private ElementStore elementStore; //store of all the "elements" (words/sentences) that can appear, with a persistent shuffled deck so elements do not repeat between rounds
     private SharedPreferences pref; //settings from the settings menu
-    private File elementFile; //file containing a list of all the elements
     private int timerLength; //length of game time (from prefs)
+    private int exposureMillis; //how long the elements stay visible in milliseconds, the flash exposure if flash mode is on
+    private long frameIntervalNanos; //time between two frames of the display
+    private ExposureClock exposureClock; //times the exposure in display frames, null until the timer starts
+    private Choreographer.FrameCallback exposureFrameCallback; //frame callback that shows and hides the elements, null when it is not posted
+    private int shownTimerTenths = -1; //tenths of a second shown by the timer, so its text is only set when it changes
     private int numOfElements; //number of elements that will appear on the screen (from prefs)
+    private double difficultyPercentile; //position of the chosen difficulty band in the list's difficulty distribution, -1 if any difficulty is fine (from prefs)
+    private boolean reviewMissed; //whether rounds draw the elements the user missed recently (from prefs)
+    private List<String> roundElements; //elements displayed during the round, null until the round is laid out
     private boolean wsState; //whether the elements are words or sentences (false = words, true = sentences)
-    private List<Integer> elementIds; //List containing the view ids of the textviews created to display elements during game
+    private ArrayList<String> answerKey; //normalized tokens of the elements displayed during the game, null until the round is laid out
+    private AnswerTokenizer answerTokenizer; //tokenizes the user's answer while it is typed
+    private boolean roundReady; //whether the elements of the round have been laid out and positioned
+    private TextPaint elementPaint; //paint the elements are laid out and drawn with, shared by every round
+    private int timerColor; //default color of the timer, which turns red near the end of a round
+    private long timerStartNanos; //System.nanoTime() at which the timer started and the round was requested to be shown
+    private long revealLatency = -1; //microseconds from the timer starting to the first frame drawn with all elements visible, -1 until it is drawn
+    private int placementAttempts; //number of positions the PlacementEngine tested to place the elements
 
+    private GameBoardView gameBoard; //View that draws every element of the round on one canvas
     private TextView countdownTV; //TextView that counts down before the game starts
     private TextView startGameTV; //TextView that the user clicks on to start the game
     private TextView timerTV; //TextView that shows how much time left
     private Button finishButton; //Button that submits the user's answers
     private EditText answerEditText; //EditText for user to enter answers
+    private ResultsPanel resultsPanel; //panel showing the results of a round
+    private final Handler countdownHandler = new Handler(); //runs the countdown of every round
+    private Runnable countdownRunnable; //updates the countdown, null before the first round
 
-    public static final String RESPONSES_KEY = "responseList"; //key for the intent extra that contains the user's resopnses
-    public static final String ANSWERS_KEY = "answerList"; //key for the intent extra that contains the elements used in this instance of the game
+    private static final int ELEMENT_MARGIN = 15; //minimum space in pixels kept around every element and the timer
+    private static final int WORD_TEXT_SIZE = 30; //text size of words in sp
+    private static final int SENTENCE_TEXT_SIZE = 40; //text size of sentences in sp
+    private static final int SENTENCE_WIDTH = 220; //width of sentences in dp
+    private static final float DEFAULT_REFRESH_RATE = 60f; //refresh rate assumed if the display does not report one
 
     /**
      * Overrides the onCreate method, starts the Activity, initializes all
@@ -57,70 +82,184 @@ public class GameActivity extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_game);
 
-        //initialize Lists
-        elementList = new ArrayList<>();
-        elementIds = new ArrayList<>();
+        //initialize the answer tokenizer
+        answerTokenizer = new AnswerTokenizer();
 
         //initialize preferences
         pref = getApplicationContext().getSharedPreferences(SettingsActivity.SHARED_PREFERENCES_FILE, 0);
 
         //initialize preferences from SharedPreferences
         timerLength = pref.getInt(SettingsActivity.TIMER_KEY, 1);
+        int flashMillis = pref.getInt(SettingsActivity.FLASH_KEY, 0);
+        exposureMillis = flashMillis > 0 ? flashMillis : timerLength * 1000;
         wsState = pref.getBoolean(SettingsActivity.WS_STATE_KEY, false);
         numOfElements = pref.getInt(wsState ? SettingsActivity.NUM_OF_SENTENCES_KEY : SettingsActivity.NUM_OF_WORDS_KEY, 1);
-
-        //fills the elementList with elements from elementFile
-        File elementFileDir = getDir("element_lists", MODE_PRIVATE);
-        elementFile = new File(elementFileDir.getAbsolutePath() +  "/" + (wsState ? "sentences_list.txt" : "words_list.txt"));
-        try{
-            Scanner sc = new Scanner(elementFile);
-            while(sc.hasNext()){
-                elementList.add(sc.nextLine());
-            }
-            sc.close();
-        } catch (FileNotFoundException e){
-            e.printStackTrace();
-        }
+        int difficultyBand = pref.getInt(SettingsActivity.DIFFICULTY_KEY, 0);
+        reviewMissed = difficultyBand == SettingsActivity.DIFFICULTY_MISSED;
+        difficultyPercentile = difficultyBand > 0 && !reviewMissed ? ElementDifficulty.getBandPercentile(difficultyBand) : -1;
 
         //intialize Views
+        gameBoard = findViewById(R.id.gameBoardView);
         countdownTV = findViewById(R.id.countdownTV);
         timerTV = findViewById(R.id.gameTimerTV);
         startGameTV = findViewById(R.id.startGameTV);
         answerEditText = findViewById(R.id.answer_edit_text);
         finishButton = findViewById(R.id.finishGameButton);
+        resultsPanel = new ResultsPanel(findViewById(R.id.results_panel), this);
+        timerColor = timerTV.getCurrentTextColor();
+
+        //the paint is created once, every round lays out its elements with it
+        elementPaint = new TextPaint(Paint.ANTI_ALIAS_FLAG);
+        elementPaint.setTextSize(TypedValue.applyDimension(TypedValue.COMPLEX_UNIT_SP, wsState ? SENTENCE_TEXT_SIZE : WORD_TEXT_SIZE, getResources().getDisplayMetrics()));
+        elementPaint.setColor(countdownTV.getCurrentTextColor()); //elements use the default text color of the theme
+
+        //gets the element list from the process wide cache, which only reads it from disk the first time
+        //the game can be started once it is ready
+        startGameTV.setEnabled(false);
+        new ElementRepository(this, wsState).load(new ElementRepository.Callback<ElementStore>() {
+            @Override
+            public void onResult(ElementStore store) {
+                if(isFinishing()) return;
+                elementStore = store;
+                startGameTV.setEnabled(true);
+            }
+        });
+
+        //the exposure is counted in frames of the display the game is shown on
+        float refreshRate = getWindowManager().getDefaultDisplay().getRefreshRate();
+        frameIntervalNanos = (long) (1000000000L / (refreshRate > 0 ? refreshRate : DEFAULT_REFRESH_RATE));
+
+        //sets the timer's text before the game starts so its size is known when placing elements around it
+        setTimerText(exposureMillis);
+
+        //tokenizes the answer as it is typed, so only the words touched by each edit are tokenized again
+        answerEditText.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence s, int start, int count, int after) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence s, int start, int before, int count) {
+                answerTokenizer.onTextChanged(s, start, before, count);
+            }
+
+            @Override
+            public void afterTextChanged(Editable s) {
+            }
+        });
 
         //set onClickListener for the finish button
         finishButton.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View view) {
-                //splits EditText text into separate words and stores them in a List
-                String text = answerEditText.getText().toString();
-                String[] elementArr = text.replaceAll("[^a-zA-z ]", "").split("\\s+");
-                List<String> answersList = new ArrayList<>();
-                for(String s : elementArr){
-                    answersList.add(s.toUpperCase());
+                showResults();
+            }
+        });
+    }
+
+    /**
+     * Scores the round and shows its results in the results panel
+     * The answer key and the user's answer are already tokenized, so scoring is all that is left
+     */
+    private void showResults(){
+        InputMethodManager imm = (InputMethodManager) getSystemService(INPUT_METHOD_SERVICE);
+        if(imm != null) imm.hideSoftInputFromWindow(answerEditText.getWindowToken(), 0);
+        answerEditText.setVisibility(View.GONE);
+        finishButton.setVisibility(View.GONE);
+        List<String> key = answerKey != null ? answerKey : new ArrayList<String>();
+        ScoringEngine.Score score = ScoringEngine.score(key, answerTokenizer.getTokens(), wsState);
+        resultsPanel.show(score);
+        if(roundElements != null) recordRound(score, roundElements, score.getMissedElements(roundElements));
+    }
+
+    /**
+     * Records the round on the I/O thread, so the results are shown without waiting for the disk
+     * Updates the miss weights of the elements of the round, so the missed ones come back in review rounds,
+     * adds the round to the SessionHistory and then shows the totals of today and this week in the results panel
+     * @param score is the Score of the round
+     * @param shown are the elements displayed during the round
+     * @param missed are the displayed elements the user missed
+     */
+    private void recordRound(final ScoringEngine.Score score, final List<String> shown, final List<String> missed){
+        final ElementStore store = elementStore;
+        final ReadFastApplication application = (ReadFastApplication) getApplication();
+        final long timestamp = System.currentTimeMillis();
+        final boolean roundWsState = wsState;
+        final int exposure = exposureMillis;
+        ElementRepository.getIoExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                store.recordRound(shown, missed);
+                List<String> hit = new ArrayList<>(shown);
+                hit.removeAll(new HashSet<>(missed));
+                SessionHistory.Round round = new SessionHistory.Round(timestamp, roundWsState, exposure, score.correct, score.total,
+                        SessionHistory.elementIds(hit), SessionHistory.elementIds(missed));
+                final SessionHistory.Summary today;
+                final SessionHistory.Summary week;
+                try {
+                    SessionHistory history = application.getSessionHistory();
+                    history.add(round);
+                    today = history.getDay(timestamp);
+                    week = history.getWeek(timestamp);
+                } catch (IOException e) {
+                    e.printStackTrace();
+                    return;
                 }
-                //Gets the elements that were displayed on the screen from elementIds and stores their String values in another List
-                List<String> origElementsList = new ArrayList<>();
-                for(int id : elementIds){
-                    TextView tv = findViewById(id);
-                    if(wsState){ //if sentences, split up the sentence into separate words before adding to the List as well
-                        String[] temp = tv.getText().toString().replaceAll("[.!?]", "").split("\\s+");
-                        for(String s: temp){
-                            origElementsList.add(s);
-                        }
+                runOnUiThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        if(resultsPanel.isShown()) resultsPanel.showHistory(today, week);
                     }
-                    else origElementsList.add(tv.getText().toString());
-                }
+                });
+            }
+        });
+    }
 
-                Intent intent = new Intent(GameActivity.this, ResultsActivity.class);
-                intent.putStringArrayListExtra(ANSWERS_KEY, (ArrayList<String>) origElementsList);
-                intent.putStringArrayListExtra(RESPONSES_KEY, (ArrayList<String>) answersList);
-                startActivity(intent);
+    /**
+     * Writes the rounds of the SessionHistory that are still in memory on the I/O thread
+     */
+    private void flushSessionHistory(){
+        final ReadFastApplication application = (ReadFastApplication) getApplication();
+        ElementRepository.getIoExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    application.getSessionHistory().flush();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
             }
         });
     }
 
+    /**
+     * Starts the next round of the session in place, reusing every view and the element list
+     */
+    @Override
+    public void onPlayAgain(){
+        resultsPanel.hide();
+        answerEditText.setText(""); //the tokenizer follows the text, so it is emptied as well
+        answerKey = null;
+        roundElements = null;
+        roundReady = false;
+        revealLatency = -1;
+        placementAttempts = 0;
+        exposureClock = null;
+        gameBoard.setRound(null, null);
+        timerTV.setTextColor(timerColor);
+        setTimerText(exposureMillis);
+        countdown();
+        buildRound();
+    }
+
+    /**
+     * Ends the session and returns to the main menu below this Activity
+     */
+    @Override
+    public void onHome(){
+        finish();
+    }
+
     /**
      * onClickListener for the startGame TextView
      * Starts the countdown when the user clicks this textview
@@ -129,6 +268,18 @@ public class GameActivity extends AppCompatActivity {
     public void onClick(View v){
         startGameTV.setVisibility(TextView.GONE);
         countdown();
+        buildRound();
+    }
+
+    /**
+     * Starts a RoundLayoutTask that draws, lays out and positions the elements of the round in the
+     * background while the countdown is running
+     */
+    private void buildRound(){
+        if(elementStore == null) return;
+        int[] timerRect = {(int) timerTV.getX(), (int) timerTV.getY(), timerTV.getWidth(), timerTV.getHeight()};
+        new RoundLayoutTask(elementStore, numOfElements, difficultyPercentile, reviewMissed, elementPaint, wsState ? convertToPX(SENTENCE_WIDTH) : 0,
+                gameBoard.getWidth(), gameBoard.getHeight(), ELEMENT_MARGIN, timerRect, this).execute();
     }
 
     /**
@@ -138,12 +289,11 @@ public class GameActivity extends AppCompatActivity {
      */
     private void countdown(){
         countdownTV.setVisibility(TextView.VISIBLE);
-        final long startTime = System.currentTimeMillis();
-        final Handler countdownHandler = new Handler();
-        Runnable countdownRunnable = new Runnable() {
+        final long startTime = SystemClock.uptimeMillis();
+        countdownRunnable = new Runnable() {
             @Override
             public void run() {
-                long curTime = System.currentTimeMillis() - startTime;
+                long curTime = SystemClock.uptimeMillis() - startTime;
                 int counter = (int) curTime / 1000;
                 if (counter < 3) {
                     countdownTV.setText(String.valueOf(3 - counter));
@@ -152,7 +302,6 @@ public class GameActivity extends AppCompatActivity {
                 else{
                     countdownTV.setVisibility(TextView.INVISIBLE);
                     runTimer();
-                    setTextViews();
                     countdownHandler.removeCallbacks(this);
                 }
             }
@@ -161,149 +310,119 @@ public class GameActivity extends AppCompatActivity {
     }
 
     /**
-     * Creates and initializes the textViews for each element that will be displayed
+     * Hands the text layouts and positions of a laid out round to the GameBoardView
+     * The elements stay hidden until revealElements() is called
+     * @param layout is the RoundLayout
      */
-    private void setTextViews(){
-        ConstraintLayout gameLayout = findViewById(R.id.game_layout);
-        for(int i = 0; i < numOfElements && i < elementList.size(); i++){
-            int pos = (int) (Math.random() * (elementList.size() - i) + i); //calculates a random position after i
-
-            TextView newText = new TextView(this);
-            newText.setText(elementList.get(pos));
-            newText.setId(View.generateViewId());
-            newText.setTextSize(TypedValue.COMPLEX_UNIT_SP, wsState ? 40 : 30);
-            if(wsState) {
-                newText.setWidth(convertToPX(220));
-                newText.setTextAlignment(View.TEXT_ALIGNMENT_CENTER);
-            }
-            newText.setVisibility(View.INVISIBLE);
-            elementIds.add(newText.getId());
-            gameLayout.addView(newText);
-            Collections.swap(elementList, i, pos); //swaps the element at pos with the element at i to assure that the element of pos is not used again
-        }
-        positionTextView();
+    @Override
+    public void onRoundLayoutReady(RoundLayoutTask.RoundLayout layout){
+        answerKey = layout.answerKey;
+        roundElements = layout.elements;
+        placementAttempts = layout.placementAttempts;
+        gameBoard.setRound(layout.layouts, layout.positions);
+        roundReady = true;
     }
 
     /**
-     * Randomly positions the TextViews referenced from the ids in the List elementIds
+     * Makes every element visible at once
+     * Records how long after the timer started the first frame with all elements visible was drawn
      */
-    private void positionTextView(){
-        for(int id : elementIds){
-            final TextView temp = findViewById(id);
-            //must use .post() method to get height and width of textViews for calculations, since they are set after the UI has been laid out
-            temp.post(new Runnable() {
-                @Override
-                public void run() {
-                    temp.setVisibility(View.VISIBLE);
-                    do{
-                        Point p = calculateRandPosition(temp);
-                        temp.setX(p.x);
-                        temp.setY(p.y);
-                    } while(findIfViewsOverlaps(temp, elementIds));
-
-
-                }
-            });
-        }
+    private void revealElements(){
+        final ConstraintLayout gameLayout = findViewById(R.id.game_layout);
+        final ViewTreeObserver observer = gameLayout.getViewTreeObserver();
+        observer.addOnDrawListener(new ViewTreeObserver.OnDrawListener() {
+            @Override
+            public void onDraw() {
+                revealLatency = (System.nanoTime() - timerStartNanos) / 1000;
+                final ViewTreeObserver.OnDrawListener listener = this;
+                //listeners cannot be removed while the tree is being drawn
+                gameLayout.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        gameLayout.getViewTreeObserver().removeOnDrawListener(listener);
+                    }
+                });
+            }
+        });
+        gameBoard.setElementsVisible(true);
     }
 
     /**
-     * Hides all elements referenced by the ids in the list elementIds
+     * Hides every element at once
      */
     private void hideAllElements(){
-        for(int id: elementIds){
-            TextView temp = findViewById(id);
-            temp.setVisibility(View.INVISIBLE);
-        }
+        gameBoard.setElementsVisible(false);
     }
 
     /**
-     * Calculates a random position given a TextView
-     * This method should only be used after the UI has been set and View width/height have been set
-     * otherwise the View may be positioned off screen
-     * @param view is the View that is being positioned
-     * @return a Point containing the coordinates of the random position
-     */
-    private Point calculateRandPosition(final View view){
-        int activityHeight = Resources.getSystem().getDisplayMetrics().heightPixels - getSoftKeyButtonsHeight();
-        int activityWidth = Resources.getSystem().getDisplayMetrics().widthPixels;
-        int tvHeight = view.getHeight();
-        int tvWidth = view.getWidth();
-        int x = (int) (Math.random() * (activityWidth - tvWidth));
-        int y = (int) (Math.random() * (activityHeight - tvHeight));
-
-        return new Point(x, y);
-    }
-
-    /**
-     * Starts a timer based off of timerLength in the timer TextView
-     * Utilizes Handler and Runnable to avoid stopping the user from interacting
-     * with the app
+     * Starts a timer based off of exposureMillis in the timer TextView
+     * The elements are shown and hidden from Choreographer frame callbacks, so they appear and disappear
+     * on vsync boundaries and stay visible for a whole number of frames closest to the exposure
+     * The elements are shown in the first frame after the round is laid out, and the exposure starts there
      */
     private void runTimer(){
         timerTV.setVisibility(View.VISIBLE);
-        final long startTime = System.currentTimeMillis(); //stores the system time of when the timer starts
-        final Handler timerHandler = new Handler();
-        final Runnable timerRunnable = new Runnable() {
+        timerStartNanos = System.nanoTime();
+        exposureClock = new ExposureClock(exposureMillis, frameIntervalNanos);
+        exposureFrameCallback = new Choreographer.FrameCallback() {
             @Override
-            public void run() {
-                long curTime = System.currentTimeMillis() - startTime; //stores how much time has passed since the timer started
-                int timerVal = (int) (timerLength * 1000 - curTime); //calculates the amount of time left
-                if(timerLength * 1000 > curTime){
-                    if(timerVal <= 3000) timerTV.setTextColor(Color.RED);
-                    timerTV.setText(String.format("%d.%d", timerVal / 1000, timerVal % 1000 / 100));
-                    timerHandler.postDelayed(this, 100);
+            public void doFrame(long frameTimeNanos) {
+                if(!exposureClock.isStarted()){
+                    if(roundReady){
+                        //views changed during a frame callback are drawn in that same frame
+                        revealElements();
+                        exposureClock.start(frameTimeNanos);
+                    }
                 }
-                else{
+                else if(exposureClock.onFrame(frameTimeNanos)){
+                    exposureFrameCallback = null;
                     timerTV.setVisibility(TextView.INVISIBLE);
                     hideAllElements();
                     loadAnswerScreen();
-                    timerHandler.removeCallbacks(this);
+                    recordRoundMetrics();
+                    return;
                 }
+                long remaining = exposureClock.getRemainingMillis(frameTimeNanos);
+                if(remaining <= 3000) timerTV.setTextColor(Color.RED);
+                setTimerText(remaining);
+                Choreographer.getInstance().postFrameCallback(this);
             }
         };
-        timerHandler.post(timerRunnable);
+        Choreographer.getInstance().postFrameCallback(exposureFrameCallback);
     }
 
     /**
-     *
-     * @param v is the View being tested for overlap
-     * @param otherViewIds is the List of all the other Views currently on the screen
-     * @return true if there is overlap, false if there is not
+     * Adds the timing of the round that just ended to the RoundMetrics and saves them on the I/O thread
      */
-    private boolean findIfViewsOverlaps(View v, List<Integer> otherViewIds){
-        List<Integer> tempIdList = new ArrayList<>();
-        for(int id : otherViewIds){
-            tempIdList.add(id);
-        }
-        tempIdList.add(timerTV.getId());
-        int[] viewPos = new int[2];
-        v.getLocationOnScreen(viewPos);
-        for(int id : tempIdList){
-            View otherView = findViewById(id);
-            if(id != v.getId() && otherView.getVisibility() == View.VISIBLE) {
-                int[] otherViewPos = new int[2];
-                otherView.getLocationOnScreen(otherViewPos);
-                Rect viewRect = new Rect(viewPos[0] - 15, viewPos[1] - 15, viewPos[0] + v.getWidth() + 15, viewPos[1] + v.getHeight() + 15);
-                Rect otherViewRect = new Rect(otherViewPos[0] - 15, otherViewPos[1] - 15, otherViewPos[0] + otherView.getWidth()  + 15, otherViewPos[1] + otherView.getHeight() + 15);
-                if (viewRect.intersect(otherViewRect)) return true;
+    private void recordRoundMetrics(){
+        final ReadFastApplication application = (ReadFastApplication) getApplication();
+        final long latency = revealLatency;
+        final long visibleMicros = exposureClock.getVisibleNanos() / 1000;
+        final int droppedFrames = exposureClock.getDroppedFrames();
+        final int attempts = placementAttempts;
+        ElementRepository.getIoExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                RoundMetrics metrics = application.getRoundMetrics();
+                metrics.record(latency, visibleMicros, droppedFrames, attempts);
+                try {
+                    metrics.save();
+                } catch (IOException e) {
+                    e.printStackTrace();
+                }
             }
-        }
-        return false;
+        });
     }
 
     /**
-     * Gets the height of the soft key buttons
-     * @return height of the soft key buttons
+     * Shows the time left on the timer in seconds and tenths of a second, only setting its text if it changed
+     * @param millis is the time left in milliseconds
      */
-    private int getSoftKeyButtonsHeight(){
-        DisplayMetrics dm = new DisplayMetrics();
-        getWindowManager().getDefaultDisplay().getMetrics(dm);
-        int usableHeight = dm.heightPixels;
-        getWindowManager().getDefaultDisplay().getRealMetrics(dm);
-        int realHeight = dm.heightPixels;
-        if(realHeight > usableHeight) return realHeight - usableHeight;
-        else return 0;
+    private void setTimerText(long millis){
+        int tenths = (int) (millis / 100);
+        if(tenths == shownTimerTenths) return;
+        shownTimerTenths = tenths;
+        timerTV.setText(String.format("%d.%d", tenths / 10, tenths % 10));
     }
 
     /**
@@ -325,14 +444,32 @@ public class GameActivity extends AppCompatActivity {
         return (int) (dp * scale + 0.5f);
     }
 
+    /**
+     * Overrides onStop to write the rounds of the session that are not on disk yet, as the process may be killed in the background
+     */
+    @Override
+    protected void onStop() {
+        super.onStop();
+        flushSessionHistory();
+    }
+
+    /**
+     * Overrides onDestroy to stop the countdown and the exposure timer if the game is left while they are running
+     */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if(countdownRunnable != null) countdownHandler.removeCallbacks(countdownRunnable);
+        if(exposureFrameCallback != null) Choreographer.getInstance().removeFrameCallback(exposureFrameCallback);
+    }
+
     /**
      * Overrides the onBacPressed method
-     * Sends the user to the MainMenuActivity so that the user cannot
-     * replay the game
+     * Ends the session and returns to the MainMenu below this Activity instead of starting a new one,
+     * so the back stack does not grow
      */
     @Override
     public void onBackPressed() {
-        Intent intent = new Intent(GameActivity.this, MainMenu.class);
-        startActivity(intent);
+        finish();
     }
 }
@@ -0,0 +1,64 @@
+package com.example.android.readfast;
+
+import android.content.Context;
+import android.graphics.Canvas;
+import android.text.StaticLayout;
+import android.util.AttributeSet;
+import android.view.View;
+
+/**
+ * This View draws every element of a round on a single canvas from the StaticLayouts built by
+ * RoundLayoutTask, instead of one TextView per element. Elements need no measure or layout pass of
+ * their own, and the whole round is shown or hidden with a single invalidate.
+ * Sentences keep the fixed width and centered alignment they were laid out with.
+ */
+public class GameBoardView extends View {
+
+    private StaticLayout[] layouts; //text layout of every element, null until a round is set
+    private int[] positions; //x and y of element i at 2 * i and 2 * i + 1, relative to this view
+    private boolean elementsVisible; //whether the elements are drawn
+
+    public GameBoardView(Context context) {
+        super(context);
+    }
+
+    public GameBoardView(Context context, AttributeSet attrs) {
+        super(context, attrs);
+    }
+
+    /**
+     * Sets the elements of a round, which stay hidden until setElementsVisible is called
+     * @param layouts are the text layouts of the elements
+     * @param positions contains the x and y of element i at 2 * i and 2 * i + 1
+     */
+    public void setRound(StaticLayout[] layouts, int[] positions) {
+        this.layouts = layouts;
+        this.positions = positions;
+        if (elementsVisible) invalidate();
+    }
+
+    /**
+     * Shows or hides every element at once
+     * @param visible is whether the elements are drawn
+     */
+    public void setElementsVisible(boolean visible) {
+        if (elementsVisible == visible) return;
+        elementsVisible = visible;
+        invalidate();
+    }
+
+    /**
+     * Draws every element at its position
+     * @param canvas is the Canvas
+     */
+    @Override
+    protected void onDraw(Canvas canvas) {
+        if (!elementsVisible || layouts == null) return;
+        for (int i = 0; i < layouts.length; i++) {
+            int save = canvas.save();
+            canvas.translate(positions[i * 2], positions[i * 2 + 1]);
+            layouts[i].draw(canvas);
+            canvas.restoreToCount(save);
+        }
+    }
+}
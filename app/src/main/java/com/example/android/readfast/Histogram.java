@@ -0,0 +1,201 @@
+package com.example.android.readfast;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * This class is a compact histogram of non-negative values in the style of HdrHistogram.
+ */
+public class Histogram {
+
+    private static final int SUB_BUCKET_BITS = 5; //log2 of the number of sub-buckets per power of two
+    private static final int SUB_BUCKET_COUNT = 1 << SUB_BUCKET_BITS; //number of sub-buckets per power of two
+    private static final int MAX_EXPONENT = 39; //exponent of the highest power of two that is tracked
+    /**
+     * This constant is the highest value that can be recorded, larger values are recorded as it
+     */
+    public static final long MAX_VALUE = (1L << (MAX_EXPONENT + 1)) - 1;
+    private static final int BUCKET_COUNT = SUB_BUCKET_COUNT + (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKET_COUNT; //number of counts
+
+    private final int[] counts = new int[BUCKET_COUNT]; //number of values recorded in every bucket
+    private long totalCount; //number of values recorded
+    private long sum; //sum of the values recorded, to compute the mean
+    private long min = Long.MAX_VALUE; //lowest value recorded
+    private long max; //highest value recorded
+
+    /**
+     * Records a value
+     * @param value is the value, negative values are recorded as 0
+     */
+    public void record(long value) {
+        value = Math.max(0, Math.min(MAX_VALUE, value));
+        counts[indexOf(value)]++;
+        totalCount++;
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Gets the number of values recorded
+     * @return the number of values
+     */
+    public long getTotalCount() {
+        return totalCount;
+    }
+
+    /**
+     * Gets the lowest value recorded
+     * @return the lowest value, or 0 if nothing was recorded
+     */
+    public long getMin() {
+        return totalCount == 0 ? 0 : min;
+    }
+
+    /**
+     * Gets the highest value recorded
+     * @return the highest value, or 0 if nothing was recorded
+     */
+    public long getMax() {
+        return max;
+    }
+
+    /**
+     * Gets the mean of the values recorded
+     * @return the mean, or 0 if nothing was recorded
+     */
+    public double getMean() {
+        return totalCount == 0 ? 0 : (double) sum / totalCount;
+    }
+
+    /**
+     * Gets the value below or at which a percentage of the recorded values are
+     * @param percentile is the percentage, from 0 to 100
+     * @return the highest value of the bucket the percentile falls in, capped at the highest value recorded
+     */
+    public long getValueAtPercentile(double percentile) {
+        if (totalCount == 0) return 0;
+        long target = Math.max(1, (long) Math.ceil(Math.min(100, percentile) / 100 * totalCount));
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += counts[i];
+            if (seen >= target) return Math.min(max, highestValueOf(i));
+        }
+        return max;
+    }
+
+    /**
+     * Gets the number of buckets, for iterating over them with getCount, getLowestValue and getHighestValue
+     * @return the number of buckets
+     */
+    public int getBucketCount() {
+        return BUCKET_COUNT;
+    }
+
+    /**
+     * Gets the number of values recorded in a bucket
+     * @param bucket is the index of the bucket
+     * @return the number of values
+     */
+    public int getCount(int bucket) {
+        return counts[bucket];
+    }
+
+    /**
+     * Gets the lowest value counted in a bucket
+     * @param bucket is the index of the bucket
+     * @return the lowest value
+     */
+    public long getLowestValue(int bucket) {
+        return lowestValueOf(bucket);
+    }
+
+    /**
+     * Gets the highest value counted in a bucket
+     * @param bucket is the index of the bucket
+     * @return the highest value
+     */
+    public long getHighestValue(int bucket) {
+        return highestValueOf(bucket);
+    }
+
+    /**
+     * Removes every recorded value
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        sum = 0;
+        min = Long.MAX_VALUE;
+        max = 0;
+    }
+
+    /**
+     * Writes the non-empty buckets and the statistics of the histogram
+     * @param out is the DataOutput
+     * @throws IOException if the histogram cannot be written
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.writeLong(totalCount);
+        out.writeLong(sum);
+        out.writeLong(min);
+        out.writeLong(max);
+        int used = 0;
+        for (int count : counts) {
+            if (count > 0) used++;
+        }
+        out.writeInt(used);
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (counts[i] == 0) continue;
+            out.writeShort(i);
+            out.writeInt(counts[i]);
+        }
+    }
+
+    /**
+     * Replaces the recorded values with a histogram written by writeTo
+     * @param in is the DataInput
+     * @throws IOException if the histogram cannot be read or is malformed
+     */
+    public void readFrom(DataInput in) throws IOException {
+        reset();
+        totalCount = in.readLong();
+        sum = in.readLong();
+        min = in.readLong();
+        max = in.readLong();
+        int used = in.readInt();
+        for (int i = 0; i < used; i++) {
+            int bucket = in.readUnsignedShort();
+            if (bucket >= BUCKET_COUNT) throw new IOException("Bucket " + bucket + " out of range");
+            counts[bucket] = in.readInt();
+        }
+    }
+
+    /**
+     * Finds the bucket a value is counted in
+     * @param value is the value, from 0 to MAX_VALUE
+     * @return the index of the bucket
+     */
+    static int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) return (int) value;
+        int exponent = 63 - Long.numberOfLeadingZeros(value); //value is in [2^exponent, 2^(exponent + 1))
+        int shift = exponent - SUB_BUCKET_BITS;
+        int subBucket = (int) (value >>> shift) - SUB_BUCKET_COUNT; //top SUB_BUCKET_BITS bits below the leading one
+        return SUB_BUCKET_COUNT + shift * SUB_BUCKET_COUNT + subBucket;
+    }
+
+    private static long lowestValueOf(int bucket) {
+        if (bucket < SUB_BUCKET_COUNT) return bucket;
+        int shift = (bucket - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        int subBucket = (bucket - SUB_BUCKET_COUNT) % SUB_BUCKET_COUNT;
+        return (long) (SUB_BUCKET_COUNT + subBucket) << shift;
+    }
+
+    private static long highestValueOf(int bucket) {
+        if (bucket < SUB_BUCKET_COUNT) return bucket;
+        int shift = (bucket - SUB_BUCKET_COUNT) / SUB_BUCKET_COUNT;
+        return lowestValueOf(bucket) + (1L << shift) - 1;
+    }
+}
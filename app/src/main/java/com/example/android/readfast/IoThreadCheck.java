@@ -0,0 +1,31 @@
+package com.example.android.readfast;
+
+/**
+ * This class detects element file I/O on a guarded thread, which debug builds set to the main thread.
+ * ElementStore, ElementFile and ElementDeck call check() before they open, write, rename or delete a file.
+ */
+public class IoThreadCheck {
+
+    private static volatile Thread guardedThread; //thread that must not access element files, null if checks are off
+
+    private IoThreadCheck() {
+    }
+
+    /**
+     * Sets the thread that must not access element files
+     * @param thread is the thread, or null to turn checks off
+     */
+    public static void setGuardedThread(Thread thread) {
+        guardedThread = thread;
+    }
+
+    /**
+     * Fails if the calling thread is the guarded thread
+     * @throws IllegalStateException if the calling thread is the guarded thread
+     */
+    public static void check() {
+        if (Thread.currentThread() == guardedThread) {
+            throw new IllegalStateException("Element file I/O on " + guardedThread.getName() + ", use ElementRepository instead");
+        }
+    }
+}
@@ -7,9 +7,6 @@ import android.os.Bundle;
 import android.view.View;
 import android.widget.Button;
 
-import java.io.File;
-import java.io.IOException;
-
 /**
  * This is the launch Activity of the game. It provides options to either
  * play a game or modify the current settings
@@ -24,19 +21,6 @@ public class MainMenu extends AppCompatActivity {
         super.onCreate(savedInstanceState);
         setContentView(R.layout.activity_main_menu);
 
-        //creates new element list files for words and sentences if they don't already exist
-        File elementListDir = getDir("element_lists", MODE_PRIVATE);
-        try{
-            new File(elementListDir.getAbsolutePath() + "/word_list.txt").createNewFile();
-        } catch (IOException e){
-            e.printStackTrace();
-        }
-        try{
-            new File(elementListDir.getAbsolutePath() + "/sentence_list.txt").createNewFile();
-        } catch (IOException e){
-            e.printStackTrace();
-        }
-
         //initializes the play button and sets onClickListener
         play = findViewById(R.id.playButton);
         play.setOnClickListener(new View.OnClickListener(){
@@ -0,0 +1,210 @@
+package com.example.android.readfast;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Random;
+
+/**
+ * This class keeps a miss weight for every slot of an element list, so the game can keep showing
+ * the elements the user misses.
+ */
+public class MissWeights {
+
+    /**
+     * This constant is the weight added to an element every time it is missed
+     */
+    public static final int MISS_STEP = 4;
+    /**
+     * This constant is the highest weight of an element
+     */
+    public static final int MAX_WEIGHT = 64;
+
+    private static final int MAGIC = 0x52464d57; //"RFMW", marks a file as a miss weights file
+    private static final int HEADER_SIZE = 8; //size in bytes of the magic number and capacity
+    private static final int MIN_CAPACITY = 64; //smallest number of slots a miss weights file has room for
+
+    private final File file; //file the weights are stored in
+    private final Random random; //source of randomness for drawing
+    private MappedByteBuffer buffer; //mapped contents of the file
+    private int capacity; //number of slots the file has room for
+    private FenwickTree tree; //sums of the weights
+
+    /**
+     * Constructs MissWeights backed by a file
+     * @param file is the miss weights file
+     */
+    private MissWeights(File file) {
+        this.file = file;
+        random = new Random();
+    }
+
+    /**
+     * Opens a miss weights file, creating one without misses if the file does not exist or is not a miss weights file
+     * @param f is the file
+     * @return the MissWeights
+     * @throws IOException if the file cannot be read or written
+     */
+    public static MissWeights open(File f) throws IOException {
+        IoThreadCheck.check();
+        MissWeights missWeights = new MissWeights(f);
+        if (f.length() >= HEADER_SIZE) {
+            missWeights.map(0);
+            if (missWeights.buffer.getInt(0) == MAGIC) {
+                missWeights.capacity = missWeights.buffer.getInt(4);
+                int[] weights = new int[missWeights.capacity];
+                for (int slot = 0; slot < weights.length; slot++) {
+                    weights[slot] = missWeights.getStored(slot);
+                }
+                missWeights.tree = new FenwickTree(weights, weights.length);
+                return missWeights;
+            }
+        }
+        missWeights.resize(MIN_CAPACITY);
+        missWeights.tree = new FenwickTree(new int[0], MIN_CAPACITY);
+        return missWeights;
+    }
+
+    /**
+     * Gets the miss weight of a slot
+     * @param slot is the slot
+     * @return the weight, 0 if the element was never missed or has been hit since
+     */
+    public int getWeight(int slot) {
+        return tree.get(slot);
+    }
+
+    /**
+     * Gets the sum of every miss weight
+     * @return the total weight, 0 if there is nothing to review
+     */
+    public long getTotal() {
+        return tree.total();
+    }
+
+    /**
+     * Records that the user missed an element
+     * @param slot is the slot of the element
+     */
+    public void recordMiss(int slot) {
+        setWeight(slot, Math.min(MAX_WEIGHT, tree.get(slot) + MISS_STEP));
+    }
+
+    /**
+     * Records that the user entered an element
+     * @param slot is the slot of the element
+     */
+    public void recordHit(int slot) {
+        setWeight(slot, tree.get(slot) / 2);
+    }
+
+    /**
+     * Forgets the misses of a slot whose element was removed
+     * @param slot is the slot
+     */
+    public void remove(int slot) {
+        setWeight(slot, 0);
+    }
+
+    /**
+     * Forgets every miss
+     */
+    public void clear() {
+        for (int slot = 0; slot < capacity; slot++) {
+            setStored(slot, 0);
+        }
+        tree = new FenwickTree(new int[0], capacity);
+    }
+
+    /**
+     * Draws distinct slots in proportion to their miss weights
+     * Every drawn slot is taken out of the tree until the draw is done, so no slot is drawn twice
+     * @param k is the number of slots to draw
+     * @return the drawn slots, fewer than k if fewer slots have a miss weight
+     */
+    public int[] draw(int k) {
+        int[] drawn = new int[k];
+        int[] drawnWeights = new int[k];
+        int count = 0;
+        while (count < k) {
+            int slot = tree.sample(random);
+            if (slot < 0) break;
+            drawn[count] = slot;
+            drawnWeights[count] = tree.get(slot);
+            tree.set(slot, 0);
+            count++;
+        }
+        for (int i = 0; i < count; i++) {
+            tree.set(drawn[i], drawnWeights[i]);
+        }
+        if (count == k) return drawn;
+        int[] fewer = new int[count];
+        System.arraycopy(drawn, 0, fewer, 0, count);
+        return fewer;
+    }
+
+    private void setWeight(int slot, int weight) {
+        if (weight == tree.get(slot)) return;
+        ensureCapacity(slot + 1);
+        setStored(slot, weight);
+        tree.set(slot, weight);
+    }
+
+    /**
+     * Grows the miss weights file if it does not have room for a number of slots
+     * @param needed is the number of slots needed
+     */
+    private void ensureCapacity(int needed) {
+        if (needed <= capacity) return;
+        try {
+            resize(Math.max(needed, capacity * 2));
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not grow miss weights file", e);
+        }
+    }
+
+    /**
+     * Rewrites the miss weights file with room for a new number of slots, keeping its contents
+     * @param newCapacity is the new number of slots
+     * @throws IOException if the file cannot be written
+     */
+    private void resize(int newCapacity) throws IOException {
+        IoThreadCheck.check();
+        int[] weights = new int[newCapacity];
+        for (int slot = 0; slot < capacity; slot++) {
+            weights[slot] = getStored(slot);
+        }
+        capacity = newCapacity;
+        map(HEADER_SIZE + 4L * capacity);
+        for (int slot = 0; slot < capacity; slot++) {
+            setStored(slot, weights[slot]);
+        }
+        buffer.putInt(0, MAGIC);
+        buffer.putInt(4, capacity);
+    }
+
+    /**
+     * Maps the miss weights file into memory
+     * @param length is the length the file is resized to, or 0 to keep its current length
+     * @throws IOException if the file cannot be mapped
+     */
+    private void map(long length) throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(file, "rw");
+        try {
+            if (length > 0) raf.setLength(length);
+            buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, raf.length());
+        } finally {
+            raf.close();
+        }
+    }
+
+    private int getStored(int slot) {
+        return buffer.getInt(HEADER_SIZE + slot * 4);
+    }
+
+    private void setStored(int slot, int weight) {
+        buffer.putInt(HEADER_SIZE + slot * 4, weight);
+    }
+}
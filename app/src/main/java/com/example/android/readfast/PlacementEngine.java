@@ -0,0 +1,228 @@
+package com.example.android.readfast;
+
+import java.util.Random;
+
+/**
+ * This class finds non-overlapping random positions for the elements displayed during the game.
+ */
+public class PlacementEngine {
+
+    /**
+     * Default number of random positions tried for an element before falling back to a scan
+     */
+    public static final int DEFAULT_MAX_ATTEMPTS = 64;
+
+    /**
+     * Position written by place() for an element that does not fit anywhere in the area
+     */
+    public static final int NOT_PLACED = -1;
+
+    private static final int FREE = Integer.MIN_VALUE; //returned by findBlocker() when nothing overlaps
+
+    private final int areaWidth; //width of the area elements are placed in
+    private final int areaHeight; //height of the area elements are placed in
+    private final int margin; //minimum space kept around every rectangle
+    private final int maxAttempts; //number of random positions tried for each element
+    private final Random random; //source of random positions
+
+    private int cellSize; //width and height of a grid cell
+    private int cols; //number of grid columns
+    private int rows; //number of grid rows
+    private int[][] cellRects; //indices of the rectangles overlapping each grid cell
+    private int[] cellCounts; //number of rectangles overlapping each grid cell
+    private int[] rects; //left, top, right and bottom of every occupied rectangle, already grown by the margin
+    private int rectCount; //number of occupied rectangles
+    private int attempts; //number of positions tested by the last call to place()
+
+    /**
+     * Constructs a PlacementEngine
+     * @param areaWidth is the width of the area elements are placed in
+     * @param areaHeight is the height of the area elements are placed in
+     * @param margin is the minimum space kept around every element
+     * @param maxAttempts is the number of random positions tried for each element
+     * @param random is the source of random positions
+     */
+    public PlacementEngine(int areaWidth, int areaHeight, int margin, int maxAttempts, Random random) {
+        this.areaWidth = areaWidth;
+        this.areaHeight = areaHeight;
+        this.margin = margin;
+        this.maxAttempts = maxAttempts;
+        this.random = random;
+        rects = new int[64];
+    }
+
+    /**
+     * Marks a rectangle as occupied before placing elements, such as the timer
+     * The grid is only created by place(), so that its cells are sized after the elements rather than the obstacle
+     * @param x is the left edge of the rectangle
+     * @param y is the top edge of the rectangle
+     * @param width is the width of the rectangle
+     * @param height is the height of the rectangle
+     */
+    public void addObstacle(int x, int y, int width, int height) {
+        addRect(x, y, width, height);
+        if (cellRects != null) index(rectCount - 1);
+    }
+
+    /**
+     * Places every element in one call
+     * @param widths are the widths of the elements
+     * @param heights are the heights of the elements
+     * @return the positions of the elements, with the x and y of element i at 2 * i and 2 * i + 1,
+     * or NOT_PLACED for both if element i overlaps something wherever it is placed
+     */
+    public int[] place(int[] widths, int[] heights) {
+        int largest = 0;
+        for (int i = 0; i < widths.length; i++) {
+            largest = Math.max(largest, Math.max(widths[i], heights[i]));
+        }
+        ensureGrid(largest);
+        attempts = 0;
+        int[] positions = new int[widths.length * 2];
+        for (int i = 0; i < widths.length; i++) {
+            placeOne(widths[i], heights[i], positions, i * 2);
+        }
+        return positions;
+    }
+
+    /**
+     * Gets the number of positions tested by the last call to place()
+     * @return the number of attempts
+     */
+    public int getAttempts() {
+        return attempts;
+    }
+
+    /**
+     * Finds a position for a single element and marks it as occupied, or writes NOT_PLACED if there is none
+     * @param w is the width of the element
+     * @param h is the height of the element
+     * @param positions is the array the position is written to
+     * @param offset is where in positions the x and y are written
+     */
+    private void placeOne(int w, int h, int[] positions, int offset) {
+        int maxX = Math.max(0, areaWidth - w);
+        int maxY = Math.max(0, areaHeight - h);
+        int x = 0;
+        int y = 0;
+        boolean found = false;
+        for (int i = 0; i < maxAttempts && !found; i++) {
+            x = random.nextInt(maxX + 1);
+            y = random.nextInt(maxY + 1);
+            attempts++;
+            found = findBlocker(x, y, w, h) == FREE;
+        }
+        //deterministic fallback: scan the area row by row, jumping past the rectangle blocking each position
+        int step = Math.max(1, cellSize / 2);
+        for (int sy = 0; sy <= maxY && !found; sy += step) {
+            int sx = 0;
+            while (sx <= maxX && !found) {
+                attempts++;
+                int blockerRight = findBlocker(sx, sy, w, h);
+                if (blockerRight == FREE) {
+                    x = sx;
+                    y = sy;
+                    found = true;
+                } else {
+                    sx = Math.max(sx + 1, blockerRight + margin);
+                }
+            }
+        }
+        if (!found) {
+            positions[offset] = NOT_PLACED;
+            positions[offset + 1] = NOT_PLACED;
+            return;
+        }
+        positions[offset] = x;
+        positions[offset + 1] = y;
+        addRect(x, y, w, h);
+        index(rectCount - 1);
+    }
+
+    /**
+     * Checks whether a rectangle grown by the margin overlaps any occupied rectangle
+     * @return FREE if the rectangle does not overlap anything, otherwise the right edge of an overlapping rectangle
+     */
+    private int findBlocker(int x, int y, int w, int h) {
+        int left = x - margin;
+        int top = y - margin;
+        int right = x + w + margin;
+        int bottom = y + h + margin;
+        int firstCol = col(left);
+        int lastCol = col(right);
+        int firstRow = row(top);
+        int lastRow = row(bottom);
+        for (int r = firstRow; r <= lastRow; r++) {
+            for (int c = firstCol; c <= lastCol; c++) {
+                int cell = r * cols + c;
+                for (int i = 0; i < cellCounts[cell]; i++) {
+                    int rect = cellRects[cell][i] * 4;
+                    if (left < rects[rect + 2] && rects[rect] < right && top < rects[rect + 3] && rects[rect + 1] < bottom) {
+                        return rects[rect + 2];
+                    }
+                }
+            }
+        }
+        return FREE;
+    }
+
+    /**
+     * Adds a rectangle grown by the margin to the occupied rectangles
+     */
+    private void addRect(int x, int y, int w, int h) {
+        if ((rectCount + 1) * 4 > rects.length) rects = grow(rects);
+        int rect = rectCount * 4;
+        rects[rect] = x - margin;
+        rects[rect + 1] = y - margin;
+        rects[rect + 2] = x + w + margin;
+        rects[rect + 3] = y + h + margin;
+        rectCount++;
+    }
+
+    /**
+     * Adds an occupied rectangle to every grid cell it covers
+     * @param index is the index of the rectangle
+     */
+    private void index(int index) {
+        int rect = index * 4;
+        for (int r = row(rects[rect + 1]); r <= row(rects[rect + 3]); r++) {
+            for (int c = col(rects[rect]); c <= col(rects[rect + 2]); c++) {
+                int cell = r * cols + c;
+                if (cellRects[cell] == null) cellRects[cell] = new int[4];
+                if (cellCounts[cell] == cellRects[cell].length) cellRects[cell] = grow(cellRects[cell]);
+                cellRects[cell][cellCounts[cell]++] = index;
+            }
+        }
+    }
+
+    /**
+     * Creates the grid the first time elements are placed, sizing its cells after the largest element,
+     * and adds the obstacles added so far to it
+     * @param largest is the largest width or height of the elements
+     */
+    private void ensureGrid(int largest) {
+        if (cellRects != null) return;
+        cellSize = Math.max(16, largest / 2 + margin);
+        cols = areaWidth / cellSize + 1;
+        rows = areaHeight / cellSize + 1;
+        cellRects = new int[cols * rows][];
+        cellCounts = new int[cols * rows];
+        for (int i = 0; i < rectCount; i++) {
+            index(i);
+        }
+    }
+
+    private int col(int x) {
+        return Math.min(cols - 1, Math.max(0, x / cellSize));
+    }
+
+    private int row(int y) {
+        return Math.min(rows - 1, Math.max(0, y / cellSize));
+    }
+
+    private static int[] grow(int[] arr) {
+        int[] bigger = new int[arr.length * 2];
+        System.arraycopy(arr, 0, bigger, 0, arr.length);
+        return bigger;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.android.readfast;
+
+import android.app.Application;
+import android.os.Looper;
+import android.os.StrictMode;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.TimeZone;
+
+/**
+ * This Application sets up app wide state before any Activity is created and holds the ElementCache,
+ * the RoundMetrics and the SessionHistory shared by every Activity.
+ * Debug builds make any disk access on the main thread fail, through StrictMode and through IoThreadCheck
+ * for element file I/O, so such access is caught during development and tests.
+ */
+public class ReadFastApplication extends Application {
+
+    private static final String ROUND_METRICS_FILE = "round_metrics.bin"; //file the round metrics are stored in
+    private static final String SESSION_HISTORY_FILE = "session_history.log"; //file every round played is logged in
+
+    private final ElementCache elementCache = new ElementCache(); //element lists loaded in this process
+    private RoundMetrics roundMetrics; //timing of every round played, null until it is read
+    private SessionHistory sessionHistory; //history of every round played, null until it is opened
+
+    /**
+     * Overrides onCreate to install the debug checks
+     */
+    @Override
+    public void onCreate() {
+        super.onCreate();
+        if (BuildConfig.DEBUG) {
+            IoThreadCheck.setGuardedThread(Looper.getMainLooper().getThread());
+            //the settings are read by every Activity, so they are loaded before disk access becomes fatal
+            getSharedPreferences(SettingsActivity.SHARED_PREFERENCES_FILE, 0).getAll();
+            StrictMode.setThreadPolicy(new StrictMode.ThreadPolicy.Builder()
+                    .detectDiskReads()
+                    .detectDiskWrites()
+                    .penaltyLog()
+                    .penaltyDeath()
+                    .build());
+        }
+    }
+
+    /**
+     * Gets the process wide cache of element lists
+     * @return the ElementCache
+     */
+    public ElementCache getElementCache() {
+        return elementCache;
+    }
+
+    /**
+     * Gets the timing of every round played, reading it the first time
+     * This method must only be run on the I/O thread
+     * @return the RoundMetrics
+     */
+    public synchronized RoundMetrics getRoundMetrics() {
+        if (roundMetrics == null) roundMetrics = RoundMetrics.open(new File(getFilesDir(), ROUND_METRICS_FILE));
+        return roundMetrics;
+    }
+
+    /**
+     * Gets the history of every round played, opening it the first time
+     * This method must only be run on the I/O thread
+     * @return the SessionHistory
+     * @throws IOException if the history cannot be read
+     */
+    public synchronized SessionHistory getSessionHistory() throws IOException {
+        if (sessionHistory == null) sessionHistory = SessionHistory.open(new File(getFilesDir(), SESSION_HISTORY_FILE), TimeZone.getDefault());
+        return sessionHistory;
+    }
+}
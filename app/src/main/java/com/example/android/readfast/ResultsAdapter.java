@@ -0,0 +1,116 @@
+package com.example.android.readfast;
+
+import android.content.Context;
+import android.graphics.Color;
+import android.support.v7.widget.RecyclerView;
+import android.view.LayoutInflater;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.TextView;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * This class functions as an adapter to populate the results RecyclerView with one row per scored element.
+ * Every row has two columns: the displayed element on the left and the user's response on the right.
+ * Hits, misses and extras are separate view types, so recycled rows never need to be restyled.
+ */
+public class ResultsAdapter extends RecyclerView.Adapter<ResultsAdapter.ResultsAdapterViewHolder> {
+
+    private List<ScoringEngine.Entry> entries; //scored elements in display order
+
+    /**
+     * Constructs an empty ResultsAdapter
+     */
+    public ResultsAdapter() {
+        entries = new ArrayList<>();
+        setHasStableIds(true);
+    }
+
+    /**
+     * Custom ViewHolder class that sets Views within each row of the RecyclerView
+     */
+    public class ResultsAdapterViewHolder extends RecyclerView.ViewHolder {
+        public final TextView originalTextView; //TextView containing the displayed element
+        public final TextView responseTextView; //TextView containing the user's response
+
+        /**
+         * Constructs a ResultsAdapterViewHolder in View v
+         * @param v the View that the ViewHolder is constructed within
+         */
+        public ResultsAdapterViewHolder(View v) {
+            super(v);
+            originalTextView = v.findViewById(R.id.original_element_tv);
+            responseTextView = v.findViewById(R.id.response_element_tv);
+        }
+    }
+
+    /**
+     * Overrides onCreateViewHolder which creates a ResultsAdapterViewHolder styled for its row type
+     * Misses are red in the left column, extras are red in the right column
+     * @param parent
+     * @param viewType is ScoringEngine.HIT, MISS or EXTRA
+     * @return the ResultsAdapterViewHolder
+     */
+    @Override
+    public ResultsAdapterViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        Context context = parent.getContext();
+        View view = LayoutInflater.from(context).inflate(R.layout.results_list_item, parent, false);
+        ResultsAdapterViewHolder holder = new ResultsAdapterViewHolder(view);
+        if (viewType == ScoringEngine.MISS) holder.originalTextView.setTextColor(Color.RED);
+        if (viewType == ScoringEngine.EXTRA) holder.responseTextView.setTextColor(Color.RED);
+        return holder;
+    }
+
+    /**
+     * Overrides onBindViewHolder
+     * Sets the text of the columns that the entry at the same position appears in
+     * @param holder
+     * @param position
+     */
+    @Override
+    public void onBindViewHolder(ResultsAdapterViewHolder holder, int position) {
+        ScoringEngine.Entry entry = entries.get(position);
+        holder.originalTextView.setText(entry.type != ScoringEngine.EXTRA ? entry.element : "");
+        holder.responseTextView.setText(entry.type != ScoringEngine.MISS ? entry.element : "");
+    }
+
+    /**
+     * Gets the row type of an entry
+     * @param position is the position of the entry
+     * @return ScoringEngine.HIT, MISS or EXTRA
+     */
+    @Override
+    public int getItemViewType(int position) {
+        return entries.get(position).type;
+    }
+
+    /**
+     * Gets a stable id for an entry, the entries never change once set
+     * @param position is the position of the entry
+     * @return the id
+     */
+    @Override
+    public long getItemId(int position) {
+        return position;
+    }
+
+    /**
+     * Gets the number of entries
+     * @return the number of entries
+     */
+    @Override
+    public int getItemCount() {
+        return entries.size();
+    }
+
+    /**
+     * Sets the entries shown by the adapter
+     * @param entryList is the List of scored entries
+     */
+    public void setEntries(List<ScoringEngine.Entry> entryList) {
+        entries = entryList;
+        notifyDataSetChanged();
+    }
+}
@@ -0,0 +1,100 @@
+package com.example.android.readfast;
+
+import android.support.v7.widget.LinearLayoutManager;
+import android.support.v7.widget.RecyclerView;
+import android.view.View;
+import android.widget.Button;
+import android.widget.TextView;
+
+/**
+ * This class shows the results of a round inside GameActivity, so a session moves from a round to
+ * its results and on to the next round without starting a new Activity. The panel and its rows are
+ * inflated once and reused by every round: the left column contains the correct answers while the
+ * right column contains the user's responses.
+ */
+public class ResultsPanel {
+
+    /**
+     * This interface provides functionality for the buttons of the panel
+     */
+    public interface ResultsPanelListener {
+        void onPlayAgain();
+        void onHome();
+    }
+
+    private final View root; //root View of the panel
+    private final TextView percentageDisplay; //TextView that displays the percentage of words the user got correct
+    private final TextView historyDisplay; //TextView that displays the totals of today and this week
+    private final RecyclerView resultsRV; //RecyclerView with one row per scored element
+    private final ResultsAdapter adapter; //adapter of resultsRV, reused by every round
+
+    /**
+     * Constructs a ResultsPanel from the views of an inflated results_panel layout
+     * @param root is the root View of the layout
+     * @param listener is the ResultsPanelListener
+     */
+    public ResultsPanel(View root, final ResultsPanelListener listener) {
+        this.root = root;
+        percentageDisplay = root.findViewById(R.id.percentage_tv);
+        historyDisplay = root.findViewById(R.id.history_tv);
+        resultsRV = root.findViewById(R.id.results_rv);
+        resultsRV.setLayoutManager(new LinearLayoutManager(root.getContext()));
+        resultsRV.setHasFixedSize(true);
+        adapter = new ResultsAdapter();
+        resultsRV.setAdapter(adapter);
+
+        //sets onClickListener for the play again button
+        Button playAgainButton = root.findViewById(R.id.play_again_button);
+        playAgainButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                listener.onPlayAgain();
+            }
+        });
+        //sets onClickListener for the home button
+        Button homeButton = root.findViewById(R.id.home_button);
+        homeButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                listener.onHome();
+            }
+        });
+    }
+
+    /**
+     * Shows the accuracy and the per element results of a round
+     * @param score is the Score of the round
+     */
+    public void show(ScoringEngine.Score score) {
+        percentageDisplay.setText(String.format("Percentage Correct: %.1f%%", score.getAccuracy()));
+        historyDisplay.setText(""); //filled in once the round is recorded
+        adapter.setEntries(score.entries);
+        resultsRV.scrollToPosition(0);
+        root.setVisibility(View.VISIBLE);
+    }
+
+    /**
+     * Shows the totals of the rounds played today and this week, including the round shown
+     * @param today is the Summary of today
+     * @param week is the Summary of this week
+     */
+    public void showHistory(SessionHistory.Summary today, SessionHistory.Summary week) {
+        historyDisplay.setText(String.format("Today: %d rounds, %.1f%%  This week: %d rounds, %.1f%%",
+                today.getRounds(), today.getAccuracy(), week.getRounds(), week.getAccuracy()));
+    }
+
+    /**
+     * Hides the panel
+     */
+    public void hide() {
+        root.setVisibility(View.GONE);
+    }
+
+    /**
+     * Checks whether the panel is shown
+     * @return true if the results of a round are shown
+     */
+    public boolean isShown() {
+        return root.getVisibility() == View.VISIBLE;
+    }
+}
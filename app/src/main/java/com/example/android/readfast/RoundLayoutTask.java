@@ -0,0 +1,196 @@
+package com.example.android.readfast;
+
+import android.os.AsyncTask;
+import android.text.Layout;
+import android.text.StaticLayout;
+import android.text.TextPaint;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This AsyncTask prepares a round of the game in the background while the countdown is shown.
+ * It draws the elements from the deck, lays out their text and finds their positions, so that
+ * GameActivity only has to hand the layouts to its GameBoardView and can reveal all elements in the same frame.
+ */
+public class RoundLayoutTask extends AsyncTask<Void, Void, RoundLayoutTask.RoundLayout> {
+
+    private static final int MAX_SHRINKS = 3; //number of times the text is made smaller when elements do not fit
+    private static final float SHRINK_FACTOR = 0.85f; //text size after a shrink relative to the size before it
+
+    /**
+     * This interface provides functionality for when the round has been laid out
+     */
+    public interface RoundLayoutListener {
+        void onRoundLayoutReady(RoundLayout layout);
+    }
+
+    /**
+     * This class contains the elements of a round together with their sizes and positions
+     */
+    public static class RoundLayout {
+        public final List<String> elements; //elements displayed during the round
+        public final ArrayList<String> answerKey; //normalized tokens of the elements, in the order they are scored
+        public final StaticLayout[] layouts; //text layout of every element, drawn by GameBoardView
+        public final int[] widths; //width of every element in pixels
+        public final int[] heights; //height of every element in pixels
+        public final int[] positions; //x and y of element i at 2 * i and 2 * i + 1
+        public final int placementAttempts; //number of positions the PlacementEngine tested
+
+        RoundLayout(List<String> elements, ArrayList<String> answerKey, StaticLayout[] layouts, int[] widths, int[] heights, int[] positions, int placementAttempts) {
+            this.elements = elements;
+            this.answerKey = answerKey;
+            this.layouts = layouts;
+            this.widths = widths;
+            this.heights = heights;
+            this.positions = positions;
+            this.placementAttempts = placementAttempts;
+        }
+    }
+
+    private final ElementStore elementStore; //store the elements are drawn from
+    private final int numOfElements; //number of elements to draw
+    private final double difficultyPercentile; //position of the target difficulty in the list's difficulty distribution, negative to draw from the deck
+    private final boolean reviewMissed; //whether to draw the elements the user missed recently instead
+    private final TextPaint paint; //paint with the text size the elements are displayed with
+    private final int sentenceWidth; //fixed width of a sentence in pixels, or 0 if the elements are words
+    private final int areaWidth; //width of the area the elements are placed in
+    private final int areaHeight; //height of the area the elements are placed in
+    private final int margin; //minimum space kept around every element
+    private final int[] obstacle; //x, y, width and height of the timer, which elements must not cover
+    private final RoundLayoutListener listener; //listener notified once the round is laid out
+
+    /**
+     * Constructs a RoundLayoutTask
+     * @param elementStore is the store the elements are drawn from
+     * @param numOfElements is the number of elements to draw
+     * @param difficultyPercentile is the position of the target difficulty in the list's difficulty distribution from 0 to 1, or a negative number to draw from the deck
+     * @param reviewMissed is whether to draw the elements the user missed recently instead, in proportion to their miss weights
+     * @param paint is a paint with the text size and color the elements are displayed with, which must not be changed afterwards
+     * @param sentenceWidth is the fixed width of a sentence in pixels, or 0 if the elements are words
+     * @param areaWidth is the width of the area the elements are placed in
+     * @param areaHeight is the height of the area the elements are placed in
+     * @param margin is the minimum space kept around every element
+     * @param obstacle contains the x, y, width and height of the timer
+     * @param listener is the RoundLayoutListener
+     */
+    public RoundLayoutTask(ElementStore elementStore, int numOfElements, double difficultyPercentile, boolean reviewMissed, TextPaint paint,
+                           int sentenceWidth, int areaWidth, int areaHeight, int margin, int[] obstacle, RoundLayoutListener listener) {
+        this.elementStore = elementStore;
+        this.numOfElements = numOfElements;
+        this.difficultyPercentile = difficultyPercentile;
+        this.reviewMissed = reviewMissed;
+        this.paint = paint;
+        this.sentenceWidth = sentenceWidth;
+        this.areaWidth = areaWidth;
+        this.areaHeight = areaHeight;
+        this.margin = margin;
+        this.obstacle = obstacle;
+        this.listener = listener;
+    }
+
+    /**
+     * Draws, measures and places the elements of the round and tokenizes them into the answer key
+     * Elements that still do not fit after the text was made smaller are left out of the round
+     * @param voids
+     * @return the RoundLayout
+     */
+    @Override
+    protected RoundLayout doInBackground(Void... voids) {
+        //draws missed elements or elements around the chosen difficulty, or else elements that have not appeared since the deck last started over
+        List<String> elements;
+        if (reviewMissed) elements = elementStore.drawMissed(numOfElements);
+        else if (difficultyPercentile >= 0) elements = elementStore.drawByDifficulty(numOfElements, difficultyPercentile);
+        else elements = elementStore.draw(numOfElements);
+
+        //elements that do not fit anywhere are laid out again with smaller text, and dropped if they still do not fit
+        TextPaint roundPaint = paint;
+        int roundSentenceWidth = sentenceWidth;
+        StaticLayout[] layouts;
+        int[] widths;
+        int[] heights;
+        int[] positions;
+        int attempts = 0;
+        int shrinks = 0;
+        while (true) {
+            layouts = new StaticLayout[elements.size()];
+            widths = new int[elements.size()];
+            heights = new int[elements.size()];
+            for (int i = 0; i < elements.size(); i++) {
+                //words are as wide as their text, sentences wrap within a fixed width and are centered
+                String element = elements.get(i);
+                int width = roundSentenceWidth > 0 ? roundSentenceWidth : (int) Math.ceil(Layout.getDesiredWidth(element, roundPaint));
+                Layout.Alignment alignment = roundSentenceWidth > 0 ? Layout.Alignment.ALIGN_CENTER : Layout.Alignment.ALIGN_NORMAL;
+                layouts[i] = new StaticLayout(element, roundPaint, Math.max(1, width), alignment, 1f, 0f, true);
+                widths[i] = width;
+                heights[i] = layouts[i].getHeight();
+            }
+
+            PlacementEngine engine = new PlacementEngine(areaWidth, areaHeight, margin, PlacementEngine.DEFAULT_MAX_ATTEMPTS, new Random());
+            engine.addObstacle(obstacle[0], obstacle[1], obstacle[2], obstacle[3]);
+            positions = engine.place(widths, heights);
+            attempts += engine.getAttempts();
+            if (countUnplaced(positions) == 0 || shrinks == MAX_SHRINKS) break;
+            //the paint passed in belongs to the caller, so the smaller text gets its own copy
+            roundPaint = new TextPaint(roundPaint);
+            roundPaint.setTextSize(roundPaint.getTextSize() * SHRINK_FACTOR);
+            roundSentenceWidth = (int) (roundSentenceWidth * SHRINK_FACTOR);
+            shrinks++;
+        }
+
+        int unplaced = countUnplaced(positions);
+        if (unplaced > 0) {
+            int kept = elements.size() - unplaced;
+            List<String> keptElements = new ArrayList<>(kept);
+            StaticLayout[] keptLayouts = new StaticLayout[kept];
+            int[] keptWidths = new int[kept];
+            int[] keptHeights = new int[kept];
+            int[] keptPositions = new int[kept * 2];
+            int k = 0;
+            for (int i = 0; i < elements.size(); i++) {
+                if (positions[i * 2] == PlacementEngine.NOT_PLACED) continue;
+                keptElements.add(elements.get(i));
+                keptLayouts[k] = layouts[i];
+                keptWidths[k] = widths[i];
+                keptHeights[k] = heights[i];
+                keptPositions[k * 2] = positions[i * 2];
+                keptPositions[k * 2 + 1] = positions[i * 2 + 1];
+                k++;
+            }
+            elements = keptElements;
+            layouts = keptLayouts;
+            widths = keptWidths;
+            heights = keptHeights;
+            positions = keptPositions;
+        }
+
+        ArrayList<String> answerKey = new ArrayList<>();
+        for (String element : elements) {
+            AnswerTokenizer.tokenize(element, answerKey);
+        }
+        return new RoundLayout(elements, answerKey, layouts, widths, heights, positions, attempts);
+    }
+
+    /**
+     * Counts the elements the PlacementEngine could not place
+     * @param positions are the positions returned by PlacementEngine.place()
+     * @return the number of elements at NOT_PLACED
+     */
+    private static int countUnplaced(int[] positions) {
+        int unplaced = 0;
+        for (int i = 0; i < positions.length; i += 2) {
+            if (positions[i] == PlacementEngine.NOT_PLACED) unplaced++;
+        }
+        return unplaced;
+    }
+
+    /**
+     * Passes the finished RoundLayout on to the listener
+     * @param layout is the RoundLayout
+     */
+    @Override
+    protected void onPostExecute(RoundLayout layout) {
+        listener.onRoundLayoutReady(layout);
+    }
+}
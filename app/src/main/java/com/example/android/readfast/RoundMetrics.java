@@ -0,0 +1,162 @@
+package com.example.android.readfast;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.Locale;
+
+/**
+ * This class keeps the timing of every round played in histograms that persist across sessions.
+ */
+public class RoundMetrics {
+
+    /**
+     * Index of the histogram of the time from the start of a round to the first frame drawn with every element visible
+     */
+    public static final int REVEAL_LATENCY = 0;
+    /**
+     * Index of the histogram of the time the elements were visible
+     */
+    public static final int VISIBLE_DURATION = 1;
+    /**
+     * Index of the histogram of the frames dropped while the elements were visible
+     */
+    public static final int DROPPED_FRAMES = 2;
+    /**
+     * Index of the histogram of the positions tested to place the elements
+     */
+    public static final int PLACEMENT_ATTEMPTS = 3;
+
+    private static final String[] NAMES = {"reveal_latency_us", "visible_duration_us", "dropped_frames", "placement_attempts"}; //name of every histogram in the CSV
+    private static final int MAGIC = 0x52464d31; //"RFM1", marks a file as a metrics file
+    private static final String TEMP_SUFFIX = ".tmp"; //suffix of the file the metrics are written to before replacing the old file
+
+    private final File file; //file the metrics are stored in
+    private final Histogram[] histograms; //histogram of every metric
+
+    /**
+     * Constructs empty RoundMetrics backed by a file
+     * @param file is the metrics file
+     */
+    private RoundMetrics(File file) {
+        this.file = file;
+        histograms = new Histogram[NAMES.length];
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new Histogram();
+        }
+    }
+
+    /**
+     * Reads the metrics of earlier sessions, starting over if the file does not exist or cannot be read
+     * @param f is the metrics file
+     * @return the RoundMetrics
+     */
+    public static RoundMetrics open(File f) {
+        IoThreadCheck.check();
+        RoundMetrics metrics = new RoundMetrics(f);
+        if (!f.exists()) return metrics;
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(f)));
+            try {
+                if (in.readInt() != MAGIC) return metrics;
+                for (Histogram histogram : metrics.histograms) {
+                    histogram.readFrom(in);
+                }
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            //a damaged file only loses the metrics, which are collected again
+            metrics.reset();
+        }
+        return metrics;
+    }
+
+    /**
+     * Records the metrics of a round
+     * @param revealLatencyMicros is the time from the start of the round to the first frame drawn with every element visible, negative if it was not measured
+     * @param visibleMicros is the time the elements were visible
+     * @param droppedFrames is the number of frames dropped while the elements were visible
+     * @param placementAttempts is the number of positions tested to place the elements
+     */
+    public synchronized void record(long revealLatencyMicros, long visibleMicros, int droppedFrames, int placementAttempts) {
+        if (revealLatencyMicros >= 0) histograms[REVEAL_LATENCY].record(revealLatencyMicros);
+        histograms[VISIBLE_DURATION].record(visibleMicros);
+        histograms[DROPPED_FRAMES].record(droppedFrames);
+        histograms[PLACEMENT_ATTEMPTS].record(placementAttempts);
+    }
+
+    /**
+     * Writes the metrics to a temporary file and replaces the metrics file with it
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void save() throws IOException {
+        IoThreadCheck.check();
+        File temp = new File(file.getPath() + TEMP_SUFFIX);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+        try {
+            out.writeInt(MAGIC);
+            for (Histogram histogram : histograms) {
+                histogram.writeTo(out);
+            }
+        } finally {
+            out.close();
+        }
+        if (!temp.renameTo(file)) throw new IOException("Could not replace " + file);
+    }
+
+    /**
+     * Removes the metrics of every round
+     */
+    public synchronized void reset() {
+        for (Histogram histogram : histograms) {
+            histogram.reset();
+        }
+    }
+
+    /**
+     * Summarizes every metric with its count, minimum, percentiles, maximum and mean
+     * @return one line per metric
+     */
+    public synchronized String getSummary() {
+        StringBuilder summary = new StringBuilder();
+        for (int i = 0; i < histograms.length; i++) {
+            Histogram h = histograms[i];
+            summary.append(String.format(Locale.US, "%s\nn=%d min=%d p50=%d p90=%d p99=%d max=%d mean=%.1f\n\n",
+                    NAMES[i], h.getTotalCount(), h.getMin(), h.getValueAtPercentile(50), h.getValueAtPercentile(90),
+                    h.getValueAtPercentile(99), h.getMax(), h.getMean()));
+        }
+        return summary.toString();
+    }
+
+    /**
+     * Exports every non-empty bucket of every metric as CSV, with the lowest and highest value of the bucket
+     * @return the CSV, starting with a header row
+     */
+    public synchronized String toCsv() {
+        StringBuilder csv = new StringBuilder("metric,lowest_value,highest_value,count\n");
+        for (int i = 0; i < histograms.length; i++) {
+            Histogram h = histograms[i];
+            for (int bucket = 0; bucket < h.getBucketCount(); bucket++) {
+                if (h.getCount(bucket) == 0) continue;
+                csv.append(NAMES[i]).append(',').append(h.getLowestValue(bucket)).append(',')
+                        .append(h.getHighestValue(bucket)).append(',').append(h.getCount(bucket)).append('\n');
+            }
+        }
+        return csv.toString();
+    }
+
+    /**
+     * Gets the histogram of a metric
+     * @param metric is REVEAL_LATENCY, VISIBLE_DURATION, DROPPED_FRAMES or PLACEMENT_ATTEMPTS
+     * @return the Histogram, which must only be read while no round is being recorded
+     */
+    public Histogram getHistogram(int metric) {
+        return histograms[metric];
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.android.readfast;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.support.v7.app.AppCompatActivity;
+import android.view.View;
+import android.widget.Button;
+import android.widget.TextView;
+
+/**
+ * This debug Activity shows the histograms of the timing of every round played and exports them
+ * as CSV, so timing regressions can be caught
+ */
+public class RoundMetricsActivity extends AppCompatActivity implements RoundMetricsTask.RoundMetricsListener {
+
+    private TextView summaryTV; //TextView that shows the summary of every metric
+    private Button exportButton; //Button that shares the metrics as CSV
+    private Button resetButton; //Button that removes every recorded round
+    private RoundMetricsTask.Report report; //metrics shown, null until they are read
+
+    /**
+     * Overrides the onCreate method and reads the metrics in the background
+     * @param savedInstanceState
+     */
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        setContentView(R.layout.activity_round_metrics);
+
+        summaryTV = findViewById(R.id.metrics_summary_tv);
+        exportButton = findViewById(R.id.export_metrics_button);
+        resetButton = findViewById(R.id.reset_metrics_button);
+        exportButton.setEnabled(false);
+        resetButton.setEnabled(false);
+
+        //shares the CSV with any app that accepts text, such as email or a file manager
+        exportButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                Intent intent = new Intent(Intent.ACTION_SEND);
+                intent.setType("text/csv");
+                intent.putExtra(Intent.EXTRA_SUBJECT, "round_metrics.csv");
+                intent.putExtra(Intent.EXTRA_TEXT, report.csv);
+                startActivity(Intent.createChooser(intent, "Export round metrics"));
+            }
+        });
+        resetButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                readMetrics(true);
+            }
+        });
+
+        readMetrics(false);
+    }
+
+    /**
+     * Reads the metrics on the I/O thread
+     * @param reset is whether to remove every recorded round first
+     */
+    private void readMetrics(boolean reset){
+        exportButton.setEnabled(false);
+        resetButton.setEnabled(false);
+        new RoundMetricsTask((ReadFastApplication) getApplication(), reset, this)
+                .executeOnExecutor(ElementRepository.getIoExecutor());
+    }
+
+    /**
+     * Shows the metrics once they are read
+     * @param report is the Report
+     */
+    @Override
+    public void onRoundMetricsRead(RoundMetricsTask.Report report) {
+        if(isFinishing()) return;
+        this.report = report;
+        summaryTV.setText(report.summary);
+        exportButton.setEnabled(true);
+        resetButton.setEnabled(true);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.android.readfast;
+
+import android.os.AsyncTask;
+
+import java.io.IOException;
+
+/**
+ * This AsyncTask reads the RoundMetrics off of the UI thread, optionally resetting them first,
+ * and summarizes them for RoundMetricsActivity
+ */
+public class RoundMetricsTask extends AsyncTask<Void, Void, RoundMetricsTask.Report> {
+
+    /**
+     * This interface provides functionality for when the metrics have been read
+     */
+    public interface RoundMetricsListener {
+        void onRoundMetricsRead(Report report);
+    }
+
+    /**
+     * This class contains the metrics as they are shown and exported
+     */
+    public static class Report {
+        public final String summary; //count, percentiles and mean of every metric
+        public final String csv; //every non-empty bucket of every metric as CSV
+
+        Report(String summary, String csv) {
+            this.summary = summary;
+            this.csv = csv;
+        }
+    }
+
+    private final ReadFastApplication application; //application holding the RoundMetrics
+    private final boolean reset; //whether the metrics are removed before they are read
+    private final RoundMetricsListener listener; //listener notified once the metrics are read
+
+    /**
+     * Constructs a RoundMetricsTask
+     * @param application is the ReadFastApplication holding the RoundMetrics
+     * @param reset is whether to remove every recorded round first
+     * @param listener is the RoundMetricsListener
+     */
+    public RoundMetricsTask(ReadFastApplication application, boolean reset, RoundMetricsListener listener) {
+        this.application = application;
+        this.reset = reset;
+        this.listener = listener;
+    }
+
+    /**
+     * Reads and summarizes the metrics
+     * @param voids
+     * @return the Report
+     */
+    @Override
+    protected Report doInBackground(Void... voids) {
+        RoundMetrics metrics = application.getRoundMetrics();
+        if (reset) {
+            metrics.reset();
+            try {
+                metrics.save();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+        return new Report(metrics.getSummary(), metrics.toCsv());
+    }
+
+    /**
+     * Passes the Report on to the listener
+     * @param report is the Report
+     */
+    @Override
+    protected void onPostExecute(Report report) {
+        listener.onRoundMetricsRead(report);
+    }
+}
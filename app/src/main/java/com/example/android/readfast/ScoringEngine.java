@@ -0,0 +1,322 @@
+package com.example.android.readfast;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * This class scores the user's responses against the elements that were displayed during the game.
+ */
+public class ScoringEngine {
+
+    /**
+     * Entry type of an element that was displayed and entered by the user
+     */
+    public static final int HIT = 0;
+    /**
+     * Entry type of an element that was displayed but not entered by the user
+     */
+    public static final int MISS = 1;
+    /**
+     * Entry type of an element that was entered by the user but not displayed
+     */
+    public static final int EXTRA = 2;
+
+    /**
+     * This class is a single element of the scored output
+     */
+    public static class Entry {
+        public final int type; //HIT, MISS or EXTRA
+        public final String element; //the element
+
+        Entry(int type, String element) {
+            this.type = type;
+            this.element = element;
+        }
+    }
+
+    /**
+     * This class contains the result of scoring a round
+     */
+    public static class Score {
+        public final int correct; //number of displayed elements the user entered
+        public final int total; //number of displayed elements
+        public final List<Entry> entries; //hits, misses and extras in display order
+
+        Score(int correct, int total, List<Entry> entries) {
+            this.correct = correct;
+            this.total = total;
+            this.entries = entries;
+        }
+
+        /**
+         * Gets the percentage of displayed elements the user entered
+         * @return the accuracy as a percentage
+         */
+        public double getAccuracy() {
+            return total == 0 ? 0 : (double) correct / total * 100;
+        }
+
+        /**
+         * Gets every element the user missed
+         * @return the List of missed elements
+         */
+        public List<String> getMissed() {
+            List<String> missed = new ArrayList<>();
+            for (Entry entry : entries) {
+                if (entry.type == MISS) missed.add(entry.element);
+            }
+            return missed;
+        }
+
+        /**
+         * Finds the displayed elements that contain a missed word, so misses can be tracked per element
+         * Every missed word is only counted against the first displayed element it appears in
+         * @param elements are the displayed elements the answer key was tokenized from
+         * @return the elements with at least one missed word, in display order
+         */
+        public List<String> getMissedElements(List<String> elements) {
+            Map<String, int[]> missedCounts = countAll(getMissed());
+            List<String> missedElements = new ArrayList<>();
+            List<String> tokens = new ArrayList<>();
+            for (String element : elements) {
+                tokens.clear();
+                AnswerTokenizer.tokenize(element, tokens);
+                boolean missed = false;
+                for (String token : tokens) {
+                    int[] count = missedCounts.get(token);
+                    if (count == null || count[0] == 0) continue;
+                    count[0]--;
+                    missed = true;
+                }
+                if (missed) missedElements.add(element);
+            }
+            return missedElements;
+        }
+    }
+
+    /**
+     * Scores the responses for a round of words or sentences
+     * @param answers are the displayed words, in the order they were displayed
+     * @param responses are the words entered by the user, in the order they were entered
+     * @param wsState is whether the round displayed words or sentences (false = words, true = sentences)
+     * @return the Score
+     */
+    public static Score score(List<String> answers, List<String> responses, boolean wsState) {
+        List<String> a = withoutEmpty(answers);
+        List<String> b = withoutEmpty(responses);
+        return wsState ? scoreAligned(a, b) : scoreMultiset(a, b);
+    }
+
+    /**
+     * Scores the responses as a multiset, ignoring their order
+     * The entries list the hits in the order they were displayed, followed by the misses and the extras
+     * @param answers are the displayed words
+     * @param responses are the entered words
+     * @return the Score
+     */
+    public static Score scoreMultiset(List<String> answers, List<String> responses) {
+        Map<String, int[]> responseCounts = countAll(responses);
+        Map<String, int[]> answerCounts = countAll(answers);
+        List<Entry> hits = new ArrayList<>();
+        List<Entry> misses = new ArrayList<>();
+        List<Entry> extras = new ArrayList<>();
+        for (String s : answers) {
+            int[] count = responseCounts.get(s);
+            if (count != null && count[0] > 0) {
+                count[0]--;
+                hits.add(new Entry(HIT, s));
+            } else {
+                misses.add(new Entry(MISS, s));
+            }
+        }
+        for (String s : responses) {
+            int[] count = answerCounts.get(s);
+            if (count != null && count[0] > 0) count[0]--;
+            else extras.add(new Entry(EXTRA, s));
+        }
+        List<Entry> entries = new ArrayList<>(hits.size() + misses.size() + extras.size());
+        entries.addAll(hits);
+        entries.addAll(misses);
+        entries.addAll(extras);
+        return new Score(hits.size(), answers.size(), entries);
+    }
+
+    /**
+     * Scores the responses by aligning them with the displayed words in order
+     * A displayed word is only a hit if it is part of the longest common subsequence of both lists,
+     * and the entries are the resulting diff in order
+     * @param answers are the displayed words
+     * @param responses are the entered words
+     * @return the Score
+     */
+    public static Score scoreAligned(List<String> answers, List<String> responses) {
+        //maps every distinct word to an int so the diff compares ints instead of Strings
+        Map<String, Integer> ids = new HashMap<>();
+        int[] a = toIds(answers, ids);
+        int[] b = toIds(responses, ids);
+        List<Entry> entries = new ArrayList<>(a.length + b.length);
+        diff(a, 0, a.length, b, 0, b.length, answers, responses, entries);
+        int correct = 0;
+        for (Entry entry : entries) {
+            if (entry.type == HIT) correct++;
+        }
+        return new Score(correct, answers.size(), entries);
+    }
+
+    /**
+     * Appends the diff of a[aStart, aEnd) and b[bStart, bEnd) to the entries
+     */
+    private static void diff(int[] a, int aStart, int aEnd, int[] b, int bStart, int bEnd,
+                             List<String> answers, List<String> responses, List<Entry> entries) {
+        //common prefix
+        while (aStart < aEnd && bStart < bEnd && a[aStart] == b[bStart]) {
+            entries.add(new Entry(HIT, answers.get(aStart)));
+            aStart++;
+            bStart++;
+        }
+        //common suffix, added after everything in between
+        int suffix = 0;
+        while (aStart < aEnd - suffix && bStart < bEnd - suffix && a[aEnd - suffix - 1] == b[bEnd - suffix - 1]) {
+            suffix++;
+        }
+        aEnd -= suffix;
+        bEnd -= suffix;
+
+        if (aStart == aEnd || bStart == bEnd) {
+            for (int i = aStart; i < aEnd; i++) entries.add(new Entry(MISS, answers.get(i)));
+            for (int i = bStart; i < bEnd; i++) entries.add(new Entry(EXTRA, responses.get(i)));
+        } else {
+            int[] split = middleSnake(a, aStart, aEnd, b, bStart, bEnd);
+            if (split == null) {
+                for (int i = aStart; i < aEnd; i++) entries.add(new Entry(MISS, answers.get(i)));
+                for (int i = bStart; i < bEnd; i++) entries.add(new Entry(EXTRA, responses.get(i)));
+            } else {
+                diff(a, aStart, split[0], b, bStart, split[1], answers, responses, entries);
+                diff(a, split[0], aEnd, b, split[1], bEnd, answers, responses, entries);
+            }
+        }
+
+        for (int i = 0; i < suffix; i++) {
+            entries.add(new Entry(HIT, answers.get(aEnd + i)));
+        }
+    }
+
+    /**
+     * Finds the point where the forward and backward searches of Myers' algorithm meet
+     * Both ranges must be non-empty and must not share a common prefix or suffix
+     * @return the x and y of the split point, or null if the ranges have nothing in common
+     */
+    private static int[] middleSnake(int[] a, int aStart, int aEnd, int[] b, int bStart, int bEnd) {
+        int n = aEnd - aStart;
+        int m = bEnd - bStart;
+        int maxD = (n + m + 1) / 2;
+        int offset = maxD;
+        int length = 2 * maxD + 2;
+        int[] forward = new int[length];
+        int[] backward = new int[length];
+        Arrays.fill(forward, -1);
+        Arrays.fill(backward, -1);
+        forward[offset + 1] = 0;
+        backward[offset + 1] = 0;
+        int delta = n - m;
+        boolean front = (delta & 1) != 0; //if the delta is odd the forward search detects the overlap, otherwise the backward search does
+        int k1start = 0, k1end = 0, k2start = 0, k2end = 0;
+        for (int d = 0; d < maxD; d++) {
+            for (int k1 = -d + k1start; k1 <= d - k1end; k1 += 2) {
+                int k1Offset = offset + k1;
+                int x1 = (k1 == -d || (k1 != d && forward[k1Offset - 1] < forward[k1Offset + 1])) ? forward[k1Offset + 1] : forward[k1Offset - 1] + 1;
+                int y1 = x1 - k1;
+                while (x1 < n && y1 < m && a[aStart + x1] == b[bStart + y1]) {
+                    x1++;
+                    y1++;
+                }
+                forward[k1Offset] = x1;
+                if (x1 > n) {
+                    k1end += 2;
+                } else if (y1 > m) {
+                    k1start += 2;
+                } else if (front) {
+                    int k2Offset = offset + delta - k1;
+                    if (k2Offset >= 0 && k2Offset < length && backward[k2Offset] != -1 && x1 >= n - backward[k2Offset]) {
+                        return new int[]{aStart + x1, bStart + y1};
+                    }
+                }
+            }
+            for (int k2 = -d + k2start; k2 <= d - k2end; k2 += 2) {
+                int k2Offset = offset + k2;
+                int x2 = (k2 == -d || (k2 != d && backward[k2Offset - 1] < backward[k2Offset + 1])) ? backward[k2Offset + 1] : backward[k2Offset - 1] + 1;
+                int y2 = x2 - k2;
+                while (x2 < n && y2 < m && a[aEnd - x2 - 1] == b[bEnd - y2 - 1]) {
+                    x2++;
+                    y2++;
+                }
+                backward[k2Offset] = x2;
+                if (x2 > n) {
+                    k2end += 2;
+                } else if (y2 > m) {
+                    k2start += 2;
+                } else if (!front) {
+                    int k1Offset = offset + delta - k2;
+                    if (k1Offset >= 0 && k1Offset < length && forward[k1Offset] != -1) {
+                        int x1 = forward[k1Offset];
+                        int y1 = offset + x1 - k1Offset;
+                        if (x1 >= n - x2) return new int[]{aStart + x1, bStart + y1};
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Counts how many times every String occurs in a List
+     * @param list is the List
+     * @return a Map from every String to a single element array holding its count
+     */
+    private static Map<String, int[]> countAll(List<String> list) {
+        Map<String, int[]> counts = new HashMap<>();
+        for (String s : list) {
+            int[] count = counts.get(s);
+            if (count == null) counts.put(s, new int[]{1});
+            else count[0]++;
+        }
+        return counts;
+    }
+
+    /**
+     * Converts a List of Strings to ints, giving equal Strings equal ints
+     * @param list is the List
+     * @param ids is the Map of ids given out so far
+     * @return the ids of the Strings
+     */
+    private static int[] toIds(List<String> list, Map<String, Integer> ids) {
+        int[] result = new int[list.size()];
+        for (int i = 0; i < result.length; i++) {
+            Integer id = ids.get(list.get(i));
+            if (id == null) {
+                id = ids.size();
+                ids.put(list.get(i), id);
+            }
+            result[i] = id;
+        }
+        return result;
+    }
+
+    /**
+     * Copies a List of Strings without its empty Strings
+     * @param list is the List, which may be null
+     * @return the copy
+     */
+    private static List<String> withoutEmpty(List<String> list) {
+        if (list == null) return Collections.emptyList();
+        List<String> result = new ArrayList<>(list.size());
+        for (String s : list) {
+            if (!s.isEmpty()) result.add(s);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.android.readfast;
+
+import android.os.AsyncTask;
+
+/**
+ * This AsyncTask builds the ElementSearchIndex of an ElementStore off of the UI thread and registers
+ * it with the store, which keeps the index up to date from then on
+ * The index is kept in the ElementCache, so it is only built once per process
+ */
+public class SearchIndexTask extends AsyncTask<Void, Void, ElementSearchIndex> {
+
+    /**
+     * This interface provides functionality for when the index is ready to be searched
+     */
+    public interface SearchIndexListener {
+        void onSearchIndexReady(ElementSearchIndex index);
+    }
+
+    private final ElementRepository repository; //repository whose cache holds the index
+    private final ElementStore store; //store the index is built from
+    private final boolean wsState; //whether the store contains words or sentences (false = words, true = sentences)
+    private final SearchIndexListener listener; //listener notified once the index is built
+
+    /**
+     * Constructs a SearchIndexTask
+     * @param repository is the ElementRepository of the store
+     * @param store is the ElementStore the index is built from
+     * @param wsState is whether the store contains words or sentences (false = words, true = sentences)
+     * @param listener is the SearchIndexListener
+     */
+    public SearchIndexTask(ElementRepository repository, ElementStore store, boolean wsState, SearchIndexListener listener) {
+        this.repository = repository;
+        this.store = store;
+        this.wsState = wsState;
+        this.listener = listener;
+    }
+
+    /**
+     * Gets the cached index, or builds the index from every element in the store and caches it
+     * Cancelling the task does not stop the index from being cached, so the work is never lost
+     * @param voids
+     * @return the ElementSearchIndex
+     */
+    @Override
+    protected ElementSearchIndex doInBackground(Void... voids) {
+        ElementSearchIndex index = repository.getSearchIndex();
+        if (index == null) {
+            index = new ElementSearchIndex(store, wsState);
+            store.addChangeListener(index);
+            repository.putSearchIndex(index);
+        }
+        return index;
+    }
+
+    /**
+     * Passes the index on to the listener
+     * @param index is the ElementSearchIndex
+     */
+    @Override
+    protected void onPostExecute(ElementSearchIndex index) {
+        listener.onSearchIndexReady(index);
+    }
+}
@@ -0,0 +1,494 @@
+package com.example.android.readfast;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TimeZone;
+
+/**
+ * This class keeps the history of every round played in an append-only binary log, written in batches,
+ * with the daily and weekly totals kept in a stats file next to it.
+ */
+public class SessionHistory {
+
+    /**
+     * This class is a single round of the history
+     */
+    public static class Round {
+        public final long timestamp; //time the round ended in milliseconds since the epoch
+        public final boolean wsState; //whether the round displayed words or sentences (false = words, true = sentences)
+        public final int exposureMillis; //how long the elements were visible in milliseconds
+        public final int correct; //number of displayed words the user entered
+        public final int total; //number of displayed words
+        public final long[] hitIds; //ids of the elements the user entered completely, see elementIds()
+        public final long[] missedIds; //ids of the elements with at least one missed word, see elementIds()
+
+        public Round(long timestamp, boolean wsState, int exposureMillis, int correct, int total, long[] hitIds, long[] missedIds) {
+            this.timestamp = timestamp;
+            this.wsState = wsState;
+            this.exposureMillis = exposureMillis;
+            this.correct = correct;
+            this.total = total;
+            this.hitIds = hitIds;
+            this.missedIds = missedIds;
+        }
+
+        /**
+         * Gets the number of elements displayed
+         * @return the number of elements
+         */
+        public int getElementCount() {
+            return hitIds.length + missedIds.length;
+        }
+
+        /**
+         * Gets the percentage of displayed words the user entered
+         * @return the accuracy as a percentage
+         */
+        public double getAccuracy() {
+            return total == 0 ? 0 : (double) correct / total * 100;
+        }
+    }
+
+    /**
+     * This class contains the totals of the rounds played in a day or a week
+     */
+    public static class Summary {
+        private long key; //day or week the totals are for
+        private int rounds; //number of rounds
+        private long elements; //number of elements displayed
+        private long correct; //number of displayed words the user entered
+        private long total; //number of displayed words
+        private long exposureMillis; //time the elements were visible in milliseconds
+
+        Summary(long key) {
+            this.key = key;
+        }
+
+        /**
+         * Gets the number of rounds played
+         * @return the number of rounds
+         */
+        public int getRounds() {
+            return rounds;
+        }
+
+        /**
+         * Gets the number of elements displayed
+         * @return the number of elements
+         */
+        public long getElements() {
+            return elements;
+        }
+
+        /**
+         * Gets the percentage of all displayed words the user entered
+         * @return the accuracy as a percentage, 0 if no round was played
+         */
+        public double getAccuracy() {
+            return total == 0 ? 0 : (double) correct / total * 100;
+        }
+
+        /**
+         * Gets the time the elements were visible in all rounds
+         * @return the time in milliseconds
+         */
+        public long getExposureMillis() {
+            return exposureMillis;
+        }
+
+        private void add(Round round) {
+            rounds++;
+            elements += round.getElementCount();
+            correct += round.correct;
+            total += round.total;
+            exposureMillis += round.exposureMillis;
+        }
+
+        private void reset(long newKey) {
+            key = newKey;
+            rounds = 0;
+            elements = 0;
+            correct = 0;
+            total = 0;
+            exposureMillis = 0;
+        }
+
+        private void writeTo(DataOutputStream out) throws IOException {
+            out.writeLong(key);
+            out.writeInt(rounds);
+            out.writeLong(elements);
+            out.writeLong(correct);
+            out.writeLong(total);
+            out.writeLong(exposureMillis);
+        }
+
+        private void readFrom(DataInputStream in) throws IOException {
+            key = in.readLong();
+            rounds = in.readInt();
+            elements = in.readLong();
+            correct = in.readLong();
+            total = in.readLong();
+            exposureMillis = in.readLong();
+        }
+    }
+
+    /**
+     * This constant is the number of rounds kept in memory before they are written
+     */
+    public static final int BATCH_SIZE = 8;
+    /**
+     * This constant is the number of most recent days whose totals are kept
+     */
+    public static final int DAYS = 35;
+    /**
+     * This constant is the number of most recent weeks whose totals are kept
+     */
+    public static final int WEEKS = 27;
+
+    private static final int LOG_MAGIC = 0x52464832; //"RFH2", marks a file as a history log
+    private static final int STATS_MAGIC = 0x52464853; //"RFHS", marks a file as a history stats file
+    private static final String STATS_SUFFIX = ".stats"; //suffix of the stats file next to the log
+    private static final String TEMP_SUFFIX = ".tmp"; //suffix of the file the stats are written to before replacing the old file
+    private static final long DAY_MILLIS = 24 * 60 * 60 * 1000L; //milliseconds in a day
+    private static final int MONDAY_OFFSET = 3; //days from the Monday before the epoch to the epoch, which was a Thursday
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L; //starting value of the FNV-1a hash of element ids
+    private static final long FNV_PRIME = 0x100000001b3L; //multiplier of the FNV-1a hash of element ids
+
+    private final File logFile; //file the rounds are appended to
+    private final File statsFile; //file the daily and weekly totals are stored in
+    private final TimeZone timeZone; //time zone days start in
+    private final List<Round> pending = new ArrayList<>(); //rounds not written yet
+    private final Summary[] days = new Summary[DAYS]; //totals of the recent days, indexed by day modulo DAYS
+    private final Summary[] weeks = new Summary[WEEKS]; //totals of the recent weeks, indexed by week modulo WEEKS
+    private long logLength; //length of the log, the end of the last complete record
+
+    /**
+     * Constructs an empty SessionHistory backed by a log file
+     * @param logFile is the log file
+     * @param timeZone is the time zone days start in
+     */
+    private SessionHistory(File logFile, TimeZone timeZone) {
+        this.logFile = logFile;
+        this.timeZone = timeZone;
+        statsFile = new File(logFile.getPath() + STATS_SUFFIX);
+        for (int i = 0; i < DAYS; i++) {
+            days[i] = new Summary(-1);
+        }
+        for (int i = 0; i < WEEKS; i++) {
+            weeks[i] = new Summary(-1);
+        }
+    }
+
+    /**
+     * Opens the history, reading the stats file and replaying the rounds logged after it was written
+     * @param f is the log file
+     * @param timeZone is the time zone days start in
+     * @return the SessionHistory
+     * @throws IOException if the log cannot be read or repaired
+     */
+    public static SessionHistory open(File f, TimeZone timeZone) throws IOException {
+        IoThreadCheck.check();
+        SessionHistory history = new SessionHistory(f, timeZone);
+        if (!f.exists() || f.length() < 4) {
+            history.createLog();
+            return history;
+        }
+        long covered = history.readStats();
+        if (covered < 4 || covered > f.length()) {
+            //the stats are missing or belong to another log, so the totals are rebuilt from every round
+            for (Summary summary : history.days) summary.reset(-1);
+            for (Summary summary : history.weeks) summary.reset(-1);
+            covered = 4;
+        }
+        history.logLength = covered;
+        history.replay(covered);
+        if (history.logLength < f.length()) history.truncate();
+        return history;
+    }
+
+    /**
+     * Gets the ids elements are recorded by, which stay the same when the element is removed from its list
+     * and its slot is reused, unlike the slot itself
+     * @param elements are the elements
+     * @return the 64 bit FNV-1a hash of every normalized element, in the same order
+     */
+    public static long[] elementIds(Collection<String> elements) {
+        long[] ids = new long[elements.size()];
+        int i = 0;
+        for (String element : elements) {
+            String normalized = ElementStore.normalize(element);
+            long hash = FNV_OFFSET_BASIS;
+            for (int j = 0; j < normalized.length(); j++) {
+                hash ^= normalized.charAt(j);
+                hash *= FNV_PRIME;
+            }
+            ids[i++] = hash;
+        }
+        return ids;
+    }
+
+    /**
+     * Adds a round, writing the rounds added so far once there are BATCH_SIZE of them
+     * @param round is the Round
+     * @throws IOException if the batch cannot be written
+     */
+    public synchronized void add(Round round) throws IOException {
+        pending.add(round);
+        count(round);
+        if (pending.size() >= BATCH_SIZE) flush();
+    }
+
+    /**
+     * Appends every round not written yet to the log in one write and replaces the stats file
+     * @throws IOException if the log or the stats cannot be written
+     */
+    public synchronized void flush() throws IOException {
+        if (pending.isEmpty()) return;
+        IoThreadCheck.check();
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(logFile, true)));
+        try {
+            for (Round round : pending) {
+                writeRound(out, round);
+            }
+        } finally {
+            out.close();
+        }
+        logLength = logFile.length();
+        pending.clear();
+        writeStats();
+    }
+
+    /**
+     * Gets the totals of a day
+     * @param timestamp is a time during the day in milliseconds since the epoch
+     * @return the Summary, empty if no round was played that day or it is older than DAYS days
+     */
+    public synchronized Summary getDay(long timestamp) {
+        long day = dayOf(timestamp);
+        Summary summary = days[(int) (day % DAYS)];
+        return summary.key == day ? copy(summary) : new Summary(day);
+    }
+
+    /**
+     * Gets the totals of a week, starting on Monday
+     * @param timestamp is a time during the week in milliseconds since the epoch
+     * @return the Summary, empty if no round was played that week or it is older than WEEKS weeks
+     */
+    public synchronized Summary getWeek(long timestamp) {
+        long week = weekOf(dayOf(timestamp));
+        Summary summary = weeks[(int) (week % WEEKS)];
+        return summary.key == week ? copy(summary) : new Summary(week);
+    }
+
+    /**
+     * Reads every round of the history in the order they were played, such as for exporting it
+     * This replays the whole log, so it is meant for rare use rather than for summaries
+     * @return the List of rounds
+     * @throws IOException if the log cannot be read
+     */
+    public synchronized List<Round> readRounds() throws IOException {
+        IoThreadCheck.check();
+        List<Round> rounds = new ArrayList<>();
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(logFile)));
+        try {
+            in.readInt();
+            long position = 4;
+            while (position < logLength) {
+                Round round = readRound(in);
+                rounds.add(round);
+                position += recordLength(round);
+            }
+        } finally {
+            in.close();
+        }
+        rounds.addAll(pending);
+        return rounds;
+    }
+
+    /**
+     * Adds a round to the totals of its day and week, starting over the totals of a day or week that is now too old
+     */
+    private void count(Round round) {
+        long day = dayOf(round.timestamp);
+        count(days[(int) (day % DAYS)], day, round);
+        long week = weekOf(day);
+        count(weeks[(int) (week % WEEKS)], week, round);
+    }
+
+    private static void count(Summary summary, long key, Round round) {
+        if (summary.key != key) {
+            if (summary.key > key) return; //older than the days or weeks kept
+            summary.reset(key);
+        }
+        summary.add(round);
+    }
+
+    private long dayOf(long timestamp) {
+        long local = timestamp + timeZone.getOffset(timestamp);
+        long day = local / DAY_MILLIS;
+        return local < 0 && local % DAY_MILLIS != 0 ? day - 1 : day;
+    }
+
+    private static long weekOf(long day) {
+        return (day + MONDAY_OFFSET) / 7;
+    }
+
+    private static Summary copy(Summary summary) {
+        Summary copy = new Summary(summary.key);
+        copy.rounds = summary.rounds;
+        copy.elements = summary.elements;
+        copy.correct = summary.correct;
+        copy.total = summary.total;
+        copy.exposureMillis = summary.exposureMillis;
+        return copy;
+    }
+
+    /**
+     * Replays the complete records of the log from an offset into the totals, moving logLength past them
+     * @param from is the offset of the first record
+     */
+    private void replay(long from) throws IOException {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(logFile)));
+        try {
+            if (in.readInt() != LOG_MAGIC) throw new IOException(logFile + " is not a history log");
+            skipFully(in, from - 4);
+            while (true) {
+                Round round;
+                try {
+                    round = readRound(in);
+                } catch (EOFException e) {
+                    break; //the end of the log, or a record cut short
+                }
+                count(round);
+                logLength += recordLength(round);
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    private void createLog() throws IOException {
+        DataOutputStream out = new DataOutputStream(new FileOutputStream(logFile));
+        try {
+            out.writeInt(LOG_MAGIC);
+        } finally {
+            out.close();
+        }
+        logLength = 4;
+        statsFile.delete();
+    }
+
+    /**
+     * Cuts the log after the last complete record
+     */
+    private void truncate() throws IOException {
+        RandomAccessFile raf = new RandomAccessFile(logFile, "rw");
+        try {
+            raf.setLength(logLength);
+        } finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Reads the totals from the stats file
+     * @return the log length the totals include, or -1 if the file cannot be read
+     */
+    private long readStats() {
+        if (!statsFile.exists()) return -1;
+        try {
+            DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(statsFile)));
+            try {
+                if (in.readInt() != STATS_MAGIC || in.readInt() != DAYS || in.readInt() != WEEKS) return -1;
+                long covered = in.readLong();
+                for (Summary summary : days) summary.readFrom(in);
+                for (Summary summary : weeks) summary.readFrom(in);
+                return covered;
+            } finally {
+                in.close();
+            }
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * Writes the totals to a temporary file and replaces the stats file with it
+     */
+    private void writeStats() throws IOException {
+        File temp = new File(statsFile.getPath() + TEMP_SUFFIX);
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+        try {
+            out.writeInt(STATS_MAGIC);
+            out.writeInt(DAYS);
+            out.writeInt(WEEKS);
+            out.writeLong(logLength);
+            for (Summary summary : days) summary.writeTo(out);
+            for (Summary summary : weeks) summary.writeTo(out);
+        } finally {
+            out.close();
+        }
+        if (!temp.renameTo(statsFile)) throw new IOException("Could not replace " + statsFile);
+    }
+
+    private static void writeRound(DataOutputStream out, Round round) throws IOException {
+        out.writeLong(round.timestamp);
+        out.writeBoolean(round.wsState);
+        out.writeInt(round.exposureMillis);
+        out.writeInt(round.correct);
+        out.writeInt(round.total);
+        out.writeInt(round.hitIds.length);
+        for (long id : round.hitIds) out.writeLong(id);
+        out.writeInt(round.missedIds.length);
+        for (long id : round.missedIds) out.writeLong(id);
+    }
+
+    private static Round readRound(DataInputStream in) throws IOException {
+        long timestamp = in.readLong();
+        boolean wsState = in.readBoolean();
+        int exposureMillis = in.readInt();
+        int correct = in.readInt();
+        int total = in.readInt();
+        long[] hitIds = readIds(in);
+        long[] missedIds = readIds(in);
+        return new Round(timestamp, wsState, exposureMillis, correct, total, hitIds, missedIds);
+    }
+
+    /**
+     * Reads a count followed by that many element ids
+     * @throws IOException if the count is negative, which only a damaged record can contain
+     */
+    private static long[] readIds(DataInputStream in) throws IOException {
+        int count = in.readInt();
+        if (count < 0) throw new IOException("Invalid id count " + count);
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) ids[i] = in.readLong();
+        return ids;
+    }
+
+    /**
+     * Gets the number of bytes a round takes in the log
+     */
+    private static long recordLength(Round round) {
+        return 8 + 1 + 4 + 4 + 4 + 4 + 8L * round.hitIds.length + 4 + 8L * round.missedIds.length;
+    }
+
+    private static void skipFully(DataInputStream in, long n) throws IOException {
+        while (n > 0) {
+            long skipped = in.skip(n);
+            if (skipped <= 0) throw new EOFException();
+            n -= skipped;
+        }
+    }
+}
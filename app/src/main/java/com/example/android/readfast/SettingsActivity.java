@@ -4,6 +4,8 @@ import android.content.Intent;
 import android.content.SharedPreferences;
 import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
+import android.view.Menu;
+import android.view.MenuItem;
 import android.view.View;
 import android.widget.AdapterView;
 import android.widget.ArrayAdapter;
@@ -20,6 +22,9 @@ public class SettingsActivity extends AppCompatActivity {
     private Switch wsSwitch; //Switch that can change the configuration of the app between words and sentences
     private Spinner numOfElementSpinner; //Spinner that contains options for number of elements
     private Spinner timerSpinner; //Spinner that contains options for timer length
+    private Spinner flashSpinner; //Spinner that contains options for the flash exposure
+    private int[] flashMillis; //exposure in milliseconds of every option of flashSpinner, 0 = off
+    private Spinner difficultySpinner; //Spinner that contains options for the difficulty band
     private TextView numOfElementsTV; //TextView that displays title for numOfElementSpinner
     private Button editElementListButton; //Button that opens up list editing activity
 
@@ -35,6 +40,18 @@ public class SettingsActivity extends AppCompatActivity {
      * This constant is the key to access the current timer length setting in the SharedPreferences file myPrefs
      */
     public static final String TIMER_KEY = "timer";
+    /**
+     * This constant is the key to access the current flash exposure in milliseconds in the SharedPreferences file myPrefs, 0 if flash mode is off
+     */
+    public static final String FLASH_KEY = "flash";
+    /**
+     * This constant is the key to access the current difficulty band in the SharedPreferences file myPrefs, 0 for any difficulty or 1 to ElementDifficulty.BANDS from easiest to hardest, or DIFFICULTY_MISSED
+     */
+    public static final String DIFFICULTY_KEY = "difficulty";
+    /**
+     * This constant is the value of DIFFICULTY_KEY that draws the elements the user missed recently instead of a difficulty band
+     */
+    public static final int DIFFICULTY_MISSED = ElementDifficulty.BANDS + 1;
     /**
      * This constant is the key to access the current words/sentences configuration setting in the SharedPreferences file myPrefs
      */
@@ -109,6 +126,22 @@ public class SettingsActivity extends AppCompatActivity {
         }
         editor.apply();
 
+        //initializes flash spinner, flash mode replaces the timer with an exposure shorter than a second
+        flashSpinner = findViewById(R.id.flashSpinner);
+        adapter = ArrayAdapter.createFromResource(this, R.array.flashSelectionValues, android.R.layout.simple_spinner_dropdown_item);
+        flashSpinner.setAdapter(adapter);
+        flashMillis = getResources().getIntArray(R.array.flashSelectionMillis);
+        int flash = prefs.getInt(FLASH_KEY, 0);
+        for(int i = 0; i < flashMillis.length; i++){
+            if(flashMillis[i] == flash) flashSpinner.setSelection(i);
+        }
+
+        //initializes difficulty spinner, whose options are any difficulty, the bands from easiest to hardest and the elements missed recently
+        difficultySpinner = findViewById(R.id.difficultySpinner);
+        adapter = ArrayAdapter.createFromResource(this, R.array.difficultySelectionValues, android.R.layout.simple_spinner_dropdown_item);
+        difficultySpinner.setAdapter(adapter);
+        difficultySpinner.setSelection(prefs.getInt(DIFFICULTY_KEY, 0));
+
         //initializes elementListbutton
         editElementListButton = findViewById(R.id.elementListEditButton);
 
@@ -140,6 +173,34 @@ public class SettingsActivity extends AppCompatActivity {
             }
         });
 
+        //flashSpinner listener methods
+        flashSpinner.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> adapterView, View view, int i, long l) {
+                editor.putInt(FLASH_KEY, flashMillis[i]);
+                editor.apply();
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> adapterView) {
+
+            }
+        });
+
+        //difficultySpinner listener methods
+        difficultySpinner.setOnItemSelectedListener(new AdapterView.OnItemSelectedListener() {
+            @Override
+            public void onItemSelected(AdapterView<?> adapterView, View view, int i, long l) {
+                editor.putInt(DIFFICULTY_KEY, i);
+                editor.apply();
+            }
+
+            @Override
+            public void onNothingSelected(AdapterView<?> adapterView) {
+
+            }
+        });
+
         //elementLsitButton listener methods
         editElementListButton.setOnClickListener(new View.OnClickListener() {
             @Override
@@ -170,4 +231,30 @@ public class SettingsActivity extends AppCompatActivity {
             }
         });
     }
+
+    /**
+     * Inflates the menu with the debug screens, which only debug builds have
+     * @param menu is the menu
+     * @return true if the menu is shown
+     */
+    @Override
+    public boolean onCreateOptionsMenu(Menu menu) {
+        if(!BuildConfig.DEBUG) return false;
+        getMenuInflater().inflate(R.menu.settings_menu, menu);
+        return true;
+    }
+
+    /**
+     * Opens the debug screen that was selected
+     * @param item is the item selected
+     * @return true if the item was handled
+     */
+    @Override
+    public boolean onOptionsItemSelected(MenuItem item) {
+        if(item.getItemId() == R.id.round_metrics_menu_option){
+            startActivity(new Intent(SettingsActivity.this, RoundMetricsActivity.class));
+            return true;
+        }
+        return super.onOptionsItemSelected(item);
+    }
 }
@@ -0,0 +1,132 @@
+package com.example.android.readfast;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * This class computes the range inserts, removes and changes that turn one list of slots into another, such as
+ * the element list before and after an edit. Slots are unique within a list and lists keep their slots
+ * in a fixed order, so a single linear pass over both lists finds every change. A slot in both lists
+ * whose version differs was reused by another element and is reported as changed.
+ */
+public class SlotDiff {
+
+    /**
+     * This interface receives the changes of a SlotDiff, in the order they are applied to the old list
+     */
+    public interface Callback {
+        void onInserted(int position, int count);
+        void onRemoved(int position, int count);
+        void onChanged(int position, int count);
+    }
+
+    private static final int INSERT = 0; //type of an insert in ops
+    private static final int REMOVE = 1; //type of a remove in ops
+    private static final int CHANGE = 2; //type of a change in ops
+
+    private final int[] ops; //type, position and count of every change
+    private final int opCount; //number of changes
+    private final boolean reordered; //whether slots found in both lists are in a different order
+
+    private SlotDiff(int[] ops, int opCount, boolean reordered) {
+        this.ops = ops;
+        this.opCount = opCount;
+        this.reordered = reordered;
+    }
+
+    /**
+     * Computes the changes between two lists of slots in time proportional to their lengths
+     * @param oldSlots are the slots of the old list
+     * @param oldVersions are the versions of the slots of the old list
+     * @param newSlots are the slots of the new list
+     * @param newVersions are the versions of the slots of the new list
+     * @return the SlotDiff
+     */
+    public static SlotDiff calculate(int[] oldSlots, int[] oldVersions, int[] newSlots, int[] newVersions) {
+        BitSet inOld = toBitSet(oldSlots);
+        BitSet inNew = toBitSet(newSlots);
+        int[] ops = new int[12];
+        int opCount = 0;
+        int i = 0;
+        int j = 0;
+        int position = 0;
+        while (i < oldSlots.length || j < newSlots.length) {
+            int type;
+            int count = 0;
+            if (i < oldSlots.length && !inNew.get(oldSlots[i])) {
+                type = REMOVE;
+                while (i < oldSlots.length && !inNew.get(oldSlots[i])) {
+                    i++;
+                    count++;
+                }
+            } else if (j < newSlots.length && !inOld.get(newSlots[j])) {
+                type = INSERT;
+                while (j < newSlots.length && !inOld.get(newSlots[j])) {
+                    j++;
+                    count++;
+                }
+            } else if (oldSlots[i] == newSlots[j] && oldVersions[i] == newVersions[j]) {
+                i++;
+                j++;
+                position++;
+                continue;
+            } else if (oldSlots[i] == newSlots[j]) {
+                type = CHANGE;
+                while (i < oldSlots.length && j < newSlots.length && oldSlots[i] == newSlots[j] && oldVersions[i] != newVersions[j]) {
+                    i++;
+                    j++;
+                    count++;
+                }
+            } else {
+                return new SlotDiff(ops, 0, true);
+            }
+            if ((opCount + 1) * 3 > ops.length) ops = Arrays.copyOf(ops, ops.length * 2);
+            ops[opCount * 3] = type;
+            ops[opCount * 3 + 1] = position;
+            ops[opCount * 3 + 2] = count;
+            opCount++;
+            if (type != REMOVE) position += count;
+        }
+        return new SlotDiff(ops, opCount, false);
+    }
+
+    /**
+     * Gets whether slots found in both lists are in a different order, in which case the changes are not
+     * computed and the whole list has to be replaced
+     * @return true if the lists are reordered
+     */
+    public boolean isReordered() {
+        return reordered;
+    }
+
+    /**
+     * Gets the number of range inserts, removes and changes
+     * @return the number of changes
+     */
+    public int getUpdateCount() {
+        return opCount;
+    }
+
+    /**
+     * Passes every change to a callback in order
+     * @param callback is the Callback
+     */
+    public void dispatchTo(Callback callback) {
+        for (int k = 0; k < opCount; k++) {
+            if (ops[k * 3] == INSERT) callback.onInserted(ops[k * 3 + 1], ops[k * 3 + 2]);
+            else if (ops[k * 3] == REMOVE) callback.onRemoved(ops[k * 3 + 1], ops[k * 3 + 2]);
+            else callback.onChanged(ops[k * 3 + 1], ops[k * 3 + 2]);
+        }
+    }
+
+    /**
+     * Marks the slots of a list in a BitSet
+     */
+    private static BitSet toBitSet(int[] slots) {
+        BitSet set = new BitSet();
+        for (int slot : slots) {
+            set.set(slot);
+        }
+        return set;
+    }
+}
@@ -3,9 +3,12 @@ package com.example.android.readfast;
 import android.app.DialogFragment;
 import android.content.Intent;
 import android.content.SharedPreferences;
+import android.net.Uri;
 import android.support.v7.app.ActionBar;
 import android.support.v7.app.AppCompatActivity;
 import android.os.Bundle;
+import android.text.Editable;
+import android.text.TextWatcher;
 import android.support.v7.widget.LinearLayoutManager;
 import android.support.v7.widget.RecyclerView;
 import android.util.Log;
@@ -13,37 +16,41 @@ import android.view.Menu;
 import android.view.MenuItem;
 import android.view.View;
 import android.widget.Button;
+import android.widget.EditText;
 import android.widget.PopupMenu;
-
-import java.io.BufferedReader;
-import java.io.BufferedWriter;
-import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
-import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Scanner;
-import java.util.Set;
+import android.widget.ProgressBar;
+import android.widget.Toast;
 
 /**
  * This Activity provides a UI for editing the list of possible elements that will appear
- * during the game. The user can add and remove individual elements, or multiple at once.
+ * during the game. The user can add and remove individual elements, or multiple at once,
+ * and search the list as they type.
  */
-public class WordListActivity extends AppCompatActivity implements ElementListAdapter.ListItemListener, ElementListDialog.ElementListDialogListener{
+public class WordListActivity extends AppCompatActivity implements ElementListAdapter.ListItemListener, ElementListDialog.ElementListDialogListener,
+        ElementImportTask.ImportListener, SearchIndexTask.SearchIndexListener{
 
     private RecyclerView elementListRV; //RecyclerView that allows scrolling functionality through elements
-    private List<String> elementList; //List of all the elements
-    private File elementFile; //elementFile containing the full list of elements
+    private ElementPager elementPager; //pages of the elements shown by the RecyclerView
+    private ElementRepository repository; //loads and edits the element list off of the UI thread
+    private ElementStore elementStore; //indexed store of the elements, null until the repository has loaded it
     private boolean wsState; //boolean determining whether the app is configured for words or sentences (false = words, true = sentences)
     private Button addButton; //Button to add elements
     private SharedPreferences prefs; //SharedPreferences to access preferences set in the SettingsActivity
     private ElementListAdapter adapter; //adapter that connects the Activity with the Views within the RecyclerView
     private ActionBar actionBar; //ActionBar on the top of the screen
-    private List<String> deleteElementsList; //List of items checked and to be deleted
+    private ElementSelection selection; //slots of the items checked and to be deleted
+    private boolean deleting; //whether the selected elements are being deleted in the background
     private Menu actionBarMenu; //Menu of options on the ActionBar
+    private ProgressBar importProgressBar; //ProgressBar showing the progress of an import
+    private ElementImportTask importTask; //task importing new elements in the background, null if no import is running
+    private EditText searchEditText; //EditText the search query is typed into
+    private ElementSearchIndex searchIndex; //index of the elements used for searching, null until it is built
+    private SearchIndexTask searchIndexTask; //task building searchIndex in the background
+    private String searchQuery = ""; //normalized search query, empty if the list is not filtered
+    private long shownVersion; //version stamp of the element list when it was last shown
+
+    private static final int IMPORT_FILE_REQUEST = 1; //request code of the file picker used to import a text file
+    private static final int MAX_SEARCH_RESULTS = 10000; //most search results shown, so a short query does not collect the whole list
 
     /**
      * Overrides onCreate method
@@ -59,29 +66,45 @@ public class WordListActivity extends AppCompatActivity implements ElementListAd
         actionBar.setDisplayShowTitleEnabled(false);
         actionBar.setDisplayShowHomeEnabled(false);
 
-        //initialize Lists
-        elementList = new ArrayList<>();
-        deleteElementsList = new ArrayList<>();
+        //initialize selection
+        selection = new ElementSelection();
 
         //initializes SharedPreferences and initialize corresponding instance data
         prefs = getApplicationContext().getSharedPreferences(SettingsActivity.SHARED_PREFERENCES_FILE, 0);
         wsState = prefs.getBoolean(SettingsActivity.WS_STATE_KEY, false);
 
-        //populates elementList with elements from elementFile
-        File elementListDir = getDir("element_lists", MODE_PRIVATE);
-        elementFile = new File(elementListDir.getAbsolutePath() + "/" + (wsState ? "sentences_list.txt" : "words_list.txt"));
-        updateElementList(elementFile, elementList);
-
-        //intializes and inflates RecyclerView
+        //intializes and inflates RecyclerView, which stays empty until the elements are loaded
         elementListRV = findViewById(R.id.wordListRV);
         LinearLayoutManager layoutManager = new LinearLayoutManager(this);
         elementListRV.setLayoutManager(layoutManager);
         adapter = new ElementListAdapter(this);
         elementListRV.setAdapter(adapter);
-        adapter.setElements(elementList);
+        adapter.setSelection(selection);
+
+        //initializes search box, which is enabled once the search index is built
+        searchEditText = findViewById(R.id.searchEditText);
+        searchEditText.addTextChangedListener(new TextWatcher() {
+            @Override
+            public void beforeTextChanged(CharSequence charSequence, int i, int i1, int i2) {
+            }
+
+            @Override
+            public void onTextChanged(CharSequence charSequence, int i, int i1, int i2) {
+            }
+
+            @Override
+            public void afterTextChanged(Editable editable) {
+                searchQuery = ElementStore.normalize(editable.toString());
+                refreshElements();
+            }
+        });
 
-        //initializes add button
+        //initializes import progress bar
+        importProgressBar = findViewById(R.id.importProgressBar);
+
+        //initializes add button, which is enabled once the elements are loaded
         addButton = findViewById(R.id.addButton);
+        addButton.setEnabled(false);
         addButton.setOnClickListener(new View.OnClickListener() {
             @Override
             public void onClick(View view) {
@@ -90,25 +113,60 @@ public class WordListActivity extends AppCompatActivity implements ElementListAd
                 fragment.show(getFragmentManager(),"add elements");
             }
         });
+
+        //opens the element list in the background, its elements are then read a page at a time as the list scrolls
+        repository = new ElementRepository(this, wsState);
+        repository.load(new ElementRepository.Callback<ElementStore>() {
+            @Override
+            public void onResult(ElementStore store) {
+                onElementsLoaded(store);
+            }
+        });
+    }
+
+    /**
+     * Shows the elements once the repository has loaded them and starts building the search index
+     * @param store is the ElementStore
+     */
+    private void onElementsLoaded(ElementStore store) {
+        if(isFinishing()) return;
+        elementStore = store;
+        elementPager = new ElementPager(store);
+        adapter.setPager(elementPager);
+        addButton.setEnabled(true);
+        refreshElements();
+        //the index is built on the I/O thread, so two Activities never build the same index at once
+        searchIndexTask = new SearchIndexTask(repository, elementStore, wsState, this);
+        searchIndexTask.executeOnExecutor(ElementRepository.getIoExecutor());
     }
 
     /**
      * Overrides the OnListItemLongClock method
      * Creates and displays a popup menu when a list item is long clicked
      * @param element is the element contained by the list item
+     * @param position is the position of the list item
      * @param v is the view that was clicked
      */
     @Override
-    public void onListItemLongClick(final String element, View v) {
+    public void onListItemLongClick(final String element, final int position, View v) {
         PopupMenu popup = new PopupMenu(this, v);
         popup.setOnMenuItemClickListener(new PopupMenu.OnMenuItemClickListener() {
             @Override
             public boolean onMenuItemClick(MenuItem menuItem) {
                 switch(menuItem.getItemId()){
                     case R.id.delete_popup_menu_option:
-                        removeElement(elementFile, element);
-                        updateElementList(elementFile, elementList);
-                        adapter.setElements(elementList);
+                        //the slot is deselected so that an element added to it later is not selected
+                        selection.setSelected(elementPager.getSlot(position), false);
+                        updateDeleteMenuItem();
+                        repository.remove(element, new ElementRepository.Callback<Boolean>() {
+                            @Override
+                            public void onResult(Boolean removed) {
+                                if (removed && !isFinishing()) refreshElements();
+                            }
+                        });
+                        return true;
+                    case R.id.select_range_popup_menu_option:
+                        selectRange(position);
                         return true;
                     case R.id.define_popup_menu_option:
                         return true;
@@ -121,32 +179,152 @@ public class WordListActivity extends AppCompatActivity implements ElementListAd
     }
 
     /**
-     * Adds or removes the selected element from deleteElementsList based on whether the ListItem was checked or unchecked
-     * @param element is the element that was selected
+     * Selects or deselects the slot of the element at a position based on whether the ListItem was checked or unchecked
+     * A checked element becomes the start of the next range selection
+     * @param position is the position of the element that was selected
      * @param add determines whether the check box was checked or unchecked (false = unchecked, true = checked)
      */
     @Override
-    public void onListItemCheckedChanged(String element, boolean add) {
-        MenuItem deleteAllMenuItem = actionBarMenu.findItem(R.id.delete_all_actionbar_menu_option);
-        if(add) deleteElementsList.add(element);
-        else deleteElementsList.remove(element);
-        deleteAllMenuItem.setVisible(deleteElementsList.size() > 0);
+    public void onListItemCheckedChanged(int position, boolean add) {
+        selection.setSelected(elementPager.getSlot(position), add);
+        if(add) selection.setAnchor(position);
+        updateDeleteMenuItem();
+    }
+
+    /**
+     * Selects every element between the last checked element and a position, including both ends
+     * @param position is the position the range ends at
+     */
+    private void selectRange(int position) {
+        int anchor = selection.getAnchor();
+        int[] slots = elementPager.getSlots();
+        int start = anchor < 0 ? position : Math.min(anchor, position);
+        int end = Math.min(slots.length - 1, anchor < 0 ? position : Math.max(anchor, position));
+        if(start > end) return;
+        for(int i = start; i <= end; i++){
+            selection.setSelected(slots[i], true);
+        }
+        selection.setAnchor(position);
+        adapter.notifyItemRangeChanged(start, end - start + 1);
+        updateDeleteMenuItem();
+    }
+
+    /**
+     * Shows the delete selected option only while elements are selected
+     */
+    private void updateDeleteMenuItem() {
+        if(actionBarMenu == null) return;
+        actionBarMenu.findItem(R.id.delete_all_actionbar_menu_option).setVisible(selection.size() > 0 && !deleting);
+    }
+
+    /**
+     * Shows the option to cancel the import while an import is running and the option to import a file otherwise
+     */
+    private void updateImportMenuItems() {
+        if(actionBarMenu == null) return;
+        actionBarMenu.findItem(R.id.import_file_actionbar_menu_option).setVisible(importTask == null);
+        actionBarMenu.findItem(R.id.cancel_import_actionbar_menu_option).setVisible(importTask != null);
     }
 
     /**
      * Adds all the elements within the given String based on whether the app is currently configured for words or sentences
+     * The String is split and added to the element store in the background by an ElementImportTask
      * If sentences: splits the string at punctuation and adds full sentences
      * If words: splits the string at every space
      * @param newElements is the String containing the new elements
      */
     @Override
     public void addNewElements(String newElements) {
-        String[] newElementsArr = wsState ? newElements.replaceAll("\\s+", " ").split("(?<=[!.?])") : newElements.replaceAll("[^a-zA-Z ]","").split("\\s+");
-        for(String ele : newElementsArr){
-            addElement(elementFile, ele.trim());
-        }
-        updateElementList(elementFile, elementList);
-        adapter.setElements(elementList);
+        if(importTask != null) return; //only one import runs at a time
+        startImport(new ElementImportTask(elementStore, wsState, newElements, this));
+    }
+
+    /**
+     * Imports the plain text file chosen in the file picker
+     * @param requestCode is the request code the picker was started with
+     * @param resultCode is whether a file was chosen
+     * @param data contains the Uri of the file
+     */
+    @Override
+    protected void onActivityResult(int requestCode, int resultCode, Intent data) {
+        super.onActivityResult(requestCode, resultCode, data);
+        if(requestCode != IMPORT_FILE_REQUEST || resultCode != RESULT_OK || data == null) return;
+        Uri uri = data.getData();
+        if(uri == null || elementStore == null || importTask != null) return;
+        startImport(new ElementImportTask(elementStore, wsState, getContentResolver(), uri, this));
+    }
+
+    /**
+     * Shows the import ProgressBar and runs an import on the I/O thread
+     * @param task is the ElementImportTask
+     */
+    private void startImport(ElementImportTask task) {
+        importTask = task;
+        addButton.setEnabled(false);
+        importProgressBar.setProgress(0);
+        importProgressBar.setVisibility(View.VISIBLE);
+        updateImportMenuItems();
+        importTask.executeOnExecutor(ElementRepository.getIoExecutor());
+    }
+
+    /**
+     * Updates the import ProgressBar
+     * @param percent is the percentage of the import that is done
+     */
+    @Override
+    public void onImportProgress(int percent) {
+        importProgressBar.setProgress(percent);
+    }
+
+    /**
+     * Refreshes the element list once an import is done or cancelled
+     * A failed or cancelled import keeps the elements it added before it stopped, which the user is told about
+     * @param added is the number of new elements added
+     * @param failed is whether the file could not be read to its end
+     * @param cancelled is whether the import was stopped before the end of the text
+     */
+    @Override
+    public void onImportFinished(int added, boolean failed, boolean cancelled) {
+        importTask = null;
+        if(isFinishing()) return;
+        importProgressBar.setVisibility(View.GONE);
+        addButton.setEnabled(true);
+        updateImportMenuItems();
+        if(failed && added == 0) Toast.makeText(this, R.string.import_unreadable, Toast.LENGTH_SHORT).show();
+        else if(failed) Toast.makeText(this, getString(R.string.import_failed, added), Toast.LENGTH_LONG).show();
+        else if(cancelled) Toast.makeText(this, getString(R.string.import_stopped, added), Toast.LENGTH_SHORT).show();
+        refreshElements();
+    }
+
+    /**
+     * Enables searching once the search index is built
+     * @param index is the ElementSearchIndex
+     */
+    @Override
+    public void onSearchIndexReady(ElementSearchIndex index) {
+        searchIndexTask = null;
+        searchIndex = index;
+        searchEditText.setEnabled(true);
+    }
+
+    /**
+     * Overrides onResume to redraw the list if it was changed while this Activity was in the background
+     */
+    @Override
+    protected void onResume() {
+        super.onResume();
+        if(elementPager != null && repository.getVersion() != shownVersion) refreshElements();
+    }
+
+    /**
+     * Overrides onDestroy to stop an import that is still running, keeping the elements it already added
+     * The search index stays registered with the store, since it is cached for the next time the list is edited
+     */
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        if(importTask != null) importTask.cancel(false);
+        if(searchIndexTask != null) searchIndexTask.cancel(false);
     }
 
     /**
@@ -158,143 +336,85 @@ public class WordListActivity extends AppCompatActivity implements ElementListAd
     public boolean onCreateOptionsMenu(Menu menu) {
         getMenuInflater().inflate(R.menu.element_actionbar_menu, menu);
         actionBarMenu = menu;
+        updateImportMenuItems();
         return true;
     }
 
     /**
      * Provides different functionality based on which item was selected
      * Clear: clears the entire element list
-     * Delete Selcted: deletes all the checked items (elements in deleteElementList)
+     * Select all: checks every element shown, which is every search result while searching
+     * Delete Selcted: deletes all the checked items in the background
+     * Import file: picks a plain text file and imports its elements in the background
+     * Stop import: stops the running import, keeping the elements added so far
      * @param item is the selected MenuItem
      * @return true if valid option is selected, otherwise false
      */
     @Override
     public boolean onOptionsItemSelected(MenuItem item) {
+        if(elementStore == null) return false; //nothing can be edited until the elements are loaded
         switch(item.getItemId()){
             case R.id.clear_actionbar_menu_option:
-                clearFile(elementFile);
-                updateElementList(elementFile, elementList);
-                adapter.setElements(elementList);
+                selection.clear();
+                updateDeleteMenuItem();
+                repository.clear(new ElementRepository.Callback<Void>() {
+                    @Override
+                    public void onResult(Void result) {
+                        if(!isFinishing()) refreshElements();
+                    }
+                });
+                return true;
+            case R.id.select_all_actionbar_menu_option:
+                selection.selectAll(elementPager.getSlots());
+                adapter.notifyItemRangeChanged(0, adapter.getItemCount());
+                updateDeleteMenuItem();
+                return true;
+            case R.id.import_file_actionbar_menu_option:
+                Intent intent = new Intent(Intent.ACTION_GET_CONTENT);
+                intent.setType("text/plain");
+                intent.addCategory(Intent.CATEGORY_OPENABLE);
+                startActivityForResult(Intent.createChooser(intent, getString(R.string.import_chooser_title)), IMPORT_FILE_REQUEST);
+                return true;
+            case R.id.cancel_import_actionbar_menu_option:
+                if(importTask != null) importTask.cancel(false);
                 return true;
             case R.id.delete_all_actionbar_menu_option:
-                for(String element : deleteElementsList){
-                    removeElement(elementFile, element);
-                }
-                updateElementList(elementFile, elementList);
-                adapter.setElements(elementList);
+                if(deleting) return true;
+                deleting = true;
+                updateDeleteMenuItem();
+                repository.removeAll(selection.getSlots(), new ElementRepository.Callback<Integer>() {
+                    @Override
+                    public void onResult(Integer removed) {
+                        //deselects every element and refreshes the list once the selected elements are deleted
+                        deleting = false;
+                        selection.clear();
+                        updateDeleteMenuItem();
+                        if(!isFinishing()) refreshElements();
+                    }
+                });
                 return true;
         }
         return false;
     }
 
     /**
-     * Adds a single element to a file
-     * @param f is the file
-     * @param element is the element to be added
-     */
-    private static void addElement(File f, String element){
-        if(!element.isEmpty()){
-            try{
-                BufferedWriter writer = new BufferedWriter(new FileWriter(f, true));
-                writer.append(element.toUpperCase());
-                writer.newLine();
-                writer.close();
-            } catch(IOException e){
-                e.printStackTrace();
-            }
-        }
-        clearRepeats(f);
-    }
-
-    /**
-     * Removes all instances of an element from a file
-     * @param f is the file
-     * @param element is the element to be removed
-     */
-    private static void removeElement(File f, String element){
-        BufferedReader reader = null;
-        BufferedWriter writer = null;
-        try{
-            File temp = new File(f.getAbsolutePath() + ".tmp");
-            reader = new BufferedReader(new FileReader(f));
-            writer = new BufferedWriter(new FileWriter(temp));
-            String curLine;
-            boolean wordFound = false;
-            while((curLine = reader.readLine()) != null){
-                if(curLine.trim().equalsIgnoreCase(element) && !wordFound) {
-                    wordFound = true;
-                    continue;
-                }
-                writer.write(curLine.toUpperCase());
-                writer.newLine();
-            }
-            temp.renameTo(f);
-        } catch(IOException e){
-            e.printStackTrace();
-        } finally {
-            try{
-                reader.close();
-                writer.close();
-            } catch (IOException e){
-                e.printStackTrace();
-            }
-        }
-    }
-
-    /**
-     * Updates the elementList based on a file
-     * @param f is the file
-     */
-    private static void updateElementList(File f, List<String> elementList){
-        elementList.clear();
-        Scanner sc = null;
-        try {
-            sc = new Scanner(f);
-            while(sc.hasNext()){
-                elementList.add(sc.nextLine());
-            }
-        } catch (IOException e){
-            e.printStackTrace();
-        } finally {
-            if(sc != null) sc.close();
-        }
-    }
-
-    /**
-     * Removes all duplicate elements from the file
-     * @param f is the file
+     * Updates the list after the elements or the search query changed
+     * The slots to be shown are read, or searched for, and diffed on a background thread
+     * While searching, only the first MAX_SEARCH_RESULTS elements matching the query are shown
      */
-    private static void clearRepeats(File f){
-        Set<String> foundWords = new HashSet<>();
-        List<String> repeats = new ArrayList<>();
-        Scanner sc = null;
-        try {
-            sc = new Scanner(f);
-            while(sc.hasNext()){
-                String s = sc.nextLine();
-                if(foundWords.contains(s)) repeats.add(s);
-                foundWords.add(s);
+    private void refreshElements() {
+        if(elementPager == null) return;
+        shownVersion = repository.getVersion();
+        final ElementStore store = elementStore;
+        final ElementSearchIndex index = searchIndex;
+        final String query = searchQuery;
+        adapter.refresh(new ElementListAdapter.SlotSource() {
+            @Override
+            public int[] getSlots() {
+                int[] results = index == null ? null : index.search(query, MAX_SEARCH_RESULTS);
+                return results == null ? store.getSlots() : results;
             }
-        } catch (IOException e){
-            e.printStackTrace();
-        } finally {
-            if(sc != null) sc.close();
-        }
-        for(String s : repeats){
-            removeElement(f, s);
-        }
-    }
-
-    /**
-     * Clears the entire file
-     * @param f is the file
-     */
-    private static void clearFile(File f){
-        f.delete();
-        try{
-            new File(f.getAbsolutePath()).createNewFile();
-        } catch (IOException e){
-            e.printStackTrace();
-        }
+        });
+        selection.setAnchor(-1); //positions change when the list is refreshed
     }
 }
@@ -0,0 +1,37 @@
+package com.example.android.readfast;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for AliasTable
+ */
+public class AliasTableTest {
+
+    @Test
+    public void sample_matchesWeights() {
+        double[] weights = {1, 0, 3, 6, 0.5};
+        AliasTable table = new AliasTable(weights);
+        Random random = new Random(7);
+        int samples = 210000;
+        int[] counts = new int[weights.length];
+        for (int i = 0; i < samples; i++) {
+            counts[table.sample(random)]++;
+        }
+        for (int i = 0; i < weights.length; i++) {
+            double expected = samples * weights[i] / 10.5;
+            assertTrue("index " + i + " drawn " + counts[i] + " times", Math.abs(counts[i] - expected) <= 0.03 * samples);
+        }
+        assertEquals(0, counts[1]);
+    }
+
+    @Test
+    public void sample_allZeroWeightsIsEmpty() {
+        AliasTable table = new AliasTable(new double[]{0, 0});
+        assertTrue(table.isEmpty());
+        assertEquals(-1, table.sample(new Random()));
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.android.readfast;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for AnswerTokenizer
+ */
+public class AnswerTokenizerTest {
+
+    @Test
+    public void tokenize_dropsEverythingButLetters() {
+        List<String> tokens = new ArrayList<>();
+        AnswerTokenizer.tokenize("  the [cat]_sat^ on\\the 42 mat!\n", tokens);
+        assertEquals(Arrays.asList("THE", "CATSAT", "ONTHE", "MAT"), tokens);
+    }
+
+    @Test
+    public void onTextChanged_followsTypingAndDeleting() {
+        AnswerTokenizer tokenizer = new AnswerTokenizer();
+        StringBuilder text = new StringBuilder();
+        for (char c : "cat dog".toCharArray()) {
+            edit(tokenizer, text, text.length(), 0, String.valueOf(c));
+        }
+        assertEquals(Arrays.asList("CAT", "DOG"), tokenizer.getTokens());
+        //deleting the space joins the two words
+        edit(tokenizer, text, 3, 1, "");
+        assertEquals(Arrays.asList("CATDOG"), tokenizer.getTokens());
+        edit(tokenizer, text, 0, text.length(), "");
+        assertEquals(0, tokenizer.size());
+    }
+
+    @Test
+    public void onTextChanged_matchesTokenizingTheWholeText() {
+        Random random = new Random(15);
+        String alphabet = "ab .\n1";
+        AnswerTokenizer tokenizer = new AnswerTokenizer();
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 5000; i++) {
+            int start = random.nextInt(text.length() + 1);
+            int before = random.nextInt(Math.min(4, text.length() - start) + 1);
+            StringBuilder replacement = new StringBuilder();
+            for (int j = random.nextInt(6); j > 0; j--) {
+                replacement.append(alphabet.charAt(random.nextInt(alphabet.length())));
+            }
+            edit(tokenizer, text, start, before, replacement.toString());
+            List<String> expected = new ArrayList<>();
+            AnswerTokenizer.tokenize(text, expected);
+            assertEquals(expected, tokenizer.getTokens());
+        }
+    }
+
+    private static void edit(AnswerTokenizer tokenizer, StringBuilder text, int start, int before, String replacement) {
+        text.replace(start, start + before, replacement);
+        tokenizer.onTextChanged(text, start, before, replacement.length());
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.android.readfast;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for ElementCache
+ */
+public class ElementCacheTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void awaitCompaction() {
+        ElementStore.awaitCompaction(); //the folder is deleted next, so no compaction may still be writing to it
+    }
+
+    @Test
+    public void putStore_cachesStoreForItsList() throws Exception {
+        ElementCache cache = new ElementCache();
+        ElementStore store = ElementStore.open(new File(folder.getRoot(), "words_list"));
+        cache.putStore(false, store);
+        assertSame(store, cache.getStore(false));
+        assertNull(cache.getStore(true));
+    }
+
+    @Test
+    public void version_changesOnEveryWrite() throws Exception {
+        ElementCache cache = new ElementCache();
+        ElementStore store = ElementStore.open(new File(folder.getRoot(), "words_list"));
+        cache.putStore(false, store);
+        long version = cache.getVersion(false);
+        store.add("CAT");
+        assertNotEquals(version, cache.getVersion(false));
+        version = cache.getVersion(false);
+        store.remove("CAT");
+        assertNotEquals(version, cache.getVersion(false));
+        version = cache.getVersion(false);
+        store.clear();
+        assertNotEquals(version, cache.getVersion(false));
+        //a list that did not change keeps its version
+        assertEquals(0, cache.getVersion(true));
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.android.readfast;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for ElementDifficulty
+ */
+public class ElementDifficultyTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void score_growsWithLengthAndSyllables() {
+        int[] counts = new int[26];
+        int cat = ElementDifficulty.score("CAT", counts, 0);
+        int table = ElementDifficulty.score("TABLET", counts, 0);
+        int long_ = ElementDifficulty.score("INTERNATIONALIZATION", counts, 0);
+        assertTrue(cat < table && table < long_);
+        assertEquals(ElementDifficulty.LEVELS - 1, ElementDifficulty.score("PNEUMONOULTRAMICROSCOPICSILICOVOLCANOCONIOSIS", counts, 0));
+        assertTrue(ElementDifficulty.score("THE CAT SAT.", counts, 0) < ElementDifficulty.score(
+                "THE EXTRAORDINARILY CONSCIENTIOUS ADMINISTRATOR RECONSIDERED EVERYTHING.", counts, 0));
+    }
+
+    @Test
+    public void score_rareLettersAreHarder() {
+        int[] counts = new int[26];
+        for (char c = 'A'; c <= 'Z'; c++) counts[c - 'A'] = 1000;
+        counts['Q' - 'A'] = counts['X' - 'A'] = counts['Z' - 'A'] = 1;
+        long total = 0;
+        for (int count : counts) total += count;
+        assertTrue(ElementDifficulty.score("QUIZ", counts, total) > ElementDifficulty.score("MOST", counts, total));
+    }
+
+    @Test
+    public void draw_favorsTargetLevelWithoutRepeats() throws Exception {
+        ElementDifficulty difficulty = ElementDifficulty.open(new File(folder.getRoot(), "words_list.difficulty"));
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            words.add(i % 2 == 0 ? "AT" : "UNCHARACTERISTICALLY");
+        }
+        for (int slot = 0; slot < words.size(); slot++) difficulty.insert(slot, words.get(slot));
+        int easy = difficulty.getLevelAtPercentile(ElementDifficulty.getBandPercentile(1));
+        int hard = difficulty.getLevelAtPercentile(ElementDifficulty.getBandPercentile(ElementDifficulty.BANDS));
+        assertTrue(easy < hard);
+        int[] drawn = difficulty.draw(20, easy);
+        assertEquals(20, drawn.length);
+        Set<Integer> unique = new HashSet<>();
+        int easyCount = 0;
+        for (int slot : drawn) {
+            unique.add(slot);
+            if (difficulty.getLevel(slot) == easy) easyCount++;
+        }
+        assertEquals(20, unique.size());
+        assertTrue(easyCount >= 15);
+        //a round larger than the list takes every element
+        assertEquals(300, new HashSet<>(toList(difficulty.draw(1000, hard))).size());
+    }
+
+    @Test
+    public void removeAndReopen_keepLevels() throws Exception {
+        File f = new File(folder.getRoot(), "words_list.difficulty");
+        ElementDifficulty difficulty = ElementDifficulty.open(f);
+        for (int slot = 0; slot < 200; slot++) difficulty.insert(slot, slot % 3 == 0 ? "DOG" : "ELEPHANT");
+        difficulty.remove(3, "DOG");
+        difficulty.remove(4, "ELEPHANT");
+        int level = difficulty.getLevel(5);
+        ElementDifficulty reopened = ElementDifficulty.open(f);
+        assertEquals(198, reopened.size());
+        assertEquals(-1, reopened.getLevel(3));
+        assertEquals(level, reopened.getLevel(5));
+        for (int slot : reopened.draw(198, 0)) {
+            assertTrue(slot != 3 && slot != 4);
+        }
+    }
+
+    @Test
+    public void store_drawByDifficultyKeepsLevelsInSync() throws Exception {
+        File base = new File(folder.getRoot(), "words_list");
+        ElementStore store = ElementStore.open(base);
+        store.addAll(Arrays.asList("A", "AN", "ANTIDISESTABLISHMENTARIANISM", "PSEUDOPSEUDOHYPOPARATHYROIDISM"));
+        int slot = store.getSlotAt(1);
+        assertTrue(store.getDifficulty(slot) >= 0);
+        store.remove("AN");
+        assertEquals(-1, store.getDifficulty(slot));
+        assertEquals(3, new HashSet<>(store.drawByDifficulty(5, 1)).size());
+        assertEquals(store.getDifficulty(store.getSlotAt(0)), ElementStore.open(base).getDifficulty(store.getSlotAt(0)));
+    }
+
+    private static List<Integer> toList(int[] slots) {
+        List<Integer> list = new ArrayList<>();
+        for (int slot : slots) list.add(slot);
+        return list;
+    }
+}
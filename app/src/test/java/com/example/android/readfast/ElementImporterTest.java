@@ -0,0 +1,128 @@
+package com.example.android.readfast;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.nio.charset.Charset;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for ElementImporter
+ */
+public class ElementImporterTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void awaitCompaction() {
+        ElementStore.awaitCompaction(); //the folder is deleted next, so no compaction may still be writing to it
+    }
+
+    private static class CountingProgress implements ElementImporter.Progress {
+        int updates; //number of progress updates
+        int lastPercent = -1; //last percentage reported
+        int cancelAfter = Integer.MAX_VALUE; //number of updates after which the import is cancelled
+
+        @Override
+        public boolean isCancelled() {
+            return updates >= cancelAfter;
+        }
+
+        @Override
+        public void onProgress(int percent) {
+            assertTrue(percent >= lastPercent);
+            lastPercent = percent;
+            updates++;
+        }
+    }
+
+    private File writeBook(int sentences) throws Exception {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < sentences; i++) {
+            text.append("Sentence n\u00FAmero ").append(i).append(". ");
+        }
+        File f = folder.newFile("book.txt");
+        FileOutputStream out = new FileOutputStream(f);
+        try {
+            out.write(text.toString().getBytes(Charset.forName("UTF-8")));
+        } finally {
+            out.close();
+        }
+        return f;
+    }
+
+    @Test
+    public void importChannel_addsEverySentenceAcrossChunks() throws Exception {
+        int sentences = 20000;
+        File book = writeBook(sentences);
+        ElementStore store = ElementStore.open(new File(folder.getRoot(), "sentences_list"));
+        CountingProgress progress = new CountingProgress();
+        FileInputStream in = new FileInputStream(book);
+        try {
+            assertEquals(sentences, new ElementImporter(store, true).importChannel(in.getChannel(), book.length(), progress));
+        } finally {
+            in.close();
+        }
+        assertEquals(sentences, store.size());
+        assertEquals("SENTENCE N\u00DAMERO 0.", store.getElements().get(0));
+        assertEquals(100, progress.lastPercent);
+        assertTrue(progress.updates > 1);
+    }
+
+    @Test
+    public void importChannel_cancelKeepsAddedBatches() throws Exception {
+        File book = writeBook(20000);
+        ElementStore store = ElementStore.open(new File(folder.getRoot(), "sentences_list"));
+        CountingProgress progress = new CountingProgress();
+        progress.cancelAfter = 2;
+        FileInputStream in = new FileInputStream(book);
+        int added;
+        try {
+            added = new ElementImporter(store, true).importChannel(in.getChannel(), book.length(), progress);
+        } finally {
+            in.close();
+        }
+        assertTrue(added > 0 && added < 20000);
+        assertEquals(added, store.size());
+    }
+
+    @Test
+    public void importText_parallelMatchesSequential() throws Exception {
+        String[] words = {"the", "Cat", "sat.", "Mr.", "J.", "\"Oh!\"", "on", "THE", "mat?", "3.5", "it", "Rug."};
+        String[] gaps = {" ", " ", " ", "\n", "\n\n", "\r\n\r\n", "\t"};
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder();
+        while (text.length() < 6 * ElementImporter.CHUNK_SIZE) {
+            text.append(words[random.nextInt(words.length)]).append(random.nextInt(5000))
+                    .append(gaps[random.nextInt(gaps.length)]);
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            for (boolean wsState : new boolean[]{false, true}) {
+                ElementStore sequential = ElementStore.open(new File(folder.getRoot(), "sequential_" + wsState));
+                int expected = new ElementImporter(sequential, wsState).importText(text, new CountingProgress());
+                ElementStore parallel = ElementStore.open(new File(folder.getRoot(), "parallel_" + wsState));
+                assertEquals(expected, new ElementImporter(parallel, wsState, executor, 4).importText(text, new CountingProgress()));
+                assertEquals(sequential.getElements(), parallel.getElements());
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void importText_deduplicatesWords() {
+        ElementStore store = ElementStore.open(new File(folder.getRoot(), "words_list"));
+        assertEquals(2, new ElementImporter(store, false).importText("the cat THE Cat the", new CountingProgress()));
+    }
+}
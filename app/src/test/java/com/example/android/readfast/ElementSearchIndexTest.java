@@ -0,0 +1,108 @@
+package com.example.android.readfast;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for ElementSearchIndex
+ */
+public class ElementSearchIndexTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void awaitCompaction() {
+        ElementStore.awaitCompaction(); //the folder is deleted next, so no compaction may still be writing to it
+    }
+
+    @Test
+    public void searchWords_findsPrefixMatchesInAlphabeticalOrder() throws Exception {
+        ElementStore store = openStore("words_list", "CATCH", "DOG", "CAT", "CATALOG", "CAR");
+        ElementSearchIndex index = new ElementSearchIndex(store, false);
+        store.addChangeListener(index);
+        assertEquals(Arrays.asList("CAT", "CATALOG", "CATCH"), elements(store, index.search("CAT")));
+        assertEquals(0, index.search("COW").length);
+        assertNull(index.search(""));
+    }
+
+    @Test
+    public void searchWords_followsAddAndRemove() throws Exception {
+        ElementStore store = openStore("words_list", "CAT", "CATCH");
+        ElementSearchIndex index = new ElementSearchIndex(store, false);
+        store.addChangeListener(index);
+        store.remove("CAT");
+        store.add("CAB");
+        assertEquals(Arrays.asList("CAB", "CATCH"), elements(store, index.search("CA")));
+        store.clear();
+        assertEquals(0, index.search("CA").length);
+    }
+
+    @Test
+    public void searchSentences_findsSubstringsInSlotOrder() throws Exception {
+        ElementStore store = openStore("sentences_list", "THE CAT SAT.", "A DOG RAN.", "THE CATALOG IS OPEN.");
+        ElementSearchIndex index = new ElementSearchIndex(store, true);
+        store.addChangeListener(index);
+        assertEquals(Arrays.asList("THE CAT SAT.", "THE CATALOG IS OPEN."), elements(store, index.search("CAT")));
+        assertEquals(Arrays.asList("THE CATALOG IS OPEN."), elements(store, index.search("E CATA")));
+        //both trigrams occur in the first sentence, but not next to each other
+        assertEquals(0, index.search("THE SAT").length);
+        assertNull(index.search("CA"));
+    }
+
+    @Test
+    public void searchSentences_followsAddAndRemove() throws Exception {
+        ElementStore store = openStore("sentences_list", "THE CAT SAT.");
+        ElementSearchIndex index = new ElementSearchIndex(store, true);
+        store.addChangeListener(index);
+        store.remove("THE CAT SAT.");
+        store.add("A CAT RAN.");
+        assertEquals(Arrays.asList("A CAT RAN."), elements(store, index.search("CAT")));
+    }
+
+    @Test
+    public void searchSentences_keepsReusedSlotsAndRepeatedTrigrams() throws Exception {
+        ElementStore store = openStore("sentences_list", "BANANA BANANA.", "A CAT RAN.", "A DOG RAN.");
+        ElementSearchIndex index = new ElementSearchIndex(store, true);
+        store.addChangeListener(index);
+        store.remove("A CAT RAN.");
+        store.add("THE CAT SAT."); //reuses the slot of the removed sentence
+        store.remove("A DOG RAN.");
+        assertEquals(Arrays.asList("BANANA BANANA."), elements(store, index.search("ANA")));
+        assertEquals(Arrays.asList("THE CAT SAT."), elements(store, index.search("CAT")));
+        assertEquals(0, index.search(" RAN").length);
+        store.remove("BANANA BANANA.");
+        assertEquals(0, index.search("NAN").length);
+    }
+
+    @Test
+    public void search_stopsAtTheLimit() throws Exception {
+        ElementStore words = openStore("words_list", "CAT", "CATALOG", "CATCH", "CAR");
+        ElementSearchIndex wordIndex = new ElementSearchIndex(words, false);
+        words.addChangeListener(wordIndex);
+        assertEquals(Arrays.asList("CAR", "CAT"), elements(words, wordIndex.search("CA", 2)));
+        ElementStore sentences = openStore("sentences_list", "THE CAT SAT.", "A CAT RAN.", "NO CAT HERE.");
+        ElementSearchIndex sentenceIndex = new ElementSearchIndex(sentences, true);
+        sentences.addChangeListener(sentenceIndex);
+        assertEquals(1, sentenceIndex.search("CAT", 1).length);
+        assertEquals(2, sentenceIndex.search(" CAT ", 2).length);
+    }
+
+    private ElementStore openStore(String name, String... elements) throws Exception {
+        ElementStore store = ElementStore.open(new File(folder.getRoot(), name));
+        store.addAll(Arrays.asList(elements));
+        return store;
+    }
+
+    private static List<String> elements(ElementStore store, int[] slots) {
+        return Arrays.asList(store.getElementsOfSlots(slots, 0, slots.length));
+    }
+}
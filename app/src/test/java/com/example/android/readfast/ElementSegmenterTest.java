@@ -0,0 +1,79 @@
+package com.example.android.readfast;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for ElementSegmenter
+ */
+public class ElementSegmenterTest {
+
+    private static List<String> segment(boolean wsState, String text, int chunkSize) {
+        final List<String> elements = new ArrayList<>();
+        ElementSegmenter segmenter = new ElementSegmenter(wsState, new ElementSegmenter.ElementSink() {
+            @Override
+            public void onElement(String element) {
+                elements.add(element);
+            }
+        });
+        char[] chars = text.toCharArray();
+        for (int i = 0; i < chars.length; i += chunkSize) {
+            segmenter.feed(chars, i, Math.min(chunkSize, chars.length - i));
+        }
+        segmenter.finish();
+        return elements;
+    }
+
+    @Test
+    public void sentences_splitAtTerminatorsAndCollapseWhitespace() {
+        assertEquals(Arrays.asList("One two.", "Three?!", "Four"),
+                segment(true, "  One\t two.  Three?!\nFour", 1000));
+    }
+
+    @Test
+    public void sentences_keepAbbreviationsInitialsAndNumbers() {
+        assertEquals(Arrays.asList("Mr. Smith met J. R. Jones at 3.30 p.m. today.", "They left."),
+                segment(true, "Mr. Smith met J. R. Jones at 3.30 p.m. today. They left.", 1000));
+    }
+
+    @Test
+    public void sentences_keepClosingQuotesAndContinueBeforeLowerCase() {
+        assertEquals(Arrays.asList("\"Stop!\" she said.", "(It worked.)", "Done"),
+                segment(true, "\"Stop!\" she said. (It worked.) Done", 1000));
+    }
+
+    @Test
+    public void sentences_blankLineEndsSentence() {
+        assertEquals(Arrays.asList("Chapter One", "It began."),
+                segment(true, "\uFEFFChapter One\n\nIt began.", 1000));
+    }
+
+    @Test
+    public void sentences_dropOverlongSentences() {
+        StringBuilder text = new StringBuilder("Short. ");
+        for (int i = 0; i < ElementSegmenter.MAX_SENTENCE_LENGTH; i++) text.append('X');
+        text.append(". End.");
+        assertEquals(Arrays.asList("Short.", "End."), segment(true, text.toString(), 1000));
+    }
+
+    @Test
+    public void words_keepOnlyLetters() {
+        assertEquals(Arrays.asList("Hello", "world", "dont"), segment(false, "Hello, world! 42 don't", 1000));
+    }
+
+    @Test
+    public void feed_chunkBoundariesDoNotChangeElements() {
+        String text = "Dr. Who said \"Hi.\" Then he left!\n\nNew part. e.g. this one... And \u201Cthat.\u201D";
+        for (boolean wsState : new boolean[]{true, false}) {
+            List<String> whole = segment(wsState, text, text.length());
+            for (int chunk = 1; chunk < 8; chunk++) {
+                assertEquals(whole, segment(wsState, text, chunk));
+            }
+        }
+    }
+}
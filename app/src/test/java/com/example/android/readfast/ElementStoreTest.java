@@ -0,0 +1,188 @@
+package com.example.android.readfast;
+
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for ElementStore
+ */
+public class ElementStoreTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @After
+    public void awaitCompaction() {
+        ElementStore.awaitCompaction(); //the folder is deleted next, so no compaction may still be writing to it
+    }
+
+    @Test
+    public void removeAll_removesSelectedSlotsAndKeepsOrder() throws Exception {
+        File base = new File(folder.getRoot(), "words_list");
+        ElementStore store = ElementStore.open(base);
+        store.addAll(Arrays.asList("A", "B", "C", "D", "E"));
+        BitSet slots = new BitSet();
+        slots.set(store.getSlotAt(1));
+        slots.set(store.getSlotAt(3));
+        assertEquals(2, store.removeAll(slots));
+        assertEquals(Arrays.asList("A", "C", "E"), store.getElements());
+        assertFalse(store.contains("B"));
+        assertEquals(-1, store.indexOf("D"));
+        assertEquals(Arrays.asList("A", "C", "E"), ElementStore.open(base).getElements());
+    }
+
+    @Test
+    public void add_reusesRemovedSlot() throws Exception {
+        ElementStore store = ElementStore.open(new File(folder.getRoot(), "words_list"));
+        store.addAll(Arrays.asList("A", "B", "C"));
+        int slot = store.getSlotAt(1);
+        int version = store.getVersions(new int[]{slot})[0];
+        store.remove("B");
+        assertTrue(store.add("D"));
+        assertEquals(slot, store.getSlotAt(1));
+        assertEquals(1, store.indexOf("d"));
+        assertNotEquals(version, store.getVersions(new int[]{slot})[0]);
+    }
+
+    @Test
+    public void addAll_reusesRemovedSlotsLowestFirst() throws Exception {
+        ElementStore store = ElementStore.open(new File(folder.getRoot(), "words_list"));
+        store.addAll(Arrays.asList("A", "B", "C", "D", "E", "F"));
+        BitSet removed = new BitSet();
+        removed.set(4);
+        removed.set(1);
+        store.removeAll(removed);
+        store.addAll(Arrays.asList("G", "H", "I"));
+        assertArrayEquals(new int[]{0, 1, 2, 3, 4, 5, 6}, store.getSlots());
+        assertEquals(Arrays.asList("A", "G", "C", "D", "H", "F", "I"), store.getElements());
+        assertEquals(6, store.indexOf("i"));
+    }
+
+    @Test
+    public void addAllAndRemoveAll_keepOrderAcrossChunks() throws Exception {
+        ElementStore store = ElementStore.open(new File(folder.getRoot(), "words_list"));
+        List<String> words = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            words.add("W" + i);
+        }
+        assertEquals(5000, store.addAll(words));
+        BitSet removed = new BitSet();
+        for (int slot = 0; slot < 5000; slot += 3) {
+            removed.set(slot);
+        }
+        assertEquals(1667, store.removeAll(removed));
+        int[] slots = store.getSlots();
+        assertEquals(3333, slots.length);
+        for (int i = 0; i < slots.length; i++) {
+            assertTrue(slots[i] % 3 != 0);
+            if (i > 0) assertTrue(slots[i - 1] < slots[i]);
+        }
+        assertEquals(-1, store.indexOf("W3"));
+        assertEquals(2, store.indexOf("W4"));
+    }
+
+    @Test
+    public void open_replaysLogAfterReopen() throws Exception {
+        File base = new File(folder.getRoot(), "sentences_list");
+        ElementStore store = ElementStore.open(base);
+        store.add("The cat sat.");
+        store.add("the cat sat.");
+        store.add("A dog ran.");
+        store.remove("A DOG RAN.");
+        ElementStore reopened = ElementStore.open(base);
+        assertEquals(Arrays.asList("THE CAT SAT."), reopened.getElements());
+        assertTrue(reopened.contains(" the cat sat. "));
+    }
+
+    @Test
+    public void add_keepsEveryElementWhileTheTableGrows() throws Exception {
+        File base = new File(folder.getRoot(), "words_list");
+        ElementStore store = ElementStore.open(base);
+        store.addAll(Arrays.asList("A", "B", "C"));
+        store.flush();
+        ElementStore reopened = ElementStore.open(base); //builds its table from the element file on the first lookup
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(reopened.add("W" + i));
+        }
+        reopened.remove("B");
+        assertFalse(reopened.add("C"));
+        assertTrue(reopened.contains("A"));
+        assertFalse(reopened.contains("B"));
+        assertEquals(2 + 999, reopened.indexOf("W999"));
+        assertEquals(1002, ElementStore.open(base).size());
+    }
+
+    @Test
+    public void clear_leavesTheOldMappingReadable() throws Exception {
+        File base = new File(folder.getRoot(), "words_list");
+        ElementStore store = ElementStore.open(base);
+        store.addAll(Arrays.asList("A", "B", "C"));
+        store.flush();
+        //a compaction still writing its snapshot reads the element file through a mapping like this one
+        ElementFile mapped = ElementFile.open(new File(folder.getRoot(), "words_list.bin"));
+        store.clear();
+        assertEquals("B", mapped.get(1));
+        assertEquals(0, store.size());
+        assertTrue(store.add("D"));
+        assertEquals(Arrays.asList("D"), ElementStore.open(base).getElements());
+    }
+
+    @Test
+    public void addChangeListener_letsOtherThreadsReadWhileReplaying() throws Exception {
+        final ElementStore store = ElementStore.open(new File(folder.getRoot(), "words_list"));
+        store.addAll(Arrays.asList("A", "B", "C"));
+        final int[] sizeSeen = {-1};
+        store.addChangeListener(new ElementStore.ChangeListener() {
+            @Override
+            public void onElementAdded(int slot, String element) {
+                if (slot != 0) return;
+                //a reader that had to wait for the replay would never finish
+                Thread reader = new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        sizeSeen[0] = store.size();
+                    }
+                });
+                reader.start();
+                try {
+                    reader.join(5000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+
+            @Override
+            public void onElementRemoved(int slot, String element) {
+            }
+
+            @Override
+            public void onElementsCleared() {
+            }
+        });
+        assertEquals(3, sizeSeen[0]);
+    }
+
+    @Test
+    public void open_failsOnGuardedThread() throws Exception {
+        IoThreadCheck.setGuardedThread(Thread.currentThread());
+        try {
+            ElementStore.open(new File(folder.getRoot(), "words_list"));
+            fail("expected element file I/O on the guarded thread to fail");
+        } catch (IllegalStateException expected) {
+            //the check fired before touching the file system
+            assertFalse(new File(folder.getRoot(), "words_list.bin").exists());
+        } finally {
+            IoThreadCheck.setGuardedThread(null);
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.android.readfast;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for ExposureClock
+ */
+public class ExposureClockTest {
+
+    private static final long FRAME = 16666667L; //frame interval of a 60 Hz display in nanoseconds
+
+    @Test
+    public void exposure_isRoundedToWholeFrames() {
+        assertEquals(3, new ExposureClock(50, FRAME).getExposureFrames());
+        assertEquals(60, new ExposureClock(1000, FRAME).getExposureFrames());
+        assertEquals(1, new ExposureClock(1, FRAME).getExposureFrames());
+    }
+
+    @Test
+    public void isExpired_hidesOnTheLastFrameOfTheExposure() {
+        ExposureClock clock = new ExposureClock(50, FRAME);
+        long start = 1000000000L;
+        assertFalse(clock.isExpired(start));
+        clock.start(start);
+        assertFalse(clock.isExpired(start + FRAME));
+        assertFalse(clock.isExpired(start + 2 * FRAME));
+        assertTrue(clock.isExpired(start + 3 * FRAME));
+        //vsync jitter does not move the frame the elements are hidden in
+        assertFalse(clock.isExpired(start + 2 * FRAME + FRAME / 3));
+        assertTrue(clock.isExpired(start + 3 * FRAME - FRAME / 3));
+    }
+
+    @Test
+    public void isExpired_doesNotGrowTheExposureWhenFramesAreDropped() {
+        ExposureClock clock = new ExposureClock(100, FRAME);
+        clock.start(0);
+        //the main thread missed frames 1 to 9, so the first frame after the exposure hides the elements
+        assertTrue(clock.isExpired(10 * FRAME));
+        assertEquals(0, clock.getRemainingMillis(10 * FRAME));
+    }
+
+    @Test
+    public void getRemainingMillis_countsDownByFrame() {
+        ExposureClock clock = new ExposureClock(1000, FRAME);
+        assertEquals(1000, clock.getRemainingMillis(0));
+        clock.start(0);
+        assertEquals(500, clock.getRemainingMillis(30 * FRAME));
+    }
+
+    @Test
+    public void onFrame_countsDroppedFramesAndVisibleTime() {
+        ExposureClock clock = new ExposureClock(100, FRAME);
+        clock.start(0);
+        assertFalse(clock.onFrame(FRAME));
+        //frames 2, 3 and 5 were dropped
+        assertFalse(clock.onFrame(4 * FRAME));
+        assertTrue(clock.onFrame(6 * FRAME));
+        assertEquals(3, clock.getDroppedFrames());
+        assertEquals(6 * FRAME, clock.getVisibleNanos());
+    }
+}
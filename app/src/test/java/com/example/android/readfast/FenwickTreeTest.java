@@ -0,0 +1,45 @@
+package com.example.android.readfast;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for FenwickTree
+ */
+public class FenwickTreeTest {
+
+    @Test
+    public void setAndFind_matchNaivePrefixSums() {
+        Random random = new Random(3);
+        int[] weights = new int[37];
+        FenwickTree tree = new FenwickTree(new int[0], 4);
+        for (int round = 0; round < 2000; round++) {
+            int index = random.nextInt(weights.length);
+            weights[index] = random.nextInt(4) == 0 ? 0 : random.nextInt(10);
+            tree.set(index, weights[index]);
+            long sum = 0;
+            for (int i = 0; i < weights.length; i++) {
+                assertEquals(sum, tree.prefixSum(i));
+                for (int w = 0; w < weights[i]; w++) {
+                    assertEquals(i, tree.find(sum + w));
+                }
+                sum += weights[i];
+            }
+            assertEquals(sum, tree.total());
+            assertEquals(-1, tree.find(sum));
+        }
+    }
+
+    @Test
+    public void constructor_buildsFromWeights() {
+        FenwickTree tree = new FenwickTree(new int[]{2, 0, 5, 1}, 10);
+        assertEquals(10, tree.capacity());
+        assertEquals(8, tree.total());
+        assertEquals(2, tree.prefixSum(2));
+        assertEquals(2, tree.find(2));
+        assertEquals(3, tree.find(7));
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.android.readfast;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for Histogram
+ */
+public class HistogramTest {
+
+    @Test
+    public void buckets_coverEveryValueWithSmallRelativeError() {
+        Histogram h = new Histogram();
+        for (long value = 0; value < 100000; value += 7) {
+            int bucket = Histogram.indexOf(value);
+            assertTrue(h.getLowestValue(bucket) <= value && value <= h.getHighestValue(bucket));
+            assertTrue(h.getHighestValue(bucket) - h.getLowestValue(bucket) <= value / 32);
+        }
+        assertEquals(h.getBucketCount() - 1, Histogram.indexOf(Histogram.MAX_VALUE));
+    }
+
+    @Test
+    public void getValueAtPercentile_findsTheBucketOfThePercentile() {
+        Histogram h = new Histogram();
+        for (int i = 1; i <= 1000; i++) {
+            h.record(i * 1000L);
+        }
+        assertEquals(1000, h.getMin());
+        assertEquals(1000000, h.getMax());
+        long p50 = h.getValueAtPercentile(50);
+        assertTrue(Math.abs(p50 - 500000) <= 500000 / 32);
+        assertEquals(1000000, h.getValueAtPercentile(100));
+    }
+
+    @Test
+    public void writeTo_roundTripsThroughReadFrom() throws Exception {
+        Histogram h = new Histogram();
+        h.record(3);
+        h.record(16700);
+        h.record(16700);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        h.writeTo(new DataOutputStream(bytes));
+        Histogram read = new Histogram();
+        read.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        assertEquals(3, read.getTotalCount());
+        assertEquals(3, read.getMin());
+        assertEquals(16700, read.getMax());
+        assertEquals(2, read.getCount(Histogram.indexOf(16700)));
+    }
+}
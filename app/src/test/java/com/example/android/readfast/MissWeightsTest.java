@@ -0,0 +1,75 @@
+package com.example.android.readfast;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for MissWeights and the review draws of ElementStore
+ */
+public class MissWeightsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void missesAndHits_persistAndDecay() throws Exception {
+        File f = new File(folder.getRoot(), "words_list.misses");
+        MissWeights weights = MissWeights.open(f);
+        weights.recordMiss(500);
+        weights.recordMiss(500);
+        weights.recordMiss(7);
+        weights.recordHit(7);
+        assertEquals(2 * MissWeights.MISS_STEP, weights.getWeight(500));
+        assertEquals(MissWeights.MISS_STEP / 2, weights.getWeight(7));
+        MissWeights reopened = MissWeights.open(f);
+        assertEquals(2 * MissWeights.MISS_STEP, reopened.getWeight(500));
+        assertEquals(2 * MissWeights.MISS_STEP + MissWeights.MISS_STEP / 2, reopened.getTotal());
+        for (int i = 0; i < 100; i++) reopened.recordMiss(500);
+        assertEquals(MissWeights.MAX_WEIGHT, reopened.getWeight(500));
+    }
+
+    @Test
+    public void draw_onlyDrawsMissedSlotsWithoutRepeats() throws Exception {
+        MissWeights weights = MissWeights.open(new File(folder.getRoot(), "words_list.misses"));
+        weights.recordMiss(3);
+        weights.recordMiss(9);
+        weights.recordMiss(9);
+        int[] drawn = weights.draw(5);
+        assertEquals(2, drawn.length);
+        assertEquals(new HashSet<>(Arrays.asList(3, 9)), new HashSet<>(Arrays.asList(drawn[0], drawn[1])));
+        assertEquals(3 * MissWeights.MISS_STEP, weights.getTotal()); //drawing does not change the weights
+    }
+
+    @Test
+    public void store_reviewsMissedElementsFirst() throws Exception {
+        File base = new File(folder.getRoot(), "words_list");
+        ElementStore store = ElementStore.open(base);
+        store.addAll(Arrays.asList("ONE", "TWO", "THREE", "FOUR", "FIVE", "SIX"));
+        store.recordRound(Arrays.asList("ONE", "TWO", "THREE"), Collections.singletonList("TWO"));
+        List<String> drawn = store.drawMissed(1);
+        assertEquals(Collections.singletonList("TWO"), drawn);
+        assertEquals(3, new HashSet<>(store.drawMissed(3)).size());
+        //a removed element takes its misses with it, even after reopening
+        store.remove("TWO");
+        assertTrue(ElementStore.open(base).drawMissed(1).size() == 1);
+        assertFalse(ElementStore.open(base).drawMissed(1).contains("TWO"));
+        assertEquals(0, ElementStore.open(base).getMissWeight(1));
+    }
+
+    @Test
+    public void score_missedElementsContainMissedWords() {
+        List<String> elements = Arrays.asList("The cat sat.", "A dog ran.");
+        List<String> key = Arrays.asList("THE", "CAT", "SAT", "A", "DOG", "RAN");
+        ScoringEngine.Score score = ScoringEngine.score(key, Arrays.asList("THE", "CAT", "SAT", "A", "RAN"), true);
+        assertEquals(Collections.singletonList("A dog ran."), score.getMissedElements(elements));
+    }
+}
@@ -0,0 +1,82 @@
+package com.example.android.readfast;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for PlacementEngine
+ */
+public class PlacementEngineTest {
+
+    private static final int WIDTH = 1080;
+    private static final int HEIGHT = 1920;
+    private static final int MARGIN = 15;
+
+    @Test
+    public void place_elementsDoNotOverlap() {
+        int n = 100;
+        int[] widths = new int[n];
+        int[] heights = new int[n];
+        Random sizes = new Random(1);
+        for (int i = 0; i < n; i++) {
+            widths[i] = 30 + sizes.nextInt(120);
+            heights[i] = 40;
+        }
+        PlacementEngine engine = new PlacementEngine(WIDTH, HEIGHT, MARGIN, PlacementEngine.DEFAULT_MAX_ATTEMPTS, new Random(2));
+        int[] positions = engine.place(widths, heights);
+        for (int i = 0; i < n; i++) {
+            assertTrue(positions[i * 2] >= 0 && positions[i * 2] + widths[i] <= WIDTH);
+            assertTrue(positions[i * 2 + 1] >= 0 && positions[i * 2 + 1] + heights[i] <= HEIGHT);
+            for (int j = i + 1; j < n; j++) {
+                assertFalse(overlaps(positions, widths, heights, i, j));
+            }
+        }
+    }
+
+    @Test
+    public void place_avoidsObstacle() {
+        PlacementEngine engine = new PlacementEngine(200, 100, 0, PlacementEngine.DEFAULT_MAX_ATTEMPTS, new Random(3));
+        engine.addObstacle(0, 0, 100, 100);
+        int[] positions = engine.place(new int[]{100}, new int[]{100});
+        assertEquals(100, positions[0]);
+        assertEquals(0, positions[1]);
+    }
+
+    @Test
+    public void place_reportsElementsThatDoNotFit() {
+        PlacementEngine engine = new PlacementEngine(100, 100, 0, 4, new Random(4));
+        int[] positions = engine.place(new int[]{100, 100, 100}, new int[]{100, 100, 100});
+        assertArrayEquals(new int[]{0, 0, PlacementEngine.NOT_PLACED, PlacementEngine.NOT_PLACED,
+                PlacementEngine.NOT_PLACED, PlacementEngine.NOT_PLACED}, positions);
+        assertTrue(engine.getAttempts() > 0);
+    }
+
+    @Test
+    public void place_avoidsObstacleLargerThanTheElements() {
+        PlacementEngine engine = new PlacementEngine(WIDTH, HEIGHT, 0, PlacementEngine.DEFAULT_MAX_ATTEMPTS, new Random(6));
+        engine.addObstacle(0, 0, WIDTH, HEIGHT - 20);
+        int[] positions = engine.place(new int[]{10, 10}, new int[]{10, 10});
+        assertTrue(positions[1] >= HEIGHT - 20);
+        assertTrue(positions[3] >= HEIGHT - 20);
+        assertTrue(Math.abs(positions[0] - positions[2]) >= 10);
+    }
+
+    @Test
+    public void place_sameSeedGivesSamePositions() {
+        int[] widths = {50, 80, 120};
+        int[] heights = {40, 40, 40};
+        int[] first = new PlacementEngine(WIDTH, HEIGHT, MARGIN, 8, new Random(5)).place(widths, heights);
+        int[] second = new PlacementEngine(WIDTH, HEIGHT, MARGIN, 8, new Random(5)).place(widths, heights);
+        assertArrayEquals(first, second);
+    }
+
+    private static boolean overlaps(int[] positions, int[] widths, int[] heights, int i, int j) {
+        return positions[i * 2] - MARGIN < positions[j * 2] + widths[j] + MARGIN
+                && positions[j * 2] - MARGIN < positions[i * 2] + widths[i] + MARGIN
+                && positions[i * 2 + 1] - MARGIN < positions[j * 2 + 1] + heights[j] + MARGIN
+                && positions[j * 2 + 1] - MARGIN < positions[i * 2 + 1] + heights[i] + MARGIN;
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.android.readfast;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for RoundMetrics
+ */
+public class RoundMetricsTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void save_persistsAcrossSessions() throws Exception {
+        File file = new File(folder.getRoot(), "round_metrics.bin");
+        RoundMetrics metrics = RoundMetrics.open(file);
+        metrics.record(12000, 1000000, 2, 40);
+        metrics.record(-1, 50000, 0, 10);
+        metrics.save();
+
+        RoundMetrics reopened = RoundMetrics.open(file);
+        assertEquals(1, reopened.getHistogram(RoundMetrics.REVEAL_LATENCY).getTotalCount());
+        assertEquals(2, reopened.getHistogram(RoundMetrics.VISIBLE_DURATION).getTotalCount());
+        assertEquals(2, reopened.getHistogram(RoundMetrics.DROPPED_FRAMES).getMax());
+        assertEquals(10, reopened.getHistogram(RoundMetrics.PLACEMENT_ATTEMPTS).getMin());
+    }
+
+    @Test
+    public void toCsv_listsEveryNonEmptyBucket() throws Exception {
+        RoundMetrics metrics = RoundMetrics.open(new File(folder.getRoot(), "round_metrics.bin"));
+        metrics.record(5, 7, 0, 3);
+        String[] rows = metrics.toCsv().split("\n");
+        assertEquals("metric,lowest_value,highest_value,count", rows[0]);
+        assertEquals(5, rows.length);
+        assertEquals("reveal_latency_us,5,5,1", rows[1]);
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.android.readfast;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for ScoringEngine
+ */
+public class ScoringEngineTest {
+
+    @Test
+    public void scoreMultiset_repeatedResponseCountsOnce() {
+        ScoringEngine.Score score = ScoringEngine.score(words("CAT", "DOG", "BIRD"), words("CAT", "CAT", "CAT", "CAT", "CAT"), false);
+        assertEquals(1, score.correct);
+        assertEquals(100.0 / 3, score.getAccuracy(), 1e-9);
+        assertEquals(words("DOG", "BIRD"), score.getMissed());
+        assertEquals(4, count(score, ScoringEngine.EXTRA));
+    }
+
+    @Test
+    public void scoreMultiset_ignoresOrder() {
+        ScoringEngine.Score score = ScoringEngine.score(words("CAT", "DOG"), words("DOG", "CAT"), false);
+        assertEquals(2, score.correct);
+        assertEquals(0, count(score, ScoringEngine.MISS) + count(score, ScoringEngine.EXTRA));
+    }
+
+    @Test
+    public void scoreAligned_wordsOutOfOrderAreNotAllHits() {
+        ScoringEngine.Score score = ScoringEngine.score(words("THE", "QUICK", "BROWN", "FOX"), words("THE", "BROWN", "QUICK", "FOX"), true);
+        assertEquals(3, score.correct);
+        assertEquals(1, count(score, ScoringEngine.MISS));
+        assertEquals(1, count(score, ScoringEngine.EXTRA));
+    }
+
+    @Test
+    public void scoreAligned_diffKeepsOrderOfBothLists() {
+        List<String> answers = words("A", "B", "C", "A", "B", "B", "A");
+        List<String> responses = words("C", "B", "A", "B", "A", "C");
+        ScoringEngine.Score score = ScoringEngine.score(answers, responses, true);
+        assertEquals(4, score.correct);
+        StringBuilder left = new StringBuilder();
+        StringBuilder right = new StringBuilder();
+        for (ScoringEngine.Entry entry : score.entries) {
+            if (entry.type != ScoringEngine.EXTRA) left.append(entry.element);
+            if (entry.type != ScoringEngine.MISS) right.append(entry.element);
+        }
+        assertEquals("ABCABBA", left.toString());
+        assertEquals("CBABAC", right.toString());
+    }
+
+    @Test
+    public void score_ignoresEmptyResponses() {
+        ScoringEngine.Score score = ScoringEngine.score(words("CAT"), words(""), false);
+        assertEquals(0, score.correct);
+        assertEquals(0, count(score, ScoringEngine.EXTRA));
+    }
+
+    private static List<String> words(String... words) {
+        return Arrays.asList(words);
+    }
+
+    private static int count(ScoringEngine.Score score, int type) {
+        int count = 0;
+        for (ScoringEngine.Entry entry : score.entries) {
+            if (entry.type == type) count++;
+        }
+        return count;
+    }
+}
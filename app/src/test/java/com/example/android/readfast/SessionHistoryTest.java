@@ -0,0 +1,119 @@
+package com.example.android.readfast;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.util.Arrays;
+import java.util.List;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for SessionHistory
+ */
+public class SessionHistoryTest {
+
+    private static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+    private static final long DAY = 24 * 60 * 60 * 1000L;
+    private static final long MONDAY = 1704067200000L; //2024-01-01T00:00:00Z, a Monday
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private static SessionHistory.Round round(long timestamp, int correct, int total) {
+        return new SessionHistory.Round(timestamp, false, 2000, correct, total, new long[]{1, 2}, new long[]{3});
+    }
+
+    @Test
+    public void summaries_addUpDaysAndWeeks() throws Exception {
+        SessionHistory history = SessionHistory.open(new File(folder.getRoot(), "history.log"), UTC);
+        history.add(round(MONDAY + 1000, 3, 4));
+        history.add(round(MONDAY + 2000, 1, 4));
+        history.add(round(MONDAY + 6 * DAY, 4, 4)); //Sunday, the same week
+        history.add(round(MONDAY + 7 * DAY, 2, 4)); //the next Monday
+        SessionHistory.Summary monday = history.getDay(MONDAY + 5000);
+        assertEquals(2, monday.getRounds());
+        assertEquals(50, monday.getAccuracy(), 1e-9);
+        assertEquals(6, monday.getElements());
+        assertEquals(4000, monday.getExposureMillis());
+        assertEquals(3, history.getWeek(MONDAY + 3 * DAY).getRounds());
+        assertEquals(1, history.getWeek(MONDAY + 7 * DAY).getRounds());
+        assertEquals(0, history.getDay(MONDAY + DAY).getRounds());
+    }
+
+    @Test
+    public void oldDays_areDroppedFromTheRing() throws Exception {
+        SessionHistory history = SessionHistory.open(new File(folder.getRoot(), "history.log"), UTC);
+        history.add(round(MONDAY, 1, 1));
+        history.add(round(MONDAY + SessionHistory.DAYS * DAY, 1, 1)); //the same index of the ring
+        assertEquals(0, history.getDay(MONDAY).getRounds());
+        assertEquals(1, history.getDay(MONDAY + SessionHistory.DAYS * DAY).getRounds());
+        history.add(round(MONDAY + 500, 1, 1)); //a late round older than the days kept still counts for its week
+        assertEquals(0, history.getDay(MONDAY).getRounds());
+        assertEquals(2, history.getWeek(MONDAY).getRounds());
+    }
+
+    @Test
+    public void rounds_areWrittenInBatchesAndReadBack() throws Exception {
+        File f = new File(folder.getRoot(), "history.log");
+        SessionHistory history = SessionHistory.open(f, UTC);
+        long empty = f.length();
+        for (int i = 0; i < SessionHistory.BATCH_SIZE - 1; i++) {
+            history.add(round(MONDAY + i, i, 10));
+        }
+        assertEquals(empty, f.length()); //nothing written before the batch is full
+        history.add(round(MONDAY + 100, 9, 10));
+        assertTrue(f.length() > empty);
+        history.add(new SessionHistory.Round(MONDAY + 200, true, 500, 70000, 100000, new long[0], new long[]{-7}));
+        history.flush();
+
+        SessionHistory reopened = SessionHistory.open(f, UTC);
+        List<SessionHistory.Round> rounds = reopened.readRounds();
+        assertEquals(SessionHistory.BATCH_SIZE + 1, rounds.size());
+        SessionHistory.Round last = rounds.get(rounds.size() - 1);
+        assertTrue(last.wsState);
+        assertEquals(500, last.exposureMillis);
+        assertEquals(70000, last.correct); //counts above 65535 are not cut short
+        assertEquals(100000, last.total);
+        assertEquals(-7, last.missedIds[0]);
+        assertEquals(SessionHistory.BATCH_SIZE + 1, reopened.getDay(MONDAY).getRounds());
+    }
+
+    @Test
+    public void elementIds_followTheNormalizedText() {
+        long[] ids = SessionHistory.elementIds(Arrays.asList("the cat", " THE CAT ", "A DOG"));
+        assertEquals(ids[0], ids[1]);
+        assertNotEquals(ids[0], ids[2]);
+    }
+
+    @Test
+    public void tornRecord_isDroppedAndStatsAreRebuilt() throws Exception {
+        File f = new File(folder.getRoot(), "history.log");
+        SessionHistory history = SessionHistory.open(f, UTC);
+        history.add(round(MONDAY, 1, 2));
+        history.add(round(MONDAY + 1, 1, 2));
+        history.flush();
+        long complete = f.length();
+        //a crash in the middle of appending the next record
+        RandomAccessFile raf = new RandomAccessFile(f, "rw");
+        try {
+            raf.seek(complete);
+            raf.write(new byte[]{1, 2, 3, 4, 5});
+        } finally {
+            raf.close();
+        }
+        SessionHistory reopened = SessionHistory.open(f, UTC);
+        assertEquals(complete, f.length());
+        assertEquals(2, reopened.getDay(MONDAY).getRounds());
+
+        //without the stats file every round is replayed
+        assertTrue(new File(f.getPath() + ".stats").delete());
+        SessionHistory rebuilt = SessionHistory.open(f, UTC);
+        assertEquals(2, rebuilt.getDay(MONDAY).getRounds());
+        assertEquals(50, rebuilt.getWeek(MONDAY).getAccuracy(), 1e-9);
+    }
+}
@@ -0,0 +1,116 @@
+package com.example.android.readfast;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Local unit tests for SlotDiff
+ */
+public class SlotDiffTest {
+
+    @Test
+    public void calculate_findsRangeInsertsAndRemoves() {
+        int[] oldSlots = {1, 2, 3, 4, 5};
+        int[] newSlots = {1, 7, 8, 3, 5, 9};
+        SlotDiff diff = SlotDiff.calculate(oldSlots, new int[5], newSlots, new int[6]);
+        assertFalse(diff.isReordered());
+        assertEquals(4, diff.getUpdateCount()); //remove 2, insert 7 and 8, remove 4, insert 9
+        assertEquals(toList(newSlots, new int[6]), apply(oldSlots, new int[5], newSlots, new int[6], diff));
+    }
+
+    @Test
+    public void calculate_findsReusedSlots() {
+        int[] oldSlots = {1, 2, 3, 4};
+        int[] oldVersions = {1, 2, 3, 4};
+        int[] newSlots = {1, 2, 3, 4};
+        int[] newVersions = {1, 5, 6, 4};
+        SlotDiff diff = SlotDiff.calculate(oldSlots, oldVersions, newSlots, newVersions);
+        assertEquals(1, diff.getUpdateCount()); //change 2 and 3
+        assertEquals(toList(newSlots, newVersions), apply(oldSlots, oldVersions, newSlots, newVersions, diff));
+    }
+
+    @Test
+    public void calculate_matchesRandomEdits() {
+        Random random = new Random(7);
+        for (int round = 0; round < 200; round++) {
+            List<Integer> oldList = new ArrayList<>();
+            List<Integer> newList = new ArrayList<>();
+            List<Integer> oldVersionList = new ArrayList<>();
+            List<Integer> newVersionList = new ArrayList<>();
+            for (int slot = 0; slot < 100; slot++) {
+                int keep = random.nextInt(4);
+                int version = random.nextInt(3);
+                if (keep != 0) {
+                    oldList.add(slot);
+                    oldVersionList.add(version);
+                }
+                if (keep != 1) {
+                    newList.add(slot);
+                    newVersionList.add(random.nextInt(4) == 0 ? version + 1 : version);
+                }
+            }
+            int[] oldSlots = toArray(oldList);
+            int[] oldVersions = toArray(oldVersionList);
+            int[] newSlots = toArray(newList);
+            int[] newVersions = toArray(newVersionList);
+            SlotDiff diff = SlotDiff.calculate(oldSlots, oldVersions, newSlots, newVersions);
+            assertFalse(diff.isReordered());
+            assertEquals(toList(newSlots, newVersions), apply(oldSlots, oldVersions, newSlots, newVersions, diff));
+        }
+    }
+
+    @Test
+    public void calculate_detectsReorder() {
+        assertTrue(SlotDiff.calculate(new int[]{1, 2, 3}, new int[3], new int[]{3, 2, 1}, new int[3]).isReordered());
+        assertEquals(0, SlotDiff.calculate(new int[]{1, 2}, new int[2], new int[]{1, 2}, new int[2]).getUpdateCount());
+    }
+
+    /**
+     * Applies the changes to the old slots, taking inserted and changed slots from the new ones at the same position
+     */
+    private static List<String> apply(int[] oldSlots, int[] oldVersions, final int[] newSlots, final int[] newVersions, SlotDiff diff) {
+        final List<String> list = toList(oldSlots, oldVersions);
+        diff.dispatchTo(new SlotDiff.Callback() {
+            @Override
+            public void onInserted(int position, int count) {
+                for (int i = 0; i < count; i++) {
+                    list.add(position + i, newSlots[position + i] + "/" + newVersions[position + i]);
+                }
+            }
+
+            @Override
+            public void onRemoved(int position, int count) {
+                list.subList(position, position + count).clear();
+            }
+
+            @Override
+            public void onChanged(int position, int count) {
+                for (int i = 0; i < count; i++) {
+                    list.set(position + i, newSlots[position + i] + "/" + newVersions[position + i]);
+                }
+            }
+        });
+        return list;
+    }
+
+    private static List<String> toList(int[] slots, int[] versions) {
+        List<String> list = new ArrayList<>();
+        for (int i = 0; i < slots.length; i++) {
+            list.add(slots[i] + "/" + versions[i]);
+        }
+        return list;
+    }
+
+    private static int[] toArray(List<Integer> list) {
+        int[] values = new int[list.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = list.get(i);
+        }
+        return values;
+    }
+}
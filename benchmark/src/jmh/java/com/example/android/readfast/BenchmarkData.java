@@ -0,0 +1,121 @@
+package com.example.android.readfast;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * This class generates the element lists and answers the benchmarks run on. Every list is made from
+ * a fixed seed, so every run and every commit measures the same data.
+ */
+final class BenchmarkData {
+
+    static final long SEED = 42; //seed of every generated list
+    static final int SENTENCE_LENGTH = 8; //number of words in a generated sentence
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Generates distinct words of three or more letters in random order
+     * @param count is the number of words
+     * @param seed is the seed of the order
+     * @return the List of words
+     */
+    static List<String> words(int count, long seed) {
+        List<String> words = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            words.add(word(i + 26 * 26)); //skips the one and two letter words
+        }
+        Collections.shuffle(words, new Random(seed));
+        return words;
+    }
+
+    /**
+     * Generates sentences of SENTENCE_LENGTH words taken from a list of distinct words
+     * @param count is the number of sentences
+     * @param seed is the seed of the words picked
+     * @return the List of sentences
+     */
+    static List<String> sentences(int count, long seed) {
+        List<String> words = words(Math.max(count, 1024), seed);
+        Random random = new Random(seed);
+        List<String> sentences = new ArrayList<>(count);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < count; i++) {
+            sb.setLength(0);
+            sb.append(capitalize(words.get(i)));
+            for (int j = 1; j < SENTENCE_LENGTH; j++) {
+                sb.append(' ').append(words.get(random.nextInt(words.size())));
+            }
+            sentences.add(sb.append('.').toString());
+        }
+        return sentences;
+    }
+
+    /**
+     * Writes an answer the way a user would: most words of the elements in order, with some left out
+     * and some misspelled
+     * @param elements are the displayed elements
+     * @param seed is the seed of the mistakes
+     * @return the answer
+     */
+    static String answer(List<String> elements, long seed) {
+        Random random = new Random(seed);
+        StringBuilder sb = new StringBuilder();
+        List<String> tokens = new ArrayList<>();
+        for (String element : elements) {
+            tokens.clear();
+            AnswerTokenizer.tokenize(element, tokens);
+            for (String token : tokens) {
+                int mistake = random.nextInt(10);
+                if (mistake == 0) continue; //left out
+                if (sb.length() > 0) sb.append(' ');
+                sb.append(mistake == 1 ? token.substring(1) : token.toLowerCase()); //misspelled, or typed in lower case
+            }
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Joins elements into a text with one element per line
+     * @param elements are the elements
+     * @return the text
+     */
+    static String text(List<String> elements) {
+        StringBuilder sb = new StringBuilder();
+        for (String element : elements) {
+            sb.append(element).append('\n');
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Deletes a directory and everything in it
+     * @param f is the directory or file
+     */
+    static void delete(File f) {
+        File[] children = f.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        f.delete();
+    }
+
+    private static String word(int n) {
+        StringBuilder sb = new StringBuilder();
+        while (n > 0) {
+            sb.append((char) ('a' + n % 26));
+            n /= 26;
+        }
+        return sb.toString();
+    }
+
+    private static String capitalize(String word) {
+        return Character.toUpperCase(word.charAt(0)) + word.substring(1);
+    }
+}
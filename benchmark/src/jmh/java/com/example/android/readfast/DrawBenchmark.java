@@ -0,0 +1,68 @@
+package com.example.android.readfast;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for drawing the elements of a round from element lists of every size the app supports,
+ * at random, from a difficulty band and from the elements missed most.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class DrawBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int listSize; //number of distinct elements in the list
+
+    @Param({"5", "20", "50"})
+    public int elementCount; //number of elements drawn for a round
+
+    private File dir; //directory of the element list
+    private ElementStore store; //element list drawn from
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("readfast-benchmark").toFile();
+        List<String> words = BenchmarkData.words(listSize, BenchmarkData.SEED);
+        store = ElementStore.open(new File(dir, "words_list"));
+        store.addAll(words);
+        //a tenth of the list was missed in earlier rounds
+        store.recordRound(words.subList(0, listSize / 10), words.subList(0, listSize / 10));
+        store.flush();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkData.delete(dir);
+    }
+
+    @Benchmark
+    public List<String> draw() {
+        return store.draw(elementCount);
+    }
+
+    @Benchmark
+    public List<String> drawByDifficulty() {
+        return store.drawByDifficulty(elementCount, ElementDifficulty.getBandPercentile(2));
+    }
+
+    @Benchmark
+    public List<String> drawMissed() {
+        return store.drawMissed(elementCount);
+    }
+}
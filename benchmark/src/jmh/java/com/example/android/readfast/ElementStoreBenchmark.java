@@ -0,0 +1,113 @@
+package com.example.android.readfast;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for loading, deduplicating and importing element lists of every size the app supports.
+ * Loading replaces the file read in GameActivity.onCreate, addAll replaces the duplicate removal of
+ * WordListActivity.clearRepeats and the imports read a text in which every element appears twice.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class ElementStoreBenchmark {
+
+    @Param({"1000", "10000", "100000", "1000000"})
+    public int listSize; //number of distinct elements in the list
+
+    private File dir; //directory of every element list of the benchmark
+    private File loadBase; //element list read by load()
+    private List<String> repeated; //every element of the list twice, in random order
+    private String text; //repeated as a text with one element per line
+    private ExecutorService segmentExecutor; //threads of the parallel import
+    private int parallelism; //number of threads of segmentExecutor
+    private File importDir; //directory of the element list of the current invocation
+    private ElementStore importStore; //empty element list of the current invocation
+    private int invocations; //number of invocations so far, which names their directories
+
+    private static final ElementImporter.Progress NO_PROGRESS = new ElementImporter.Progress() {
+        @Override
+        public boolean isCancelled() {
+            return false;
+        }
+
+        @Override
+        public void onProgress(int percent) {
+        }
+    };
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        dir = Files.createTempDirectory("readfast-benchmark").toFile();
+        List<String> words = BenchmarkData.words(listSize, BenchmarkData.SEED);
+        loadBase = new File(dir, "words_list");
+        ElementStore store = ElementStore.open(loadBase);
+        store.addAll(words);
+        store.flush(); //compacts the log, so load() reads the element file the way the app usually finds it
+        repeated = new ArrayList<>(words);
+        repeated.addAll(words);
+        Collections.shuffle(repeated, new Random(BenchmarkData.SEED));
+        text = BenchmarkData.text(repeated);
+        parallelism = Runtime.getRuntime().availableProcessors();
+        segmentExecutor = Executors.newFixedThreadPool(parallelism);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        segmentExecutor.shutdown();
+        BenchmarkData.delete(dir);
+    }
+
+    @Setup(Level.Invocation)
+    public void newStore() {
+        importDir = new File(dir, "import" + invocations++);
+        importDir.mkdirs();
+        importStore = ElementStore.open(new File(importDir, "words_list"));
+    }
+
+    @TearDown(Level.Invocation)
+    public void deleteStore() {
+        importStore.flush(); //waits for a compaction the import queued, which still writes to the directory
+        BenchmarkData.delete(importDir);
+    }
+
+    @Benchmark
+    public int load() {
+        return ElementStore.open(loadBase).size();
+    }
+
+    @Benchmark
+    public int addAll() {
+        return importStore.addAll(repeated);
+    }
+
+    @Benchmark
+    public int importText() {
+        return new ElementImporter(importStore, false).importText(text, NO_PROGRESS);
+    }
+
+    @Benchmark
+    public int importTextParallel() {
+        return new ElementImporter(importStore, false, segmentExecutor, parallelism).importText(text, NO_PROGRESS);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.android.readfast;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for placing the elements of a round on screens of common sizes, which replaces the
+ * overlap testing of GameActivity.findIfViewsOverlaps. Element sizes follow the text sizes of the game
+ * scaled to the density of the screen.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class PlacementBenchmark {
+
+    private static final int ELEMENT_MARGIN = 15; //space kept around every element, as in GameActivity
+    private static final int WORD_HEIGHT_DP = 40; //height of a displayed word, a line of 30sp text
+    private static final int SENTENCE_LINE_DP = 53; //height of a line of a displayed sentence, 40sp text
+    private static final int SENTENCE_WIDTH_DP = 220; //width sentences are wrapped to, as in GameActivity
+    private static final int SENTENCE_LINES = 3; //number of lines of a displayed sentence
+
+    @Param({"5", "20", "50"})
+    public int elementCount; //number of elements displayed in the round
+
+    @Param({"720x1280", "1080x1920", "1440x2560"})
+    public String screen; //width and height of the screen in pixels
+
+    @Param({"false", "true"})
+    public boolean wsState; //whether the elements are words or sentences (false = words, true = sentences)
+
+    private int width; //width of the game board
+    private int height; //height of the game board
+    private int[] timerRect; //x, y, width and height of the timer
+    private int[] widths; //widths of the elements
+    private int[] heights; //heights of the elements
+    private Random random; //source of random positions
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        String[] size = screen.split("x");
+        width = Integer.parseInt(size[0]);
+        height = Integer.parseInt(size[1]);
+        float density = width / 360f; //every screen is 360dp wide
+        timerRect = new int[]{width / 2 - (int) (40 * density), 0, (int) (80 * density), (int) (40 * density)};
+        Random sizes = new Random(BenchmarkData.SEED);
+        widths = new int[elementCount];
+        heights = new int[elementCount];
+        for (int i = 0; i < elementCount; i++) {
+            if (wsState) {
+                widths[i] = (int) (SENTENCE_WIDTH_DP * density);
+                heights[i] = (int) ((1 + sizes.nextInt(SENTENCE_LINES)) * SENTENCE_LINE_DP * density);
+            } else {
+                widths[i] = (int) ((40 + sizes.nextInt(100)) * density);
+                heights[i] = (int) (WORD_HEIGHT_DP * density);
+            }
+        }
+        random = new Random(BenchmarkData.SEED);
+    }
+
+    @Benchmark
+    public int[] place() {
+        PlacementEngine engine = new PlacementEngine(width, height, ELEMENT_MARGIN, PlacementEngine.DEFAULT_MAX_ATTEMPTS, random);
+        engine.addObstacle(timerRect[0], timerRect[1], timerRect[2], timerRect[3]);
+        return engine.place(widths, heights);
+    }
+}
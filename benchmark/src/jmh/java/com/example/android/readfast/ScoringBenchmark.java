@@ -0,0 +1,79 @@
+package com.example.android.readfast;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for tokenizing and scoring the answer of a round. Typing the answer replaces the
+ * tokenization in the finish handler of GameActivity, and scoring replaces ResultsActivity.calculateAccuracy.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ScoringBenchmark {
+
+    @Param({"5", "20", "50"})
+    public int elementCount; //number of elements displayed in the round
+
+    @Param({"false", "true"})
+    public boolean wsState; //whether the elements are words or sentences (false = words, true = sentences)
+
+    private List<String> elements; //displayed elements
+    private List<String> answerKey; //tokens of the displayed elements
+    private String answer; //text the user entered
+    private List<String> responses; //tokens of the text the user entered
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        elements = wsState ? BenchmarkData.sentences(elementCount, BenchmarkData.SEED) : BenchmarkData.words(elementCount, BenchmarkData.SEED);
+        answerKey = new ArrayList<>();
+        for (String element : elements) {
+            AnswerTokenizer.tokenize(element, answerKey);
+        }
+        answer = BenchmarkData.answer(elements, BenchmarkData.SEED);
+        responses = new ArrayList<>();
+        AnswerTokenizer.tokenize(answer, responses);
+    }
+
+    /**
+     * Types the answer one character at a time, as the TextWatcher of GameActivity sees it
+     */
+    @Benchmark
+    public int typeAnswer() {
+        AnswerTokenizer tokenizer = new AnswerTokenizer();
+        StringBuilder text = new StringBuilder(answer.length());
+        for (int i = 0; i < answer.length(); i++) {
+            text.append(answer.charAt(i));
+            tokenizer.onTextChanged(text, i, 0, 1);
+        }
+        return tokenizer.size();
+    }
+
+    @Benchmark
+    public List<String> tokenize() {
+        List<String> tokens = new ArrayList<>();
+        AnswerTokenizer.tokenize(answer, tokens);
+        return tokens;
+    }
+
+    @Benchmark
+    public ScoringEngine.Score score() {
+        return ScoringEngine.score(answerKey, responses, wsState);
+    }
+
+    @Benchmark
+    public List<String> missedElements() {
+        return ScoringEngine.score(answerKey, responses, wsState).getMissedElements(elements);
+    }
+}